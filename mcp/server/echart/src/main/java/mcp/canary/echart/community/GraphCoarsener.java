@@ -0,0 +1,224 @@
+package mcp.canary.echart.community;
+
+import mcp.canary.echart.module.graph.series.data.GraphCommunityNode;
+import mcp.canary.echart.module.graph.series.data.GraphEdge;
+import mcp.canary.echart.module.graph.series.data.GraphNode;
+import mcp.canary.echart.validation.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 超出节点预算的图按社区粗化
+ * 输入为 GraphValidator 校验后的 IndexedGraph，先用 LabelPropagation 在下标化的邻接数组上划分社区，每个社区合并成一个 GraphCommunityNode，
+ * 社区间的边按方向聚合为一条，value 为原始边数；社区内的边计入超级节点的属性。
+ * 社区数仍超过预算时，保留最大的 budget - 1 个社区，其余合并为一个“其他”节点，输出节点数不超过预算。
+ * 只有一个成员的社区原样输出该节点；超级节点名与保留节点重名时加 " #社区号" 后缀。
+ */
+public class GraphCoarsener {
+
+    private static final int MIN_SYMBOL_SIZE = 24;
+    private static final int MAX_SYMBOL_SIZE = 80;
+
+    private final int budget;
+    private final LabelPropagation labelPropagation;
+    private final long seed;
+
+    public GraphCoarsener(int budget, int maxRounds, long seed) {
+        if (budget < 2) {
+            throw new IllegalArgumentException("节点预算不能小于 2");
+        }
+        this.budget = budget;
+        this.labelPropagation = new LabelPropagation(maxRounds);
+        this.seed = seed;
+    }
+
+    /**
+     * 节点数超过预算时返回粗化后的图，否则原样返回
+     */
+    public Result coarsen(IndexedGraph graph) {
+        List<GraphNode> nodes = graph.nodes();
+        int[] sources = graph.sources();
+        int[] targets = graph.targets();
+        int n = nodes.size();
+        int m = sources.length;
+        if (n <= budget) {
+            return new Result(graph, false);
+        }
+
+        int[] community = labelPropagation.detect(n, sources, targets, seed);
+        int k = 0;
+        for (int c : community) {
+            k = Math.max(k, c + 1);
+        }
+        int[] sizes = new int[k];
+        for (int i = 0; i < n; i++) {
+            sizes[community[i]]++;
+        }
+        boolean hasOther = k > budget;
+        if (hasOther) {
+            community = keepLargest(community, sizes);
+            k = budget;
+            sizes = new int[k];
+            for (int i = 0; i < n; i++) {
+                sizes[community[i]]++;
+            }
+        }
+
+        int[] degree = new int[n];
+        for (int e = 0; e < m; e++) {
+            degree[sources[e]]++;
+            degree[targets[e]]++;
+        }
+        // 度数最大的成员作为社区的代表，用它的名字命名超级节点
+        int[] hub = new int[k];
+        Arrays.fill(hub, -1);
+        List<List<String>> members = new ArrayList<>(k);
+        List<Map<String, Integer>> categoryCounts = new ArrayList<>(k);
+        for (int c = 0; c < k; c++) {
+            members.add(new ArrayList<>(sizes[c]));
+            categoryCounts.add(new LinkedHashMap<>());
+        }
+        for (int i = 0; i < n; i++) {
+            int c = community[i];
+            GraphNode node = nodes.get(i);
+            members.get(c).add(node.getName());
+            if (node.getCategoryName() != null) {
+                categoryCounts.get(c).merge(node.getCategoryName(), 1, Integer::sum);
+            }
+            if (hub[c] < 0 || degree[i] > degree[hub[c]]) {
+                hub[c] = i;
+            }
+        }
+
+        int[] internalEdges = new int[k];
+        Map<Long, Integer> between = new LinkedHashMap<>();
+        for (int e = 0; e < m; e++) {
+            int cs = community[sources[e]];
+            int ct = community[targets[e]];
+            if (cs == ct) {
+                internalEdges[cs]++;
+            } else {
+                between.merge((long) cs * k + ct, 1, Integer::sum);
+            }
+        }
+
+        // 原样保留的节点先占用名称，超级节点名与之重复时加后缀，避免边连到错误的节点
+        String[] names = new String[k];
+        Set<String> used = new HashSet<>();
+        for (int c = 0; c < k; c++) {
+            if (isSingle(c, sizes, hasOther)) {
+                names[c] = nodes.get(hub[c]).getName();
+                used.add(names[c]);
+            }
+        }
+        for (int c = 0; c < k; c++) {
+            if (!isSingle(c, sizes, hasOther)) {
+                names[c] = uniqueName(hasOther && c == k - 1
+                        ? "其他 " + sizes[c] + " 个节点"
+                        : nodes.get(hub[c]).getName() + " 等 " + sizes[c] + " 个节点", c, used);
+            }
+        }
+
+        List<GraphNode> coarseNodes = new ArrayList<>(k);
+        for (int c = 0; c < k; c++) {
+            if (isSingle(c, sizes, hasOther)) {
+                coarseNodes.add(nodes.get(hub[c]));
+                continue;
+            }
+            GraphCommunityNode node = new GraphCommunityNode();
+            node.setName(names[c]);
+            node.setCategoryName(dominant(categoryCounts.get(c)));
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("节点数", sizes[c]);
+            properties.put("内部边数", internalEdges[c]);
+            node.setProperties(properties);
+            node.setMembers(members.get(c));
+            node.setSymbolSize(symbolSize(sizes[c]));
+            coarseNodes.add(node);
+        }
+
+        List<GraphEdge> coarseEdges = new ArrayList<>(between.size());
+        int[] coarseSources = new int[between.size()];
+        int[] coarseTargets = new int[between.size()];
+        for (Map.Entry<Long, Integer> entry : between.entrySet()) {
+            int cs = (int) (entry.getKey() / k);
+            int ct = (int) (entry.getKey() % k);
+            coarseSources[coarseEdges.size()] = cs;
+            coarseTargets[coarseEdges.size()] = ct;
+            GraphEdge edge = new GraphEdge();
+            edge.setSource(names[cs]);
+            edge.setTarget(names[ct]);
+            edge.setValue(entry.getValue());
+            edge.setProperties(Map.of("边数", entry.getValue()));
+            coarseEdges.add(edge);
+        }
+        return new Result(new IndexedGraph(coarseNodes, coarseEdges, coarseSources, coarseTargets), true);
+    }
+
+    /**
+     * 保留成员最多的 budget - 1 个社区（同样大小时编号小的优先），其余社区并入编号 budget - 1
+     */
+    private int[] keepLargest(int[] community, int[] sizes) {
+        Integer[] ranked = new Integer[sizes.length];
+        for (int c = 0; c < sizes.length; c++) {
+            ranked[c] = c;
+        }
+        Arrays.sort(ranked, (a, b) -> sizes[a] != sizes[b] ? Integer.compare(sizes[b], sizes[a]) : Integer.compare(a, b));
+        int[] remap = new int[sizes.length];
+        Arrays.fill(remap, budget - 1);
+        for (int r = 0; r < budget - 1; r++) {
+            remap[ranked[r]] = r;
+        }
+        int[] bounded = new int[community.length];
+        for (int i = 0; i < community.length; i++) {
+            bounded[i] = remap[community[i]];
+        }
+        return bounded;
+    }
+
+    private static boolean isSingle(int c, int[] sizes, boolean hasOther) {
+        return sizes[c] == 1 && !(hasOther && c == sizes.length - 1);
+    }
+
+    private static String uniqueName(String base, int community, Set<String> used) {
+        if (used.add(base)) {
+            return base;
+        }
+        String unique = base + " #" + (community + 1);
+        for (int suffix = 2; !used.add(unique); suffix++) {
+            unique = base + " #" + (community + 1) + "-" + suffix;
+        }
+        return unique;
+    }
+
+    private static String dominant(Map<String, Integer> counts) {
+        String best = null;
+        int bestCount = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > bestCount) {
+                best = entry.getKey();
+                bestCount = entry.getValue();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 节点大小随成员数对数增长，限制在 [MIN_SYMBOL_SIZE, MAX_SYMBOL_SIZE]
+     */
+    static int symbolSize(int members) {
+        return (int) Math.min(MAX_SYMBOL_SIZE, Math.round(MIN_SYMBOL_SIZE + 10 * Math.log(members)));
+    }
+
+    /**
+     * 粗化结果，coarsened 为 false 时 graph 即输入
+     */
+    public record Result(IndexedGraph graph, boolean coarsened) {
+    }
+}
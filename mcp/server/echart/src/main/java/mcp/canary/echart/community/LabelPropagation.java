@@ -0,0 +1,115 @@
+package mcp.canary.echart.community;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 标签传播社区发现
+ * 邻接关系按 CSR 形式存放在 int 数组中（offsets + neighbors），每轮按打乱后的固定顺序把节点标签更新为邻居中出现最多的标签，
+ * 没有标签变化或达到最大轮数时停止，每轮 O(n + m)。
+ * 打乱顺序由 seed 决定，平票时保留当前标签，否则取最小的标签，同一输入和 seed 的结果一致。
+ */
+public class LabelPropagation {
+
+    private final int maxRounds;
+
+    public LabelPropagation(int maxRounds) {
+        if (maxRounds <= 0) {
+            throw new IllegalArgumentException("maxRounds 必须大于 0");
+        }
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * 返回每个节点所属社区的编号，编号从 0 开始连续，按社区首个节点的下标排列；边按无向处理，自环忽略
+     */
+    public int[] detect(int nodeCount, int[] sources, int[] targets, long seed) {
+        if (sources.length != targets.length) {
+            throw new IllegalArgumentException("sources 与 targets 长度不一致");
+        }
+        int[] offsets = new int[nodeCount + 1];
+        for (int k = 0; k < sources.length; k++) {
+            if (sources[k] != targets[k]) {
+                offsets[sources[k] + 1]++;
+                offsets[targets[k] + 1]++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] neighbors = new int[offsets[nodeCount]];
+        int[] cursor = Arrays.copyOf(offsets, nodeCount);
+        for (int k = 0; k < sources.length; k++) {
+            int s = sources[k];
+            int t = targets[k];
+            if (s != t) {
+                neighbors[cursor[s]++] = t;
+                neighbors[cursor[t]++] = s;
+            }
+        }
+
+        int[] labels = new int[nodeCount];
+        int[] order = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            labels[i] = i;
+            order[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = nodeCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        // counts 按标签计数，touched 记录本次用到的标签，用完清零，避免每个节点分配一次
+        int[] counts = new int[nodeCount];
+        int[] touched = new int[nodeCount];
+        for (int round = 0; round < maxRounds; round++) {
+            boolean changed = false;
+            for (int i : order) {
+                int touchedCount = 0;
+                for (int p = offsets[i]; p < offsets[i + 1]; p++) {
+                    int label = labels[neighbors[p]];
+                    if (counts[label]++ == 0) {
+                        touched[touchedCount++] = label;
+                    }
+                }
+                if (touchedCount == 0) {
+                    continue;
+                }
+                int current = labels[i];
+                int best = current;
+                int bestCount = counts[current];
+                for (int q = 0; q < touchedCount; q++) {
+                    int label = touched[q];
+                    int count = counts[label];
+                    if (count > bestCount || (count == bestCount && best != current && label < best)) {
+                        best = label;
+                        bestCount = count;
+                    }
+                    counts[label] = 0;
+                }
+                if (best != current) {
+                    labels[i] = best;
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+        }
+
+        int[] compact = new int[nodeCount];
+        Arrays.fill(compact, -1);
+        int next = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            int label = labels[i];
+            if (compact[label] < 0) {
+                compact[label] = next++;
+            }
+            labels[i] = compact[label];
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,184 @@
+package mcp.canary.echart.layout;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 服务端力导向布局
+ * 节点间斥力用 Barnes-Hut 四叉树近似，每轮 O(n log n)；边按弹簧拉向 edgeLength，重力把节点拉向原点。
+ * 参数含义与 ECharts force 配置一致（repulsion、gravity、edgeLength）。
+ * 节点状态按结构数组存放（x、y、fx、fy 各一个 double 数组）。每轮先单线程建树，
+ * 再按节点区间在调用方传入的 ForkJoinPool 上并行累加重力和斥力（池由调用方持有，多次布局共用）；每个节点的受力只由一个任务按固定顺序计算，
+ * 所以结果与并行度无关，同一 seed 下完全一致。
+ */
+public class ForceLayout {
+
+    private static final double GOLDEN_ANGLE = 2.399963229728653;
+
+    /**
+     * 每个任务至少处理的节点数，区间再小时拆分的开销超过收益
+     */
+    private static final int CHUNK = 512;
+
+    private final double repulsion;
+    private final double gravity;
+    private final double edgeLength;
+    private final int iterations;
+    private final double theta;
+    private final ForkJoinPool pool;
+
+    public ForceLayout(double repulsion, double gravity, double edgeLength, int iterations, double theta) {
+        this(repulsion, gravity, edgeLength, iterations, theta, null);
+    }
+
+    /**
+     * @param theta Barnes-Hut 近似阈值，越小越精确，0 时退化为逐对计算
+     * @param pool  累加受力使用的线程池，为 null 时在调用线程上计算；布局结束后不会关闭
+     */
+    public ForceLayout(double repulsion, double gravity, double edgeLength, int iterations, double theta,
+                       ForkJoinPool pool) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("iterations 不能小于 0");
+        }
+        if (theta < 0) {
+            throw new IllegalArgumentException("theta 不能小于 0");
+        }
+        this.repulsion = repulsion;
+        this.gravity = gravity;
+        this.edgeLength = edgeLength;
+        this.iterations = iterations;
+        this.theta = theta;
+        this.pool = pool;
+    }
+
+    /**
+     * 计算 nodeCount 个节点的位置，边 k 连接 sources[k] 和 targets[k]
+     */
+    public Positions layout(int nodeCount, int[] sources, int[] targets) {
+        return layout(nodeCount, sources, targets, 0L);
+    }
+
+    /**
+     * 同 layout，seed 决定初始位置的扰动，相同 seed 的结果完全一致
+     */
+    public Positions layout(int nodeCount, int[] sources, int[] targets, long seed) {
+        if (sources.length != targets.length) {
+            throw new IllegalArgumentException("sources 与 targets 长度不一致");
+        }
+        double[] x = new double[nodeCount];
+        double[] y = new double[nodeCount];
+        // 黄金角螺旋排布，再按 seed 加一点扰动，避免规则排布下的对称受力
+        double spacing = Math.max(edgeLength, 1) / 2;
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < nodeCount; i++) {
+            double r = spacing * Math.sqrt(i + 0.5);
+            x[i] = r * Math.cos(i * GOLDEN_ANGLE) + (random.nextDouble() - 0.5) * spacing * 0.1;
+            y[i] = r * Math.sin(i * GOLDEN_ANGLE) + (random.nextDouble() - 0.5) * spacing * 0.1;
+        }
+        if (nodeCount < 2) {
+            return new Positions(x, y);
+        }
+
+        double[] fx = new double[nodeCount];
+        double[] fy = new double[nodeCount];
+        QuadTree tree = new QuadTree(2 * nodeCount);
+        boolean parallel = pool != null && nodeCount > CHUNK;
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            // 单步最大位移从 edgeLength 线性降到其 1%，前期快速展开、后期稳定
+            double temperature = Math.max(edgeLength, 1) * (1 - 0.99 * iteration / iterations);
+            tree.build(x, y, nodeCount);
+            ForceTask forces = new ForceTask(tree, x, y, fx, fy, 0, nodeCount, parallel);
+            if (parallel) {
+                pool.invoke(forces);
+            } else {
+                forces.compute();
+            }
+            springs(x, y, fx, fy, sources, targets);
+            move(x, y, fx, fy, nodeCount, temperature);
+        }
+        return new Positions(x, y);
+    }
+
+    private void springs(double[] x, double[] y, double[] fx, double[] fy, int[] sources, int[] targets) {
+        for (int k = 0; k < sources.length; k++) {
+            int s = sources[k];
+            int t = targets[k];
+            if (s == t) {
+                continue;
+            }
+            double dx = x[t] - x[s];
+            double dy = y[t] - y[s];
+            double d = Math.sqrt(dx * dx + dy * dy);
+            if (d == 0) {
+                continue;
+            }
+            // 两端各承担一半的弹簧位移
+            double f = (d - edgeLength) / d * 0.5;
+            fx[s] += dx * f;
+            fy[s] += dy * f;
+            fx[t] -= dx * f;
+            fy[t] -= dy * f;
+        }
+    }
+
+    private static void move(double[] x, double[] y, double[] fx, double[] fy, int n, double temperature) {
+        for (int i = 0; i < n; i++) {
+            double len = Math.sqrt(fx[i] * fx[i] + fy[i] * fy[i]);
+            if (len == 0 || Double.isNaN(len)) {
+                continue;
+            }
+            double scale = Math.min(len, temperature) / len;
+            x[i] += fx[i] * scale;
+            y[i] += fy[i] * scale;
+        }
+    }
+
+    /**
+     * 对 [from, to) 内的节点计算重力和斥力，在线程池中执行且区间大于 CHUNK 时对半拆分
+     */
+    private final class ForceTask extends RecursiveAction {
+
+        private final QuadTree tree;
+        private final double[] x;
+        private final double[] y;
+        private final double[] fx;
+        private final double[] fy;
+        private final int from;
+        private final int to;
+        private final boolean split;
+
+        private ForceTask(QuadTree tree, double[] x, double[] y, double[] fx, double[] fy, int from, int to,
+                          boolean split) {
+            this.tree = tree;
+            this.x = x;
+            this.y = y;
+            this.fx = fx;
+            this.fy = fy;
+            this.from = from;
+            this.to = to;
+            this.split = split;
+        }
+
+        @Override
+        protected void compute() {
+            if (split && to - from > CHUNK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ForceTask(tree, x, y, fx, fy, from, mid, true),
+                        new ForceTask(tree, x, y, fx, fy, mid, to, true));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                fx[i] = -x[i] * gravity;
+                fy[i] = -y[i] * gravity;
+            }
+            tree.repulse(from, to, x, y, repulsion, theta, fx, fy);
+        }
+    }
+
+    /**
+     * 布局结果，下标与输入节点一致
+     */
+    public record Positions(double[] x, double[] y) {
+    }
+}
@@ -0,0 +1,193 @@
+package mcp.canary.echart.layout;
+
+import java.util.Arrays;
+
+/**
+ * Barnes-Hut 四叉树，所有单元存放在平行的基本类型数组里，每轮迭代复用，不为单元创建对象
+ * 单元下标 0 为根；body 为 EMPTY 表示尚无节点的叶子，>= 0 为只含一个节点的叶子，
+ * BUCKET 为边长过小、不再细分的叶子（坐标重合的多个节点），INTERNAL 为内部单元。
+ */
+final class QuadTree {
+
+    private static final int EMPTY = -1;
+    private static final int BUCKET = -2;
+    private static final int INTERNAL = -3;
+
+    /**
+     * 单元边长小于此值时不再细分，避免坐标重合的节点无限递归
+     */
+    private static final double MIN_SIZE = 1e-3;
+
+    private double[] minX;
+    private double[] minY;
+    private double[] size;
+    private double[] mass;
+    private double[] sumX;
+    private double[] sumY;
+    private int[] body;
+    private int[] children;
+    private int cells;
+
+    QuadTree(int capacity) {
+        allocate(Math.max(4, capacity));
+    }
+
+    /**
+     * 用前 n 个节点的坐标重建树，完成后各单元的质心可用
+     */
+    void build(double[] x, double[] y, int n) {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            x0 = Math.min(x0, x[i]);
+            y0 = Math.min(y0, y[i]);
+            x1 = Math.max(x1, x[i]);
+            y1 = Math.max(y1, y[i]);
+        }
+        cells = 0;
+        if (n == 0) {
+            return;
+        }
+        newCell(x0, y0, Math.max(x1 - x0, y1 - y0) + 1);
+        for (int i = 0; i < n; i++) {
+            insert(i, x, y);
+        }
+    }
+
+    /**
+     * 把其余节点对节点 i 的斥力（大小 repulsion * 质量 / 距离）累加到 fx/fy，
+     * 单元边长与距离之比小于 theta 时把整个单元视为位于质心的一个节点
+     */
+    void repulse(int i, double[] x, double[] y, double repulsion, double theta, double[] fx, double[] fy) {
+        repulse(i, i + 1, x, y, repulsion, theta, fx, fy);
+    }
+
+    /**
+     * 对 [from, to) 内的节点逐个计算斥力。建树后树只读，遍历栈是局部的，
+     * 不同区间可以在多个线程上同时计算，各自只写自己区间内的 fx/fy
+     */
+    void repulse(int from, int to, double[] x, double[] y, double repulsion, double theta, double[] fx, double[] fy) {
+        if (cells == 0) {
+            return;
+        }
+        double theta2 = theta * theta;
+        int[] stack = new int[64];
+        for (int i = from; i < to; i++) {
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int c = stack[--top];
+                if (mass[c] == 0 || body[c] == i) {
+                    continue;
+                }
+                double dx = x[i] - sumX[c] / mass[c];
+                double dy = y[i] - sumY[c] / mass[c];
+                double d2 = dx * dx + dy * dy;
+                if (body[c] != INTERNAL || size[c] * size[c] < theta2 * d2) {
+                    double m = body[c] == BUCKET && d2 < MIN_SIZE * MIN_SIZE ? mass[c] - 1 : mass[c];
+                    if (d2 < MIN_SIZE * MIN_SIZE) {
+                        // 与单元质心重合：按节点下标取一个固定方向推开
+                        double angle = i * 2.399963229728653;
+                        dx = Math.cos(angle) * MIN_SIZE;
+                        dy = Math.sin(angle) * MIN_SIZE;
+                        d2 = MIN_SIZE * MIN_SIZE;
+                    }
+                    double f = repulsion * m / d2;
+                    fx[i] += dx * f;
+                    fy[i] += dy * f;
+                    continue;
+                }
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                for (int q = 0; q < 4; q++) {
+                    int child = children[4 * c + q];
+                    if (child >= 0) {
+                        stack[top++] = child;
+                    }
+                }
+            }
+        }
+    }
+
+    int cellCount() {
+        return cells;
+    }
+
+    private void insert(int i, double[] x, double[] y) {
+        double px = x[i];
+        double py = y[i];
+        int c = 0;
+        while (true) {
+            mass[c] += 1;
+            sumX[c] += px;
+            sumY[c] += py;
+            int b = body[c];
+            if (b == EMPTY) {
+                body[c] = i;
+                return;
+            }
+            if (b == BUCKET) {
+                return;
+            }
+            if (b >= 0) {
+                if (size[c] < MIN_SIZE) {
+                    body[c] = BUCKET;
+                    return;
+                }
+                // 叶子里原有的节点下移一层，当前单元变为内部单元
+                body[c] = INTERNAL;
+                int moved = child(c, x[b], y[b]);
+                mass[moved] = 1;
+                sumX[moved] = x[b];
+                sumY[moved] = y[b];
+                body[moved] = b;
+            }
+            c = child(c, px, py);
+        }
+    }
+
+    /**
+     * 点所在的子单元，不存在时创建
+     */
+    private int child(int c, double px, double py) {
+        double half = size[c] / 2;
+        int qx = px >= minX[c] + half ? 1 : 0;
+        int qy = py >= minY[c] + half ? 1 : 0;
+        int slot = 4 * c + qx + 2 * qy;
+        int existing = children[slot];
+        if (existing >= 0) {
+            return existing;
+        }
+        int created = newCell(minX[c] + qx * half, minY[c] + qy * half, half);
+        children[slot] = created;
+        return created;
+    }
+
+    private int newCell(double x0, double y0, double edge) {
+        if (cells == body.length) {
+            allocate(cells * 2);
+        }
+        int c = cells++;
+        minX[c] = x0;
+        minY[c] = y0;
+        size[c] = edge;
+        mass[c] = 0;
+        sumX[c] = 0;
+        sumY[c] = 0;
+        body[c] = EMPTY;
+        Arrays.fill(children, 4 * c, 4 * c + 4, -1);
+        return c;
+    }
+
+    private void allocate(int capacity) {
+        minX = minX == null ? new double[capacity] : Arrays.copyOf(minX, capacity);
+        minY = minY == null ? new double[capacity] : Arrays.copyOf(minY, capacity);
+        size = size == null ? new double[capacity] : Arrays.copyOf(size, capacity);
+        mass = mass == null ? new double[capacity] : Arrays.copyOf(mass, capacity);
+        sumX = sumX == null ? new double[capacity] : Arrays.copyOf(sumX, capacity);
+        sumY = sumY == null ? new double[capacity] : Arrays.copyOf(sumY, capacity);
+        body = body == null ? new int[capacity] : Arrays.copyOf(body, capacity);
+        children = children == null ? new int[4 * capacity] : Arrays.copyOf(children, 4 * capacity);
+    }
+}
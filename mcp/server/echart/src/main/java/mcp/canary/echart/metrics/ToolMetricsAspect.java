@@ -0,0 +1,47 @@
+package mcp.canary.echart.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工具调用耗时
+ * 环绕所有 @McpTool 方法，按工具名和结果记录到 mcp.tool.latency，工具方法本身不需要任何埋点。
+ */
+@Aspect
+@Component
+public class ToolMetricsAspect {
+
+    static final String METRIC = "mcp.tool.latency";
+
+    private final MeterRegistry meterRegistry;
+
+    public ToolMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(tool)")
+    public Object time(ProceedingJoinPoint joinPoint, McpTool tool) throws Throwable {
+        String name = tool.name().isBlank() ? joinPoint.getSignature().getName() : tool.name();
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = "success";
+            return result;
+        } finally {
+            Timer.builder(METRIC)
+                    .description("MCP 工具调用耗时")
+                    .tag("tool", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -1,11 +1,45 @@
 package mcp.canary.echart.module;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 
 public interface EChartModule {
 
     ObjectMapper MAPPER = new ObjectMapper();
 
-    JsonNode toEChartNode();
+    /**
+     * 把 option 片段直接写到 JsonGenerator，一次遍历，不构建中间的 ObjectNode 树
+     */
+    void writeTo(JsonGenerator gen) throws IOException;
+
+    /**
+     * 树形式的结果，保留给需要再加工的调用方；由 writeTo 的输出重建
+     */
+    default JsonNode toEChartNode() {
+        try (TokenBuffer buffer = new TokenBuffer(MAPPER, false)) {
+            writeTo(buffer);
+            return MAPPER.readTree(buffer.asParser());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 序列化好的 JSON 文本
+     */
+    default String toJson() {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator gen = MAPPER.getFactory().createGenerator(out)) {
+            writeTo(gen);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
 }
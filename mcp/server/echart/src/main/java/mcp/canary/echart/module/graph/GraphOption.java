@@ -1,13 +1,13 @@
 package mcp.canary.echart.module.graph;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import lombok.Data;
 import mcp.canary.echart.module.EChartModule;
 import mcp.canary.echart.module.graph.series.GraphSeries;
 import mcp.canary.echart.module.graph.title.GraphTitle;
 
+import java.io.IOException;
+
 @Data
 public class GraphOption implements EChartModule {
     private GraphSeries series;
@@ -15,25 +15,26 @@ public class GraphOption implements EChartModule {
     private GraphTitle title;
 
     @Override
-    public JsonNode toEChartNode() {
-        ObjectNode option = MAPPER.createObjectNode();
+    public void writeTo(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
 
         if (title != null) {
-            option.set("title", title.toEChartNode());
+            gen.writeFieldName("title");
+            title.writeTo(gen);
         }
 
-        ObjectNode tooltip = MAPPER.createObjectNode();
-        tooltip.put("trigger", "item");
-        tooltip.put("confine", true);
-        tooltip.put("formatter", "{b}");
-        option.set("tooltip", tooltip);
+        gen.writeObjectFieldStart("tooltip");
+        gen.writeStringField("trigger", "item");
+        gen.writeBooleanField("confine", true);
+        gen.writeStringField("formatter", "{b}");
+        gen.writeEndObject();
 
-        ArrayNode seriesList = MAPPER.createArrayNode();
+        gen.writeArrayFieldStart("series");
         if (series != null) {
-            seriesList.add(series.toEChartNode());
+            series.writeTo(gen);
         }
-        option.set("series", seriesList);
+        gen.writeEndArray();
 
-        return option;
+        gen.writeEndObject();
     }
 }
@@ -1,12 +1,12 @@
 package mcp.canary.echart.module.graph.series;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import lombok.Data;
+import mcp.canary.echart.layout.ForceLayout;
 import mcp.canary.echart.module.graph.series.data.GraphCategory;
 import mcp.canary.echart.module.graph.series.data.GraphEdge;
 import mcp.canary.echart.module.graph.series.data.GraphNode;
@@ -15,6 +15,13 @@ import mcp.canary.echart.module.EChartModule;
 @Data
 public class GraphSeries implements EChartModule {
 
+    /**
+     * force 布局参数，服务端预计算布局时使用同一组值
+     */
+    public static final int FORCE_REPULSION = 280;
+    public static final double FORCE_GRAVITY = 0.08;
+    public static final int FORCE_EDGE_LENGTH = 120;
+
     private final String type = "graph";
 
     private String layout;
@@ -25,118 +32,123 @@ public class GraphSeries implements EChartModule {
 
     private List<GraphCategory> categories;
 
+    /**
+     * 服务端预先计算的节点坐标，下标与 nodes 一致；设置后输出 layout "none" 和每个节点的 x/y
+     */
+    private ForceLayout.Positions positions;
+
     @Override
-    public JsonNode toEChartNode() {
-        ObjectNode seriesNode = MAPPER.createObjectNode();
+    public void writeTo(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
 
-        seriesNode.put("type", type);
+        gen.writeStringField("type", type);
 
         String safeLayout = "force";
-        if ("circular".equalsIgnoreCase(layout)) {
+        if (positions != null) {
+            safeLayout = "none";
+        } else if ("circular".equalsIgnoreCase(layout)) {
             safeLayout = "circular";
         }
-        seriesNode.put("layout", safeLayout);
+        gen.writeStringField("layout", safeLayout);
 
-        seriesNode.put("draggable", true);
-        seriesNode.put("roam", true);
+        gen.writeBooleanField("draggable", true);
+        gen.writeBooleanField("roam", true);
 
         if ("force".equals(safeLayout)) {
-            ObjectNode forceNode = MAPPER.createObjectNode();
-            forceNode.put("repulsion", 280);
-            forceNode.put("gravity", 0.08);
-            forceNode.put("edgeLength", 120);
-            forceNode.put("layoutAnimation", true);
-            seriesNode.set("force", forceNode);
+            gen.writeObjectFieldStart("force");
+            gen.writeNumberField("repulsion", FORCE_REPULSION);
+            gen.writeNumberField("gravity", FORCE_GRAVITY);
+            gen.writeNumberField("edgeLength", FORCE_EDGE_LENGTH);
+            gen.writeBooleanField("layoutAnimation", true);
+            gen.writeEndObject();
         }
 
         int nodeCount = nodes != null ? nodes.size() : 0;
         int symbolSz = nodeCount > 50 ? 24 : (nodeCount > 20 ? 32 : 42);
-        seriesNode.put("symbolSize", symbolSz);
-
-        ObjectNode itemStyle = MAPPER.createObjectNode();
-        itemStyle.put("borderColor", "#fff");
-        itemStyle.put("borderWidth", 2);
-        itemStyle.put("shadowBlur", 8);
-        itemStyle.put("shadowColor", "rgba(0,0,0,0.15)");
-        seriesNode.set("itemStyle", itemStyle);
-
-        ObjectNode labelNode = MAPPER.createObjectNode();
-        labelNode.put("show", true);
-        labelNode.put("fontSize", 11);
-        labelNode.put("color", "#333");
-        labelNode.put("position", "bottom");
-        labelNode.put("distance", 8);
-        labelNode.put("formatter", "{b}");
-        seriesNode.set("label", labelNode);
-
-        ObjectNode lineStyle = MAPPER.createObjectNode();
-        lineStyle.put("color", "source");
-        lineStyle.put("curveness", 0.15);
-        lineStyle.put("opacity", 0.5);
-        lineStyle.put("width", 1.5);
-        seriesNode.set("lineStyle", lineStyle);
-
-        ObjectNode edgeLabel = MAPPER.createObjectNode();
-        edgeLabel.put("show", true);
-        edgeLabel.put("fontSize", 10);
-        edgeLabel.put("color", "#999");
-        edgeLabel.put("formatter", "{c}");
-        seriesNode.set("edgeLabel", edgeLabel);
-
-        ObjectNode emphasisNode = MAPPER.createObjectNode();
-        ObjectNode emphasisLabel = MAPPER.createObjectNode();
-        emphasisLabel.put("fontSize", 14);
-        emphasisLabel.put("fontWeight", "bold");
-        emphasisNode.set("label", emphasisLabel);
-        ObjectNode emphasisItemStyle = MAPPER.createObjectNode();
-        emphasisItemStyle.put("shadowBlur", 16);
-        emphasisItemStyle.put("shadowColor", "rgba(0,0,0,0.3)");
-        emphasisItemStyle.put("borderWidth", 3);
-        emphasisItemStyle.put("borderColor", "#4f46e5");
-        emphasisNode.set("itemStyle", emphasisItemStyle);
-        ObjectNode emphasisLineStyle = MAPPER.createObjectNode();
-        emphasisLineStyle.put("width", 3);
-        emphasisLineStyle.put("opacity", 0.8);
-        emphasisNode.set("lineStyle", emphasisLineStyle);
-        emphasisNode.put("focus", "adjacency");
-        seriesNode.set("emphasis", emphasisNode);
+        gen.writeNumberField("symbolSize", symbolSz);
+
+        gen.writeObjectFieldStart("itemStyle");
+        gen.writeStringField("borderColor", "#fff");
+        gen.writeNumberField("borderWidth", 2);
+        gen.writeNumberField("shadowBlur", 8);
+        gen.writeStringField("shadowColor", "rgba(0,0,0,0.15)");
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("label");
+        gen.writeBooleanField("show", true);
+        gen.writeNumberField("fontSize", 11);
+        gen.writeStringField("color", "#333");
+        gen.writeStringField("position", "bottom");
+        gen.writeNumberField("distance", 8);
+        gen.writeStringField("formatter", "{b}");
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("lineStyle");
+        gen.writeStringField("color", "source");
+        gen.writeNumberField("curveness", 0.15);
+        gen.writeNumberField("opacity", 0.5);
+        gen.writeNumberField("width", 1.5);
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("edgeLabel");
+        gen.writeBooleanField("show", true);
+        gen.writeNumberField("fontSize", 10);
+        gen.writeStringField("color", "#999");
+        gen.writeStringField("formatter", "{c}");
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("emphasis");
+        gen.writeObjectFieldStart("label");
+        gen.writeNumberField("fontSize", 14);
+        gen.writeStringField("fontWeight", "bold");
+        gen.writeEndObject();
+        gen.writeObjectFieldStart("itemStyle");
+        gen.writeNumberField("shadowBlur", 16);
+        gen.writeStringField("shadowColor", "rgba(0,0,0,0.3)");
+        gen.writeNumberField("borderWidth", 3);
+        gen.writeStringField("borderColor", "#4f46e5");
+        gen.writeEndObject();
+        gen.writeObjectFieldStart("lineStyle");
+        gen.writeNumberField("width", 3);
+        gen.writeNumberField("opacity", 0.8);
+        gen.writeEndObject();
+        gen.writeStringField("focus", "adjacency");
+        gen.writeEndObject();
 
         Map<String, Integer> categoryMap = new HashMap<>();
-        if (categories != null) {
-            for (int i = 0; i < categories.size(); i++) {
-                categoryMap.put(categories.get(i).getName(), i);
-            }
-        }
-
-        ArrayNode categoriesList = MAPPER.createArrayNode();
+        gen.writeArrayFieldStart("categories");
         if (categories != null) {
             for (int i = 0; i < categories.size(); i++) {
                 GraphCategory cat = categories.get(i);
+                categoryMap.put(cat.getName(), i);
                 cat.setIndex(i);
-                categoriesList.add(cat.toEChartNode());
+                cat.writeTo(gen);
             }
         }
-        seriesNode.set("categories", categoriesList);
+        gen.writeEndArray();
 
-        ArrayNode dataList = MAPPER.createArrayNode();
+        gen.writeArrayFieldStart("data");
         if (nodes != null) {
-            for (GraphNode node : nodes) {
-                ObjectNode nodeJson = (ObjectNode) node.toEChartNode();
+            for (int i = 0; i < nodes.size(); i++) {
+                GraphNode node = nodes.get(i);
                 Integer idx = categoryMap.get(node.getCategoryName());
-                nodeJson.put("category", idx != null ? idx : -1);
-                dataList.add(nodeJson);
+                if (positions != null) {
+                    node.writeTo(gen, idx != null ? idx : -1, positions.x()[i], positions.y()[i]);
+                } else {
+                    node.writeTo(gen, idx != null ? idx : -1);
+                }
             }
         }
-        seriesNode.set("data", dataList);
+        gen.writeEndArray();
 
-        ArrayNode linksList = MAPPER.createArrayNode();
+        gen.writeArrayFieldStart("links");
         if (edges != null) {
             for (GraphEdge edge : edges) {
-                linksList.add(edge.toEChartNode());
+                edge.writeTo(gen);
             }
         }
-        seriesNode.set("links", linksList);
+        gen.writeEndArray();
 
-        return seriesNode;
+        gen.writeEndObject();
     }
 }
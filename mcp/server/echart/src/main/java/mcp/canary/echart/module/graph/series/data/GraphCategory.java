@@ -1,10 +1,10 @@
 package mcp.canary.echart.module.graph.series.data;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import lombok.Data;
 import mcp.canary.echart.module.EChartModule;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
@@ -36,26 +36,26 @@ public class GraphCategory implements EChartModule {
     private transient int index = 0;
 
     @Override
-    public JsonNode toEChartNode() {
-        ObjectNode node = MAPPER.createObjectNode();
-        node.put("name", name);
+    public void writeTo(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("name", name);
 
         String safeSymbol = SYMBOL_LIST.contains(symbol) ? symbol : "circle";
-        node.put("symbol", safeSymbol);
+        gen.writeStringField("symbol", safeSymbol);
 
-        node.put("symbolSize", 32);
+        gen.writeNumberField("symbolSize", 32);
 
-        ObjectNode itemStyle = MAPPER.createObjectNode();
+        gen.writeObjectFieldStart("itemStyle");
         String color = CATEGORY_COLORS.get(index % CATEGORY_COLORS.size());
-        itemStyle.put("color", color);
-        node.set("itemStyle", itemStyle);
+        gen.writeStringField("color", color);
+        gen.writeEndObject();
 
-        ObjectNode label = MAPPER.createObjectNode();
-        label.put("fontSize", 11);
-        label.put("color", "#333");
-        node.set("label", label);
+        gen.writeObjectFieldStart("label");
+        gen.writeNumberField("fontSize", 11);
+        gen.writeStringField("color", "#333");
+        gen.writeEndObject();
 
-        return node;
+        gen.writeEndObject();
     }
 
     public void setIndex(int index) {
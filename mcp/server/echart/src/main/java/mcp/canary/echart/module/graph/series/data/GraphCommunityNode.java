@@ -0,0 +1,38 @@
+package mcp.canary.echart.module.graph.series.data;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 粗化后代表一个社区的超级节点，按成员数放大节点，并带上成员名单供前端下钻
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class GraphCommunityNode extends GraphNode {
+
+    /**
+     * 社区内原始节点的 name
+     */
+    private List<String> members;
+
+    /**
+     * 节点大小，覆盖 series 的 symbolSize
+     */
+    private int symbolSize;
+
+    @Override
+    protected void writeExtraFields(JsonGenerator gen) throws IOException {
+        gen.writeNumberField("symbolSize", symbolSize);
+        gen.writeArrayFieldStart("members");
+        if (members != null) {
+            for (String member : members) {
+                gen.writeString(member);
+            }
+        }
+        gen.writeEndArray();
+    }
+}
@@ -1,10 +1,10 @@
 package mcp.canary.echart.module.graph.series.data;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import lombok.Data;
 import mcp.canary.echart.module.EChartModule;
 
+import java.io.IOException;
 import java.util.Map;
 
 @Data
@@ -31,10 +31,10 @@ public class GraphEdge implements EChartModule {
     private Map<String, Object> properties;
 
     @Override
-    public JsonNode toEChartNode() {
-        ObjectNode objectNode = MAPPER.createObjectNode();
-        objectNode.put("source", source);
-        objectNode.put("target", target);
+    public void writeTo(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("source", source);
+        gen.writeStringField("target", target);
 
         if (properties != null && !properties.isEmpty()) {
             StringBuilder displayValue = new StringBuilder();
@@ -46,11 +46,11 @@ public class GraphEdge implements EChartModule {
                     displayValue.append(entry.getKey()).append(": ").append(entry.getValue());
                 }
             }
-            objectNode.put("value", displayValue.toString());
+            gen.writeStringField("value", displayValue.toString());
         } else if (value != null) {
-            objectNode.put("value", String.valueOf(value.doubleValue()));
+            gen.writeStringField("value", String.valueOf(value.doubleValue()));
         }
 
-        return objectNode;
+        gen.writeEndObject();
     }
 }
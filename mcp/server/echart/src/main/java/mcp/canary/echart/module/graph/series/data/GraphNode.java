@@ -1,11 +1,10 @@
 package mcp.canary.echart.module.graph.series.data;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import lombok.Data;
 import mcp.canary.echart.module.EChartModule;
 
+import java.io.IOException;
 import java.util.Map;
 
 @Data
@@ -27,11 +26,29 @@ public class GraphNode implements EChartModule {
     private Map<String, Object> properties;
 
     @Override
-    public JsonNode toEChartNode() {
-        ObjectNode nodeJson = MAPPER.createObjectNode();
+    public void writeTo(JsonGenerator gen) throws IOException {
+        writeTo(gen, -1);
+    }
 
-        nodeJson.put("name", name);
-        nodeJson.put("category", -1);
+    /**
+     * 写出节点，category 为所属类目的下标，没有类目时为 -1
+     */
+    public void writeTo(JsonGenerator gen, int category) throws IOException {
+        writeTo(gen, category, Double.NaN, Double.NaN);
+    }
+
+    /**
+     * 写出带固定坐标的节点，坐标为 NaN 时不输出，由前端布局
+     */
+    public void writeTo(JsonGenerator gen, int category, double x, double y) throws IOException {
+        gen.writeStartObject();
+
+        gen.writeStringField("name", name);
+        gen.writeNumberField("category", category);
+        if (!Double.isNaN(x) && !Double.isNaN(y)) {
+            gen.writeNumberField("x", Math.round(x * 100) / 100.0);
+            gen.writeNumberField("y", Math.round(y * 100) / 100.0);
+        }
 
         if (properties != null && !properties.isEmpty()) {
             StringBuilder displayValue = new StringBuilder();
@@ -43,9 +60,16 @@ public class GraphNode implements EChartModule {
                     displayValue.append(entry.getKey()).append(": ").append(entry.getValue());
                 }
             }
-            nodeJson.put("value", displayValue.toString());
+            gen.writeStringField("value", displayValue.toString());
         }
+        writeExtraFields(gen);
+
+        gen.writeEndObject();
+    }
 
-        return nodeJson;
+    /**
+     * 子类在节点对象结束前追加的字段
+     */
+    protected void writeExtraFields(JsonGenerator gen) throws IOException {
     }
 }
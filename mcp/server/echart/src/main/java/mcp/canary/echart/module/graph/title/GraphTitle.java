@@ -1,27 +1,28 @@
 package mcp.canary.echart.module.graph.title;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
 import lombok.Data;
 import mcp.canary.echart.module.EChartModule;
 
+import java.io.IOException;
+
 @Data
 public class GraphTitle implements EChartModule {
     private String text;
 
     @Override
-    public JsonNode toEChartNode() {
-        ObjectNode title = MAPPER.createObjectNode();
-        title.put("text", text);
-        title.put("left", "center");
-        title.put("top", 8);
+    public void writeTo(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("text", text);
+        gen.writeStringField("left", "center");
+        gen.writeNumberField("top", 8);
 
-        ObjectNode textStyle = MAPPER.createObjectNode();
-        textStyle.put("fontSize", 16);
-        textStyle.put("fontWeight", "bold");
-        textStyle.put("color", "#1a1b1e");
-        title.set("textStyle", textStyle);
+        gen.writeObjectFieldStart("textStyle");
+        gen.writeNumberField("fontSize", 16);
+        gen.writeStringField("fontWeight", "bold");
+        gen.writeStringField("color", "#1a1b1e");
+        gen.writeEndObject();
 
-        return title;
+        gen.writeEndObject();
     }
 }
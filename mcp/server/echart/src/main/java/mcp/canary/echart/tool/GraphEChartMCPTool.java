@@ -1,34 +1,107 @@
 package mcp.canary.echart.tool;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import io.modelcontextprotocol.server.McpSyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema.LoggingLevel;
 import io.modelcontextprotocol.spec.McpSchema.LoggingMessageNotification;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import mcp.canary.echart.community.GraphCoarsener;
+import mcp.canary.echart.layout.ForceLayout;
+import mcp.canary.echart.module.EChartModule;
 import mcp.canary.echart.module.graph.GraphOption;
 import mcp.canary.echart.module.graph.series.GraphSeries;
 import mcp.canary.echart.module.graph.title.GraphTitle;
 import mcp.canary.echart.module.graph.series.data.GraphCategory;
 import mcp.canary.echart.module.graph.series.data.GraphEdge;
 import mcp.canary.echart.module.graph.series.data.GraphNode;
+import mcp.canary.echart.validation.GraphValidator;
+import mcp.canary.echart.validation.IndexedGraph;
+import mcp.canary.echart.validation.ValidationPolicy;
+import mcp.canary.echart.validation.ValidationReport;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class GraphEChartMCPTool {
 
+    /**
+     * force 布局节点数达到此值时改为服务端预计算，0 表示只在 layout 为 precomputed 时计算
+     */
+    @Value("${echart.layout.precompute-threshold:0}")
+    private int precomputeThreshold = 0;
+
+    @Value("${echart.layout.iterations:300}")
+    private int layoutIterations = 300;
+
+    @Value("${echart.layout.theta:0.9}")
+    private double layoutTheta = 0.9;
+
+    /**
+     * 服务端布局累加受力的线程数，0 表示使用 ForkJoinPool.commonPool()，1 表示在调用线程上计算
+     */
+    @Value("${echart.layout.parallelism:0}")
+    private int layoutParallelism = 0;
+
+    /**
+     * 所有布局请求共用的线程池，并发请求不会各自再起一组线程
+     */
+    private ForkJoinPool layoutPool;
+
+    /**
+     * 初始位置扰动的随机种子，相同种子和输入的布局结果一致
+     */
+    @Value("${echart.layout.seed:0}")
+    private long layoutSeed = 0;
+
+    /**
+     * 节点数超过此值时按社区粗化后再输出，0 表示不粗化
+     */
+    @Value("${echart.coarsen.node-budget:0}")
+    private int coarsenNodeBudget = 0;
+
+    @Value("${echart.coarsen.max-rounds:20}")
+    private int coarsenMaxRounds = 20;
+
+    /**
+     * 节点 name 重复、边端点不存在或自环时的处理方式：REPAIR 丢弃后继续，REJECT 直接拒绝
+     */
+    @Value("${echart.validation.policy:REPAIR}")
+    private ValidationPolicy validationPolicy = ValidationPolicy.REPAIR;
+
+    @PostConstruct
+    public void init() {
+        if (layoutParallelism < 0) {
+            throw new IllegalArgumentException("echart.layout.parallelism 不能小于 0");
+        }
+        if (layoutParallelism == 0) {
+            layoutPool = ForkJoinPool.commonPool();
+        } else if (layoutParallelism > 1) {
+            layoutPool = new ForkJoinPool(layoutParallelism);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (layoutPool != null && layoutPool != ForkJoinPool.commonPool()) {
+            layoutPool.shutdown();
+        }
+    }
+
     @McpTool(
             name = "generate_graph_chart",
-            description = "生成 ECharts Graph 图的 option JSON。"
+            description = "生成 ECharts Graph 图的 option JSON。重复节点、端点不存在的边和自环按服务端策略丢弃或拒绝。节点数超过服务端预算时按社区聚合为超级节点，超级节点的 members 为成员 name，可用来下钻查询。"
     )
-    public JsonNode generateGraphOption(
+    public String generateGraphOption(
             @McpToolParam(description = "图表标题，可为空") String title,
-            @McpToolParam(description = "布局类型：force 或 circular，缺省为 force") String layout,
+            @McpToolParam(description = "布局类型：force、circular 或 precomputed（服务端计算力导向布局，输出固定坐标，节点多时使用），缺省为 force") String layout,
             @McpToolParam(description = "节点列表，name 必须唯一") List<GraphNode> nodes,
             @McpToolParam(description = "边列表，source/target 必须存在于节点 name 中") List<GraphEdge> edges,
             @McpToolParam(description = "分类列表，可为空；为空时由节点 categoryName 自动生成") List<GraphCategory> categories,
@@ -37,11 +110,29 @@ public class GraphEChartMCPTool {
         sendLog(exchange, LoggingLevel.INFO, "开始生成 ECharts graph option");
 
         try {
+            GraphValidator.Result validated = new GraphValidator(validationPolicy).validate(
+                    nodes != null ? nodes : Collections.emptyList(),
+                    edges != null ? edges : Collections.emptyList());
+            ValidationReport report = validated.report();
+            if (!report.isClean()) {
+                sendLog(exchange, LoggingLevel.WARNING, "输入已修复：" + EChartModule.MAPPER.writeValueAsString(report));
+            }
+            IndexedGraph graph = validated.graph();
+            if (coarsenNodeBudget > 0 && graph.nodes().size() > coarsenNodeBudget) {
+                int before = graph.nodes().size();
+                graph = new GraphCoarsener(coarsenNodeBudget, coarsenMaxRounds, layoutSeed).coarsen(graph).graph();
+                sendLog(exchange, LoggingLevel.INFO, "节点数 " + before + " 超过预算 "
+                        + coarsenNodeBudget + "，已按社区聚合为 " + graph.nodes().size() + " 个节点");
+            }
+
             GraphSeries series = new GraphSeries();
             series.setLayout(layout != null ? layout : "force");
-            series.setNodes(nodes != null ? nodes : Collections.emptyList());
-            series.setEdges(edges != null ? edges : Collections.emptyList());
-            series.setCategories(resolveCategories(nodes, categories));
+            series.setNodes(graph.nodes());
+            series.setEdges(graph.edges());
+            series.setCategories(resolveCategories(graph.nodes(), categories));
+            if (shouldPrecompute(layout, graph.nodes().size())) {
+                series.setPositions(precomputeLayout(graph));
+            }
 
             GraphOption graphOption = new GraphOption();
             if (title != null && !title.isBlank()) {
@@ -51,15 +142,33 @@ public class GraphEChartMCPTool {
             }
             graphOption.setSeries(series);
 
-            JsonNode resultNode = graphOption.toEChartNode();
+            // 直接流式写出 JSON 文本，不构建 ObjectNode 树，也避免返回后再序列化一遍
+            String json = graphOption.toJson();
             sendLog(exchange, LoggingLevel.INFO, "ECharts option JSON 生成完成");
-            return resultNode;
+            return json;
         } catch (Exception e) {
             sendLog(exchange, LoggingLevel.ERROR, "生成 ECharts option 失败: " + e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
+    private boolean shouldPrecompute(String layout, int nodeCount) {
+        if ("precomputed".equalsIgnoreCase(layout)) {
+            return true;
+        }
+        boolean force = layout == null || !"circular".equalsIgnoreCase(layout);
+        return force && precomputeThreshold > 0 && nodeCount >= precomputeThreshold;
+    }
+
+    /**
+     * 用校验时建立的下标做力导向布局
+     */
+    private ForceLayout.Positions precomputeLayout(IndexedGraph graph) {
+        ForceLayout forceLayout = new ForceLayout(GraphSeries.FORCE_REPULSION, GraphSeries.FORCE_GRAVITY,
+                GraphSeries.FORCE_EDGE_LENGTH, layoutIterations, layoutTheta, layoutPool);
+        return forceLayout.layout(graph.nodes().size(), graph.sources(), graph.targets(), layoutSeed);
+    }
+
     private List<GraphCategory> resolveCategories(List<GraphNode> nodes, List<GraphCategory> categories) {
         if (categories != null && !categories.isEmpty()) {
             return categories;
@@ -0,0 +1,19 @@
+package mcp.canary.echart.validation;
+
+import lombok.Getter;
+
+/**
+ * REJECT 策略下输入有问题时抛出，带完整的校验报告
+ */
+@Getter
+public class GraphValidationException extends IllegalArgumentException {
+
+    private final ValidationReport report;
+
+    public GraphValidationException(ValidationReport report) {
+        super("图表输入校验失败：空节点 " + report.getInvalidNodes() + " 个，重复节点 " + report.getDuplicateNodes()
+                + " 个，悬空边 " + report.getDanglingEdges() + " 条，自环 " + report.getSelfLoops() + " 条；"
+                + String.join("；", report.getSamples()));
+        this.report = report;
+    }
+}
@@ -0,0 +1,101 @@
+package mcp.canary.echart.validation;
+
+import mcp.canary.echart.module.graph.series.data.GraphEdge;
+import mcp.canary.echart.module.graph.series.data.GraphNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * generate_graph_chart 的输入校验
+ * 节点扫描一遍建立 name 到下标的哈希索引，同时发现空节点和重复节点；边扫描一遍，按索引查端点，发现悬空边和自环，
+ * 整体 O(n + m)。按策略修复或拒绝，修复时只在有问题时才复制列表。
+ */
+public class GraphValidator {
+
+    private final ValidationPolicy policy;
+
+    public GraphValidator(ValidationPolicy policy) {
+        this.policy = policy;
+    }
+
+    public Result validate(List<GraphNode> nodes, List<GraphEdge> edges) {
+        ValidationReport report = new ValidationReport();
+        report.setPolicy(policy);
+        report.setNodes(nodes.size());
+        report.setEdges(edges.size());
+
+        Map<String, Integer> index = new HashMap<>(Math.max(16, (int) (nodes.size() / 0.75f) + 1));
+        List<GraphNode> keptNodes = null;
+        for (int i = 0; i < nodes.size(); i++) {
+            GraphNode node = nodes.get(i);
+            boolean keep;
+            if (node == null || node.getName() == null || node.getName().isBlank()) {
+                report.setInvalidNodes(report.getInvalidNodes() + 1);
+                report.sample("第 " + i + " 个节点为空或缺少 name");
+                keep = false;
+            } else if (index.putIfAbsent(node.getName(), index.size()) != null) {
+                report.setDuplicateNodes(report.getDuplicateNodes() + 1);
+                report.sample("第 " + i + " 个节点 name 重复：" + node.getName());
+                keep = false;
+            } else {
+                keep = true;
+            }
+            // 第一次遇到问题时才复制之前保留的节点
+            if (!keep && keptNodes == null) {
+                keptNodes = new ArrayList<>(nodes.subList(0, i));
+            } else if (keep && keptNodes != null) {
+                keptNodes.add(node);
+            }
+        }
+
+        int[] sources = new int[edges.size()];
+        int[] targets = new int[edges.size()];
+        int count = 0;
+        List<GraphEdge> keptEdges = null;
+        for (int k = 0; k < edges.size(); k++) {
+            GraphEdge edge = edges.get(k);
+            Integer s = edge != null && edge.getSource() != null ? index.get(edge.getSource()) : null;
+            Integer t = edge != null && edge.getTarget() != null ? index.get(edge.getTarget()) : null;
+            boolean keep;
+            if (s == null || t == null) {
+                report.setDanglingEdges(report.getDanglingEdges() + 1);
+                report.sample(edge == null ? "第 " + k + " 条边为空"
+                        : "第 " + k + " 条边的端点不存在：" + edge.getSource() + " -> " + edge.getTarget());
+                keep = false;
+            } else if (s.intValue() == t.intValue()) {
+                report.setSelfLoops(report.getSelfLoops() + 1);
+                report.sample("第 " + k + " 条边是自环：" + edge.getSource());
+                keep = false;
+            } else {
+                sources[count] = s;
+                targets[count] = t;
+                count++;
+                keep = true;
+            }
+            if (!keep && keptEdges == null) {
+                keptEdges = new ArrayList<>(edges.subList(0, k));
+            } else if (keep && keptEdges != null) {
+                keptEdges.add(edge);
+            }
+        }
+
+        if (!report.isClean() && policy == ValidationPolicy.REJECT) {
+            throw new GraphValidationException(report);
+        }
+        IndexedGraph graph = new IndexedGraph(keptNodes != null ? keptNodes : nodes,
+                keptEdges != null ? keptEdges : edges,
+                count == sources.length ? sources : Arrays.copyOf(sources, count),
+                count == targets.length ? targets : Arrays.copyOf(targets, count));
+        return new Result(graph, report);
+    }
+
+    /**
+     * 校验结果，REPAIR 策略下 graph 已去掉有问题的节点和边
+     */
+    public record Result(IndexedGraph graph, ValidationReport report) {
+    }
+}
@@ -0,0 +1,12 @@
+package mcp.canary.echart.validation;
+
+import mcp.canary.echart.module.graph.series.data.GraphEdge;
+import mcp.canary.echart.module.graph.series.data.GraphNode;
+
+import java.util.List;
+
+/**
+ * 校验后的图：节点 name 唯一，边 k 连接下标为 sources[k] 和 targets[k] 的节点，后续布局和粗化直接使用下标
+ */
+public record IndexedGraph(List<GraphNode> nodes, List<GraphEdge> edges, int[] sources, int[] targets) {
+}
@@ -0,0 +1,17 @@
+package mcp.canary.echart.validation;
+
+/**
+ * 输入有问题时的处理方式
+ */
+public enum ValidationPolicy {
+
+    /**
+     * 丢弃空节点、重复节点（保留第一个）、悬空边和自环，继续生成图表
+     */
+    REPAIR,
+
+    /**
+     * 有任何问题都拒绝，返回校验报告
+     */
+    REJECT
+}
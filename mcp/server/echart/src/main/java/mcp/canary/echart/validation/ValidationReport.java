@@ -0,0 +1,50 @@
+package mcp.canary.echart.validation;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 输入校验报告，各项为发现的问题数，samples 为前几条问题的描述
+ */
+@Data
+public class ValidationReport {
+
+    /**
+     * samples 最多保留的条数
+     */
+    static final int MAX_SAMPLES = 10;
+
+    private int nodes;
+
+    private int edges;
+
+    /**
+     * 为 null 或 name 为空的节点
+     */
+    private int invalidNodes;
+
+    private int duplicateNodes;
+
+    /**
+     * 为 null、端点为空或端点不存在的边
+     */
+    private int danglingEdges;
+
+    private int selfLoops;
+
+    private ValidationPolicy policy;
+
+    private List<String> samples = new ArrayList<>();
+
+    public boolean isClean() {
+        return invalidNodes == 0 && duplicateNodes == 0 && danglingEdges == 0 && selfLoops == 0;
+    }
+
+    void sample(String problem) {
+        if (samples.size() < MAX_SAMPLES) {
+            samples.add(problem);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package mcp.canary.echart.community;
+
+import mcp.canary.echart.module.graph.series.data.GraphCommunityNode;
+import mcp.canary.echart.module.graph.series.data.GraphEdge;
+import mcp.canary.echart.module.graph.series.data.GraphNode;
+import mcp.canary.echart.validation.GraphValidator;
+import mcp.canary.echart.validation.IndexedGraph;
+import mcp.canary.echart.validation.ValidationPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphCoarsenerTest {
+
+    @Test
+    void coarsen_withinBudget_returnsInput() {
+        List<GraphNode> nodes = nodes(3, "T");
+        List<GraphEdge> edges = List.of(edge("n0", "n1"));
+
+        IndexedGraph graph = index(nodes, edges);
+
+        GraphCoarsener.Result result = new GraphCoarsener(3, 20, 0L).coarsen(graph);
+
+        assertFalse(result.coarsened());
+        assertSame(graph, result.graph());
+    }
+
+    @Test
+    void coarsen_collapsesCommunitiesAndAggregatesEdges() {
+        int[][] cliques = LabelPropagationTest.cliques(2, 5);
+        List<GraphNode> nodes = nodes(10, "T");
+        nodes.get(9).setCategoryName("U");
+        List<GraphEdge> edges = new ArrayList<>();
+        for (int e = 0; e < cliques[0].length; e++) {
+            edges.add(edge("n" + cliques[0][e], "n" + cliques[1][e]));
+        }
+        edges.add(edge("n1", "n6"));
+
+        GraphCoarsener.Result result = new GraphCoarsener(4, 20, 1L).coarsen(index(nodes, edges));
+
+        assertTrue(result.coarsened());
+        IndexedGraph coarse = result.graph();
+        assertEquals(2, coarse.nodes().size());
+        GraphCommunityNode first = assertInstanceOf(GraphCommunityNode.class, coarse.nodes().get(0));
+        assertEquals(List.of("n0", "n1", "n2", "n3", "n4"), first.getMembers());
+        assertEquals("T", first.getCategoryName());
+        assertEquals(10, first.getProperties().get("内部边数"));
+        assertEquals(GraphCoarsener.symbolSize(5), first.getSymbolSize());
+        assertTrue(first.getName().endsWith("等 5 个节点"));
+        GraphEdge between = coarse.edges().get(0);
+        assertEquals(1, coarse.edges().size());
+        assertEquals(first.getName(), between.getSource());
+        assertEquals(coarse.nodes().get(1).getName(), between.getTarget());
+        assertEquals(2, between.getValue());
+        assertArrayEquals(new int[]{0}, coarse.sources());
+        assertArrayEquals(new int[]{1}, coarse.targets());
+    }
+
+    @Test
+    void coarsen_tooManyCommunities_mergesSmallestIntoOther() {
+        // 5 个孤立节点加一个三角形：6 个社区，预算 3
+        List<GraphNode> nodes = nodes(8, null);
+        List<GraphEdge> edges = List.of(edge("n5", "n6"), edge("n6", "n7"), edge("n7", "n5"), edge("n0", "n5"));
+
+        List<GraphNode> coarse = new GraphCoarsener(3, 20, 0L).coarsen(index(nodes, edges)).graph().nodes();
+
+        assertEquals(3, coarse.size());
+        GraphCommunityNode other = assertInstanceOf(GraphCommunityNode.class, coarse.get(2));
+        assertTrue(other.getName().startsWith("其他"));
+        Set<String> all = new HashSet<>(other.getMembers());
+        for (GraphNode node : coarse.subList(0, 2)) {
+            if (node instanceof GraphCommunityNode community) {
+                all.addAll(community.getMembers());
+            } else {
+                all.add(node.getName());
+            }
+        }
+        assertEquals(8, all.size());
+        assertThrows(IllegalArgumentException.class, () -> new GraphCoarsener(1, 20, 0L));
+    }
+
+    @Test
+    void coarsen_superNodeNameTakenByKeptNode_addsSuffix() {
+        // 三角形的超级节点名无论选谁做代表，都会与某个孤立节点重名
+        List<GraphNode> nodes = nodes(3, "T");
+        for (int i = 0; i < 3; i++) {
+            GraphNode lookalike = new GraphNode();
+            lookalike.setName("n" + i + " 等 3 个节点");
+            nodes.add(lookalike);
+        }
+        List<GraphEdge> edges = List.of(edge("n0", "n1"), edge("n1", "n2"), edge("n2", "n0"));
+
+        List<GraphNode> coarse = new GraphCoarsener(5, 20, 0L).coarsen(index(nodes, edges)).graph().nodes();
+
+        assertEquals(4, coarse.size());
+        Set<String> names = new HashSet<>();
+        coarse.forEach(node -> names.add(node.getName()));
+        assertEquals(4, names.size());
+        GraphCommunityNode triangle = assertInstanceOf(GraphCommunityNode.class, coarse.get(0));
+        assertTrue(triangle.getName().matches("n\\d 等 3 个节点 #1"));
+        assertEquals(List.of("n0", "n1", "n2"), triangle.getMembers());
+    }
+
+    @Test
+    void symbolSize_growsWithMembersAndIsCapped() {
+        assertEquals(24, GraphCoarsener.symbolSize(1));
+        assertTrue(GraphCoarsener.symbolSize(10) > GraphCoarsener.symbolSize(2));
+        assertEquals(80, GraphCoarsener.symbolSize(100000));
+    }
+
+    private static IndexedGraph index(List<GraphNode> nodes, List<GraphEdge> edges) {
+        return new GraphValidator(ValidationPolicy.REJECT).validate(nodes, edges).graph();
+    }
+
+    private static List<GraphNode> nodes(int count, String category) {
+        List<GraphNode> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            GraphNode node = new GraphNode();
+            node.setName("n" + i);
+            node.setCategoryName(category);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private static GraphEdge edge(String source, String target) {
+        GraphEdge edge = new GraphEdge();
+        edge.setSource(source);
+        edge.setTarget(target);
+        return edge;
+    }
+}
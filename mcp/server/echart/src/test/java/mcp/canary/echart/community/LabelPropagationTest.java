@@ -0,0 +1,71 @@
+package mcp.canary.echart.community;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LabelPropagationTest {
+
+    @Test
+    void detect_twoCliquesJoinedByBridge_findsTwoCommunities() {
+        // 0-4 和 5-9 各是一个完全图，4-5 是桥
+        int[][] edges = cliques(2, 5);
+        int[] labels = new LabelPropagation(20).detect(10, edges[0], edges[1], 1L);
+
+        for (int i = 1; i < 5; i++) {
+            assertEquals(labels[0], labels[i]);
+            assertEquals(labels[5], labels[5 + i]);
+        }
+        assertNotEquals(labels[0], labels[5]);
+        assertEquals(0, labels[0]);
+        assertEquals(1, labels[5]);
+    }
+
+    @Test
+    void detect_isDeterministicForSeed() {
+        int[][] edges = cliques(20, 8);
+        LabelPropagation propagation = new LabelPropagation(20);
+
+        assertArrayEquals(propagation.detect(160, edges[0], edges[1], 7L),
+                propagation.detect(160, edges[0], edges[1], 7L));
+    }
+
+    @Test
+    void detect_isolatedNodesAndSelfLoopsKeepOwnCommunity() {
+        int[] labels = new LabelPropagation(5).detect(3, new int[]{1}, new int[]{1}, 0L);
+
+        assertArrayEquals(new int[]{0, 1, 2}, labels);
+        assertThrows(IllegalArgumentException.class, () -> new LabelPropagation(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LabelPropagation(5).detect(2, new int[]{0}, new int[0], 0L));
+    }
+
+    /**
+     * count 个大小为 size 的完全图，相邻两个之间连一条桥
+     */
+    static int[][] cliques(int count, int size) {
+        int edgeCount = count * size * (size - 1) / 2 + count - 1;
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        int e = 0;
+        for (int c = 0; c < count; c++) {
+            int base = c * size;
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++) {
+                    sources[e] = base + i;
+                    targets[e] = base + j;
+                    e++;
+                }
+            }
+            if (c > 0) {
+                sources[e] = base - 1;
+                targets[e] = base;
+                e++;
+            }
+        }
+        return new int[][]{sources, targets};
+    }
+}
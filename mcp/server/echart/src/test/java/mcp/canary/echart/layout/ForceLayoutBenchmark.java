@@ -0,0 +1,90 @@
+package mcp.canary.echart.layout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ForceLayout 随线程数的扩展情况：同一张随机图在不同 parallelism 下跑固定轮数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ForceLayoutBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    @Param({"20000"})
+    private int nodes;
+
+    @Param({"20"})
+    private int iterations;
+
+    private int[] sources;
+    private int[] targets;
+    private ForkJoinPool pool;
+    private ForceLayout layout;
+
+    @Setup
+    public void setUp() {
+        // 随机树加少量横向边，接近实际查询结果的稀疏图
+        SplittableRandom random = new SplittableRandom(42);
+        int edges = nodes - 1 + nodes / 10;
+        sources = new int[edges];
+        targets = new int[edges];
+        for (int i = 1; i < nodes; i++) {
+            sources[i - 1] = random.nextInt(i);
+            targets[i - 1] = i;
+        }
+        for (int k = nodes - 1; k < edges; k++) {
+            sources[k] = random.nextInt(nodes);
+            targets[k] = random.nextInt(nodes);
+        }
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        layout = new ForceLayout(280, 0.08, 120, iterations, 0.9, pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public ForceLayout.Positions layout() {
+        return layout.layout(nodes, sources, targets, 42L);
+    }
+
+    /**
+     * 命令行参数按 JMH 的格式解析，例如 -p parallelism=1,4 -p nodes=50000
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(ForceLayoutBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
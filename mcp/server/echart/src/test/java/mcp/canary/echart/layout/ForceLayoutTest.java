@@ -0,0 +1,151 @@
+package mcp.canary.echart.layout;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForceLayoutTest {
+
+    @Test
+    void layout_connectedPairSettlesNearEdgeLength() {
+        ForceLayout layout = new ForceLayout(280, 0.08, 120, 300, 0.9);
+
+        ForceLayout.Positions positions = layout.layout(2, new int[]{0}, new int[]{1});
+
+        double d = Math.hypot(positions.x()[0] - positions.x()[1], positions.y()[0] - positions.y()[1]);
+        assertTrue(d > 100 && d < 140, "distance " + d);
+    }
+
+    @Test
+    void layout_isDeterministicFiniteAndSeparatesNodes() {
+        int n = 500;
+        int[] sources = new int[n - 1];
+        int[] targets = new int[n - 1];
+        for (int i = 1; i < n; i++) {
+            sources[i - 1] = (i - 1) / 3;
+            targets[i - 1] = i;
+        }
+        ForceLayout layout = new ForceLayout(280, 0.08, 120, 100, 0.9);
+
+        ForceLayout.Positions first = layout.layout(n, sources, targets);
+        ForceLayout.Positions second = layout.layout(n, sources, targets);
+
+        assertArrayEquals(first.x(), second.x());
+        assertArrayEquals(first.y(), second.y());
+        double minDistance = Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            assertTrue(Double.isFinite(first.x()[i]) && Double.isFinite(first.y()[i]));
+            for (int j = i + 1; j < n; j++) {
+                minDistance = Math.min(minDistance,
+                        Math.hypot(first.x()[i] - first.x()[j], first.y()[i] - first.y()[j]));
+            }
+        }
+        assertTrue(minDistance > 1, "min distance " + minDistance);
+    }
+
+    @Test
+    void layout_parallelMatchesSequentialBitForBit() {
+        int n = 3000;
+        int[] sources = new int[n - 1];
+        int[] targets = new int[n - 1];
+        for (int i = 1; i < n; i++) {
+            sources[i - 1] = (i - 1) / 4;
+            targets[i - 1] = i;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ForceLayout.Positions sequential = new ForceLayout(280, 0.08, 120, 30, 0.9).layout(n, sources, targets, 11L);
+            ForceLayout parallelLayout = new ForceLayout(280, 0.08, 120, 30, 0.9, pool);
+            ForceLayout.Positions parallel = parallelLayout.layout(n, sources, targets, 11L);
+            ForceLayout.Positions again = parallelLayout.layout(n, sources, targets, 11L);
+
+            assertArrayEquals(sequential.x(), parallel.x());
+            assertArrayEquals(sequential.y(), parallel.y());
+            assertArrayEquals(parallel.x(), again.x());
+            assertFalse(pool.isShutdown());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void layout_seedChangesInitialPositions() {
+        ForceLayout layout = new ForceLayout(280, 0.08, 120, 0, 0.9);
+
+        ForceLayout.Positions first = layout.layout(50, new int[0], new int[0], 1L);
+        ForceLayout.Positions same = layout.layout(50, new int[0], new int[0], 1L);
+        ForceLayout.Positions other = layout.layout(50, new int[0], new int[0], 2L);
+
+        assertArrayEquals(first.x(), same.x());
+        assertFalse(Arrays.equals(first.x(), other.x()));
+    }
+
+    @Test
+    void quadTree_repulsionApproximatesPairwiseSum() {
+        int n = 2000;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        Random random = new Random(7);
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextGaussian() * 500;
+            y[i] = random.nextGaussian() * 500;
+        }
+        QuadTree tree = new QuadTree(n);
+        tree.build(x, y, n);
+        double[] fx = new double[n];
+        double[] fy = new double[n];
+        double[] exact = new double[2];
+        for (int i = 0; i < n; i += 97) {
+            tree.repulse(i, x, y, 280, 0.5, fx, fy);
+            exact[0] = 0;
+            exact[1] = 0;
+            for (int j = 0; j < n; j++) {
+                if (j != i) {
+                    double dx = x[i] - x[j];
+                    double dy = y[i] - y[j];
+                    double d2 = dx * dx + dy * dy;
+                    exact[0] += dx * 280 / d2;
+                    exact[1] += dy * 280 / d2;
+                }
+            }
+            double error = Math.hypot(fx[i] - exact[0], fy[i] - exact[1]);
+            assertTrue(error <= 0.05 * Math.hypot(exact[0], exact[1]) + 1e-6, "node " + i + " error " + error);
+        }
+        assertTrue(tree.cellCount() < 4 * n);
+    }
+
+    @Test
+    void quadTree_coincidentNodesArePushedApart() {
+        double[] x = {5, 5, 5};
+        double[] y = {5, 5, 5};
+        QuadTree tree = new QuadTree(3);
+        tree.build(x, y, 3);
+        double[] fx = new double[3];
+        double[] fy = new double[3];
+
+        tree.repulse(0, x, y, 1, 0.9, fx, fy);
+        tree.repulse(1, x, y, 1, 0.9, fx, fy);
+
+        assertTrue(Math.hypot(fx[0], fy[0]) > 0);
+        assertTrue(fx[0] != fx[1] || fy[0] != fy[1]);
+    }
+
+    @Test
+    void layout_edgeCases() {
+        ForceLayout layout = new ForceLayout(280, 0.08, 120, 10, 0.9);
+
+        assertEquals(0, layout.layout(0, new int[0], new int[0]).x().length);
+        assertEquals(1, layout.layout(1, new int[0], new int[0]).x().length);
+        assertThrows(IllegalArgumentException.class, () -> layout.layout(2, new int[]{0}, new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> new ForceLayout(280, 0.08, 120, -1, 0.9));
+    }
+}
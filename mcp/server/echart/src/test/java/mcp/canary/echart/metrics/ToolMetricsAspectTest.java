@@ -0,0 +1,57 @@
+package mcp.canary.echart.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ToolMetricsAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private Tools tools;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Tools());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ToolMetricsAspect(meterRegistry));
+        tools = factory.getProxy();
+    }
+
+    @Test
+    void tool_recordsSuccessAndError() {
+        assertEquals("ok", tools.chart(false));
+        assertThrows(IllegalArgumentException.class, () -> tools.chart(true));
+
+        assertEquals(1, meterRegistry.get(ToolMetricsAspect.METRIC)
+                .tags("tool", "chart", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get(ToolMetricsAspect.METRIC)
+                .tags("tool", "chart", "outcome", "error").timer().count());
+    }
+
+    @Test
+    void nonToolMethod_notTimed() {
+        tools.helper();
+
+        assertEquals(0, meterRegistry.find(ToolMetricsAspect.METRIC).timers().size());
+    }
+
+    static class Tools {
+
+        @McpTool(name = "chart", description = "chart")
+        public String chart(boolean fail) {
+            if (fail) {
+                throw new IllegalArgumentException("fail");
+            }
+            return "ok";
+        }
+
+        public void helper() {
+        }
+    }
+}
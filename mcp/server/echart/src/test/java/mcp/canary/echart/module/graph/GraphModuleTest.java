@@ -1,8 +1,11 @@
 package mcp.canary.echart.module.graph;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import mcp.canary.echart.layout.ForceLayout;
+import mcp.canary.echart.module.EChartModule;
 import mcp.canary.echart.module.graph.series.GraphSeries;
 import mcp.canary.echart.module.graph.series.data.GraphCategory;
+import mcp.canary.echart.module.graph.series.data.GraphCommunityNode;
 import mcp.canary.echart.module.graph.series.data.GraphEdge;
 import mcp.canary.echart.module.graph.series.data.GraphNode;
 import mcp.canary.echart.module.graph.title.GraphTitle;
@@ -268,4 +271,79 @@ class GraphModuleTest {
         assertEquals(16, node.get("textStyle").get("fontSize").asInt());
         assertEquals("bold", node.get("textStyle").get("fontWeight").asText());
     }
+
+    @Test
+    void option_toJsonMatchesTreeAndKeepsFieldOrder() throws Exception {
+        GraphCategory category = new GraphCategory();
+        category.setName("Person");
+        category.setSymbol("rect");
+
+        GraphNode alice = new GraphNode();
+        alice.setName("Alice \"A\"");
+        alice.setCategoryName("Person");
+        alice.setProperties(Map.of("age", 30));
+
+        GraphNode bob = new GraphNode();
+        bob.setName("Bob");
+
+        GraphEdge edge = new GraphEdge();
+        edge.setSource("Alice \"A\"");
+        edge.setTarget("Bob");
+        edge.setValue(2);
+
+        GraphSeries series = new GraphSeries();
+        series.setCategories(List.of(category));
+        series.setNodes(List.of(alice, bob));
+        series.setEdges(List.of(edge));
+
+        GraphTitle title = new GraphTitle();
+        title.setText("Demo");
+
+        GraphOption option = new GraphOption();
+        option.setTitle(title);
+        option.setSeries(series);
+
+        String json = option.toJson();
+
+        assertEquals(option.toEChartNode(), EChartModule.MAPPER.readTree(json));
+        assertTrue(json.startsWith("{\"title\":{\"text\":\"Demo\""));
+        assertTrue(json.contains("{\"name\":\"Alice \\\"A\\\"\",\"category\":0,\"value\":\"age: 30\"}"));
+        assertTrue(json.contains("{\"name\":\"Bob\",\"category\":-1}"));
+        assertTrue(json.contains("\"links\":[{\"source\":\"Alice \\\"A\\\"\",\"target\":\"Bob\",\"value\":\"2.0\"}]"));
+    }
+
+    @Test
+    void series_withPositionsUsesNoneLayoutAndFixedCoordinates() {
+        GraphNode a = new GraphNode();
+        a.setName("A");
+        GraphNode b = new GraphNode();
+        b.setName("B");
+
+        GraphSeries series = new GraphSeries();
+        series.setLayout("force");
+        series.setNodes(List.of(a, b));
+        series.setPositions(new ForceLayout.Positions(new double[]{1.234, -5}, new double[]{0, 10.005}));
+
+        JsonNode node = series.toEChartNode();
+
+        assertEquals("none", node.get("layout").asText());
+        assertFalse(node.has("force"));
+        assertEquals(1.23, node.get("data").get(0).get("x").asDouble(), 1e-9);
+        assertEquals(-5, node.get("data").get(1).get("x").asDouble(), 1e-9);
+        assertTrue(node.get("data").get(1).has("y"));
+    }
+
+    @Test
+    void communityNode_writesSymbolSizeAndMembers() {
+        GraphCommunityNode node = new GraphCommunityNode();
+        node.setName("A 等 2 个节点");
+        node.setMembers(List.of("A", "B"));
+        node.setSymbolSize(31);
+
+        JsonNode json = node.toEChartNode();
+
+        assertEquals("A 等 2 个节点", json.get("name").asText());
+        assertEquals(31, json.get("symbolSize").asInt());
+        assertEquals("B", json.get("members").get(1).asText());
+    }
 }
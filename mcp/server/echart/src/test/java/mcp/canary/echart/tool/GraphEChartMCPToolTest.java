@@ -1,26 +1,33 @@
 package mcp.canary.echart.tool;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import io.modelcontextprotocol.server.McpSyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema.LoggingLevel;
 import io.modelcontextprotocol.spec.McpSchema.LoggingMessageNotification;
+import mcp.canary.echart.module.EChartModule;
 import mcp.canary.echart.module.graph.series.data.GraphCategory;
 import mcp.canary.echart.module.graph.series.data.GraphEdge;
 import mcp.canary.echart.module.graph.series.data.GraphNode;
+import mcp.canary.echart.validation.ValidationPolicy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -44,6 +51,9 @@ class GraphEChartMCPToolTest {
         node.setName("A");
         node.setCategoryName("Type1");
 
+        GraphNode nodeB = new GraphNode();
+        nodeB.setName("B");
+
         GraphEdge edge = new GraphEdge();
         edge.setSource("A");
         edge.setTarget("B");
@@ -52,14 +62,14 @@ class GraphEChartMCPToolTest {
         category.setName("Type1");
         category.setSymbol("diamond");
 
-        JsonNode result = tool.generateGraphOption(
+        JsonNode result = parse(tool.generateGraphOption(
                 "Chart",
                 "circular",
-                List.of(node),
+                List.of(node, nodeB),
                 List.of(edge),
                 List.of(category),
                 exchange
-        );
+        ));
 
         assertEquals("Chart", result.get("title").get("text").asText());
         JsonNode series = result.get("series").get(0);
@@ -88,14 +98,14 @@ class GraphEChartMCPToolTest {
         GraphNode nodeC = new GraphNode();
         nodeC.setName("C");
 
-        JsonNode result = tool.generateGraphOption(
+        JsonNode result = parse(tool.generateGraphOption(
                 null,
                 null,
                 List.of(nodeA, nodeB, nodeC),
                 null,
                 null,
                 null
-        );
+        ));
 
         assertFalse(result.has("title"));
         JsonNode series = result.get("series").get(0);
@@ -111,14 +121,14 @@ class GraphEChartMCPToolTest {
 
     @Test
     void generateGraphOption_blankTitleAndNullNodes_skipsTitle() {
-        JsonNode result = tool.generateGraphOption(
+        JsonNode result = parse(tool.generateGraphOption(
                 "   ",
                 null,
                 null,
                 null,
                 List.of(),
                 null
-        );
+        ));
 
         assertFalse(result.has("title"));
         JsonNode series = result.get("series").get(0);
@@ -128,14 +138,14 @@ class GraphEChartMCPToolTest {
 
     @Test
     void generateGraphOption_emptyNodes_returnsEmptyCategories() {
-        JsonNode result = tool.generateGraphOption(
+        JsonNode result = parse(tool.generateGraphOption(
                 null,
                 "force",
                 List.of(),
                 null,
                 null,
                 exchange
-        );
+        ));
 
         JsonNode series = result.get("series").get(0);
         assertEquals(0, series.get("categories").size());
@@ -144,6 +154,7 @@ class GraphEChartMCPToolTest {
 
     @Test
     void generateGraphOption_logsErrorOnException() {
+        ReflectionTestUtils.setField(tool, "validationPolicy", ValidationPolicy.REJECT);
         List<GraphNode> nodes = new java.util.ArrayList<>();
         nodes.add(null);
 
@@ -174,7 +185,7 @@ class GraphEChartMCPToolTest {
         GraphNode node = new GraphNode();
         node.setName("A");
 
-        JsonNode result = tool.generateGraphOption(
+        String result = tool.generateGraphOption(
                 "Chart",
                 "force",
                 List.of(node),
@@ -185,4 +196,109 @@ class GraphEChartMCPToolTest {
 
         assertNotNull(result);
     }
+
+    @Test
+    void generateGraphOption_precomputedLayout_emitsCoordinates() {
+        GraphNode nodeA = new GraphNode();
+        nodeA.setName("A");
+        GraphNode nodeB = new GraphNode();
+        nodeB.setName("B");
+        GraphEdge edge = new GraphEdge();
+        edge.setSource("A");
+        edge.setTarget("B");
+        GraphEdge dangling = new GraphEdge();
+        dangling.setSource("A");
+        dangling.setTarget("missing");
+
+        JsonNode result = parse(tool.generateGraphOption(
+                null,
+                "precomputed",
+                List.of(nodeA, nodeB),
+                List.of(edge, dangling),
+                null,
+                null
+        ));
+
+        JsonNode series = result.get("series").get(0);
+        assertEquals("none", series.get("layout").asText());
+        assertFalse(series.has("force"));
+        for (JsonNode node : series.get("data")) {
+            assertTrue(node.has("x"));
+            assertTrue(node.has("y"));
+        }
+    }
+
+    @Test
+    void generateGraphOption_overBudget_coarsensIntoCommunities() {
+        ReflectionTestUtils.setField(tool, "coarsenNodeBudget", 3);
+        List<GraphNode> nodes = new ArrayList<>();
+        for (String name : List.of("A", "B", "C", "D", "E", "F")) {
+            GraphNode node = new GraphNode();
+            node.setName(name);
+            nodes.add(node);
+        }
+        List<GraphEdge> edges = new ArrayList<>();
+        for (String[] pair : new String[][]{{"A", "B"}, {"B", "C"}, {"C", "A"}, {"D", "E"}, {"E", "F"}, {"F", "D"}}) {
+            GraphEdge edge = new GraphEdge();
+            edge.setSource(pair[0]);
+            edge.setTarget(pair[1]);
+            edges.add(edge);
+        }
+
+        JsonNode result = parse(tool.generateGraphOption(null, null, nodes, edges, null, exchange));
+
+        JsonNode data = result.get("series").get(0).get("data");
+        assertEquals(2, data.size());
+        assertEquals(3, data.get(0).get("members").size());
+        assertEquals(0, result.get("series").get(0).get("links").size());
+        verify(exchange, times(3)).loggingNotification(any(LoggingMessageNotification.class));
+    }
+
+    @Test
+    void generateGraphOption_invalidInput_repairedAndReported() {
+        GraphNode nodeA = new GraphNode();
+        nodeA.setName("A");
+        GraphNode duplicate = new GraphNode();
+        duplicate.setName("A");
+        GraphEdge loop = new GraphEdge();
+        loop.setSource("A");
+        loop.setTarget("A");
+
+        JsonNode result = parse(tool.generateGraphOption(null, "force", List.of(nodeA, duplicate), List.of(loop),
+                null, exchange));
+
+        JsonNode series = result.get("series").get(0);
+        assertEquals(1, series.get("data").size());
+        assertEquals(0, series.get("links").size());
+        ArgumentCaptor<LoggingMessageNotification> captor =
+                ArgumentCaptor.forClass(LoggingMessageNotification.class);
+        verify(exchange, times(3)).loggingNotification(captor.capture());
+        LoggingMessageNotification warning = captor.getAllValues().get(1);
+        assertEquals(LoggingLevel.WARNING, warning.level());
+        assertTrue(warning.data().contains("\"duplicateNodes\":1"));
+        assertTrue(warning.data().contains("\"selfLoops\":1"));
+    }
+
+    @Test
+    void init_sharesOneLayoutPoolAcrossCalls() {
+        ReflectionTestUtils.setField(tool, "layoutParallelism", 2);
+        tool.init();
+        ForkJoinPool pool = (ForkJoinPool) ReflectionTestUtils.getField(tool, "layoutPool");
+        assertEquals(2, pool.getParallelism());
+        tool.shutdown();
+        assertTrue(pool.isShutdown());
+
+        ReflectionTestUtils.setField(tool, "layoutParallelism", 0);
+        tool.init();
+        assertSame(ForkJoinPool.commonPool(), ReflectionTestUtils.getField(tool, "layoutPool"));
+        tool.shutdown();
+    }
+
+    private static JsonNode parse(String json) {
+        try {
+            return EChartModule.MAPPER.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new AssertionError(e);
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package mcp.canary.echart.validation;
+
+import mcp.canary.echart.module.graph.series.data.GraphEdge;
+import mcp.canary.echart.module.graph.series.data.GraphNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GraphValidator 在大输入上的耗时：干净输入和约 1% 重复节点、1% 悬空边的输入
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphValidatorBenchmark {
+
+    @Param({"100000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean defects;
+
+    private List<GraphNode> nodes;
+    private List<GraphEdge> edges;
+    private GraphValidator validator;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        nodes = new ArrayList<>(size);
+        edges = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            GraphNode node = new GraphNode();
+            node.setName(defects && i % 100 == 99 ? "node-" + (i - 1) : "node-" + i);
+            nodes.add(node);
+        }
+        for (int k = 0; k < size; k++) {
+            GraphEdge edge = new GraphEdge();
+            edge.setSource("node-" + random.nextInt(size));
+            edge.setTarget(defects && k % 100 == 99 ? "missing-" + k : "node-" + random.nextInt(size));
+            edges.add(edge);
+        }
+        validator = new GraphValidator(ValidationPolicy.REPAIR);
+    }
+
+    @Benchmark
+    public GraphValidator.Result validate() {
+        return validator.validate(nodes, edges);
+    }
+
+    /**
+     * 命令行参数按 JMH 的格式解析，例如 -p size=1000000
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(GraphValidatorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,84 @@
+package mcp.canary.echart.validation;
+
+import mcp.canary.echart.module.graph.series.data.GraphEdge;
+import mcp.canary.echart.module.graph.series.data.GraphNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphValidatorTest {
+
+    @Test
+    void validate_cleanInput_keepsListsAndIndexesEdges() {
+        List<GraphNode> nodes = List.of(node("A"), node("B"), node("C"));
+        List<GraphEdge> edges = List.of(edge("A", "B"), edge("C", "A"));
+
+        GraphValidator.Result result = new GraphValidator(ValidationPolicy.REJECT).validate(nodes, edges);
+
+        assertTrue(result.report().isClean());
+        assertSame(nodes, result.graph().nodes());
+        assertSame(edges, result.graph().edges());
+        assertArrayEquals(new int[]{0, 2}, result.graph().sources());
+        assertArrayEquals(new int[]{1, 0}, result.graph().targets());
+    }
+
+    @Test
+    void validate_repair_dropsInvalidNodesAndEdges() {
+        List<GraphNode> nodes = Arrays.asList(node("A"), null, node("B"), node("A"), node(" "), node("C"));
+        List<GraphEdge> edges = Arrays.asList(edge("A", "B"), edge("B", "missing"), edge("C", "C"), null,
+                edge(null, "A"), edge("B", "C"));
+
+        GraphValidator.Result result = new GraphValidator(ValidationPolicy.REPAIR).validate(nodes, edges);
+
+        ValidationReport report = result.report();
+        assertEquals(6, report.getNodes());
+        assertEquals(2, report.getInvalidNodes());
+        assertEquals(1, report.getDuplicateNodes());
+        assertEquals(3, report.getDanglingEdges());
+        assertEquals(1, report.getSelfLoops());
+        assertEquals(7, report.getSamples().size());
+        assertEquals(List.of("A", "B", "C"), result.graph().nodes().stream().map(GraphNode::getName).toList());
+        assertEquals(List.of(edges.get(0), edges.get(5)), result.graph().edges());
+        assertArrayEquals(new int[]{0, 1}, result.graph().sources());
+        assertArrayEquals(new int[]{1, 2}, result.graph().targets());
+    }
+
+    @Test
+    void validate_reject_throwsWithReport() {
+        List<GraphNode> nodes = new ArrayList<>();
+        List<GraphEdge> edges = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            nodes.add(node("n" + i));
+            edges.add(edge("n" + i, "x" + i));
+        }
+
+        GraphValidationException e = assertThrows(GraphValidationException.class,
+                () -> new GraphValidator(ValidationPolicy.REJECT).validate(nodes, edges));
+
+        assertEquals(30, e.getReport().getDanglingEdges());
+        assertEquals(ValidationReport.MAX_SAMPLES, e.getReport().getSamples().size());
+        assertEquals(ValidationPolicy.REJECT, e.getReport().getPolicy());
+        assertTrue(e.getMessage().contains("悬空边 30 条"));
+    }
+
+    private static GraphNode node(String name) {
+        GraphNode node = new GraphNode();
+        node.setName(name);
+        return node;
+    }
+
+    private static GraphEdge edge(String source, String target) {
+        GraphEdge edge = new GraphEdge();
+        edge.setSource(source);
+        edge.setTarget(target);
+        return edge;
+    }
+}
@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.data.neo4j.Neo4jDataAutoConfiguration;
 import org.springframework.boot.autoconfigure.neo4j.Neo4jAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Neo4j MCP Server 应用主类
  * 禁用 Spring Boot 的 Neo4j 自动配置，使用自定义的 Neo4jConnection
+ * 开启定时任务，用于后台增量去重
  *
  * @author dsimile
  */
@@ -15,6 +17,7 @@ import org.springframework.boot.autoconfigure.neo4j.Neo4jAutoConfiguration;
         Neo4jAutoConfiguration.class,
         Neo4jDataAutoConfiguration.class
 })
+@EnableScheduling
 public class Neo4jApplication {
 
     public static void main(String[] args) {
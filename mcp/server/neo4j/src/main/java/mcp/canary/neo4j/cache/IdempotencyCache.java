@@ -0,0 +1,131 @@
+package mcp.canary.neo4j.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import mcp.canary.neo4j.cypher.CypherText;
+import mcp.canary.neo4j.service.Neo4jService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * write-neo4j-cypher 的幂等记录
+ * 客户端超时重试时，同一个幂等键在时间窗口内只写一次，重复调用直接返回第一次的写入统计，不访问数据库。
+ * 只有调用方给出幂等键时才去重，没有键的写入每次都执行。键与归一化查询 + 参数的哈希一起登记，
+ * 同一个键带着不同的写入语句到达时拒绝，而不是返回另一条写入的统计。执行中的写入也会被记住，并发重复的调用等待同一个结果；
+ * 写入失败时删除记录，允许重试。条目按插入顺序淘汰，超过 TTL 失效。
+ */
+@Component
+public class IdempotencyCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    private final Counter replays;
+    private final Counter misses;
+    private final Counter conflicts;
+
+    public IdempotencyCache(@Value("${neo4j.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${neo4j.idempotency.ttl:PT10M}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.replays = Counter.builder("neo4j.idempotency.replays").register(meterRegistry);
+        this.misses = Counter.builder("neo4j.idempotency.misses").register(meterRegistry);
+        this.conflicts = Counter.builder("neo4j.idempotency.conflicts").register(meterRegistry);
+        Gauge.builder("neo4j.idempotency.entries", this, IdempotencyCache::size).register(meterRegistry);
+    }
+
+    /**
+     * 同一键在窗口内第一次调用时执行 write，之后直接返回它的结果；
+     * 键已被另一条语句（query 或 params 不同）占用时返回以 IllegalArgumentException 失败的结果，不执行 write
+     *
+     * @param idempotencyKey 调用方给出的幂等键，为空时不去重，直接执行 write
+     */
+    public CompletionStage<Map<String, Object>> execute(String idempotencyKey, String query, Map<String, Object> params,
+                                                        Supplier<CompletionStage<Map<String, Object>>> write) {
+        if (maxEntries <= 0 || ttlNanos <= 0 || idempotencyKey == null || idempotencyKey.isBlank()) {
+            return write.get();
+        }
+        String fingerprint = CypherText.hash(query, params);
+        CompletableFuture<Map<String, Object>> owned = new CompletableFuture<>();
+        Entry existing = claim(idempotencyKey, fingerprint, owned);
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint)) {
+                conflicts.increment();
+                return CompletableFuture.failedFuture(new IllegalArgumentException(
+                        "幂等键 " + idempotencyKey + " 已用于另一条写入语句，请为新的写入使用新的幂等键"));
+            }
+            replays.increment();
+            return existing.future.copy();
+        }
+        misses.increment();
+        CompletionStage<Map<String, Object>> writing;
+        try {
+            writing = write.get();
+        } catch (RuntimeException e) {
+            release(idempotencyKey, owned);
+            owned.completeExceptionally(e);
+            throw e;
+        }
+        CompletionStage<Map<String, Object>> result = writing.whenComplete((summary, error) -> {
+            if (error != null) {
+                release(idempotencyKey, owned);
+                owned.completeExceptionally(error);
+            } else {
+                owned.complete(summary);
+            }
+        });
+        return Neo4jService.forwardCancel(writing, result);
+    }
+
+    /**
+     * 登记 future；键已存在且未过期时不登记，返回已有的条目
+     */
+    private synchronized Entry claim(String key, String fingerprint, CompletableFuture<Map<String, Object>> future) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.createdAt < ttlNanos) {
+            return entry;
+        }
+        entries.remove(key);
+        entries.put(key, new Entry(future, fingerprint, now));
+        evict(now);
+        return null;
+    }
+
+    private synchronized void release(String key, CompletableFuture<Map<String, Object>> future) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.future == future) {
+            entries.remove(key);
+        }
+    }
+
+    private void evict(long now) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry eldest = it.next();
+            if (entries.size() <= maxEntries && now - eldest.createdAt < ttlNanos) {
+                break;
+            }
+            it.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry(CompletableFuture<Map<String, Object>> future, String fingerprint, long createdAt) {
+    }
+}
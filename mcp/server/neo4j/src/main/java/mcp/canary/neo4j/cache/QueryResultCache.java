@@ -0,0 +1,268 @@
+package mcp.canary.neo4j.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import mcp.canary.neo4j.cypher.CypherText;
+import mcp.canary.neo4j.service.Neo4jService;
+import mcp.canary.neo4j.service.ReadPage;
+import org.neo4j.driver.types.Entity;
+import org.neo4j.driver.types.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * read-neo4j-cypher 的进程内结果缓存
+ * 以归一化查询、参数、游标和页大小为键，按条目数和估算字节数做 LRU 淘汰，条目超过 TTL 失效。
+ * 写入成功且统计非零时失效：只新建节点的写入按查询中的标签清掉相关条目，
+ * 其余写入可能修改带着其他标签的已有节点，全部清空。
+ */
+@Component
+public class QueryResultCache {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes;
+    /**
+     * 每次失效加一，读取期间发生过失效的结果不再放入缓存，避免写入前读到的旧数据覆盖失效
+     */
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter invalidations;
+
+    public QueryResultCache(@Value("${neo4j.cache.max-entries:500}") int maxEntries,
+                            @Value("${neo4j.cache.max-bytes:64MB}") DataSize maxBytes,
+                            @Value("${neo4j.cache.ttl:PT5M}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes.toBytes();
+        this.ttlNanos = ttl.toNanos();
+        this.hits = Counter.builder("neo4j.cache.query.hits").register(meterRegistry);
+        this.misses = Counter.builder("neo4j.cache.query.misses").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("neo4j.cache.query.evictions").tag("cause", "size").register(meterRegistry);
+        this.expiredEvictions = Counter.builder("neo4j.cache.query.evictions").tag("cause", "expired").register(meterRegistry);
+        this.invalidations = Counter.builder("neo4j.cache.query.invalidations").register(meterRegistry);
+        Gauge.builder("neo4j.cache.query.entries", this, QueryResultCache::size).register(meterRegistry);
+        Gauge.builder("neo4j.cache.query.bytes", this, QueryResultCache::bytes).baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * 命中则直接返回，否则调用 loader 读取并放入缓存
+     */
+    public ReadPage get(String query, Map<String, Object> params, String cursor, int pageSize, Supplier<ReadPage> loader) {
+        if (maxEntries <= 0 || ttlNanos <= 0) {
+            return loader.get();
+        }
+        List<Object> key = key(query, params, cursor, pageSize);
+        Lookup lookup = lookup(key);
+        if (lookup.page() != null) {
+            return lookup.page();
+        }
+        ReadPage page = loader.get();
+        store(key, page, lookup.generation());
+        return page;
+    }
+
+    /**
+     * get 的异步版本：未命中时由 loader 返回的 CompletionStage 完成后放入缓存，取消返回值时一并取消 loader
+     */
+    public CompletionStage<ReadPage> getAsync(String query, Map<String, Object> params, String cursor, int pageSize,
+                                              Supplier<CompletionStage<ReadPage>> loader) {
+        if (maxEntries <= 0 || ttlNanos <= 0) {
+            return loader.get();
+        }
+        List<Object> key = key(query, params, cursor, pageSize);
+        Lookup lookup = lookup(key);
+        if (lookup.page() != null) {
+            return CompletableFuture.completedFuture(lookup.page());
+        }
+        CompletionStage<ReadPage> loading = loader.get();
+        return Neo4jService.forwardCancel(loading, loading.thenApply(page -> {
+            store(key, page, lookup.generation());
+            return page;
+        }));
+    }
+
+    private static List<Object> key(String query, Map<String, Object> params, String cursor, int pageSize) {
+        return Arrays.asList(CypherText.normalize(query),
+                params != null ? params : Collections.emptyMap(), cursor, pageSize);
+    }
+
+    private synchronized Lookup lookup(List<Object> key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (System.nanoTime() - entry.createdAt < ttlNanos) {
+                hits.increment();
+                return new Lookup(entry.page, generation);
+            }
+            remove(key);
+            expiredEvictions.increment();
+        }
+        misses.increment();
+        return new Lookup(null, generation);
+    }
+
+    private void store(List<Object> key, ReadPage page, long loadGeneration) {
+        long bytes = estimateBytes(page.getRecords()) + 64;
+        if (bytes > maxBytes) {
+            return;
+        }
+        Entry entry = new Entry(page, bytes, CypherText.labelScope((String) key.get(0)).orElse(null), System.nanoTime());
+        synchronized (this) {
+            if (loadGeneration != generation) {
+                return;
+            }
+            Entry old = entries.put(key, entry);
+            if (old != null) {
+                currentBytes -= old.bytes;
+            }
+            currentBytes += bytes;
+            evict();
+        }
+    }
+
+    /**
+     * 写入后失效。summary 中没有非零计数时不做任何事；
+     * 只新建节点、没有增删关系（CypherText.createsOnly）且能确定标签时只失效相关条目，否则全部清空。
+     */
+    public void onWrite(String query, Map<String, Object> summary) {
+        if (!hasUpdates(summary)) {
+            return;
+        }
+        Optional<Set<String>> scope = CypherText.createsOnly(query)
+                && !positive(summary.get("relationshipsCreated")) && !positive(summary.get("relationshipsDeleted"))
+                ? CypherText.labelScope(query) : Optional.empty();
+        if (scope.isPresent()) {
+            invalidate(scope.get());
+        } else {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * 失效与给定标签有交集的条目，以及范围未知的条目。
+     * 只适用于写入节点的全部标签都在 labels 中的情况（例如新建节点）；修改已有节点时使用 invalidateAll
+     */
+    public synchronized void invalidate(Set<String> labels) {
+        generation++;
+        Iterator<Map.Entry<List<Object>, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.labels == null || !Collections.disjoint(entry.labels, labels)) {
+                currentBytes -= entry.bytes;
+                it.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.increment(entries.size());
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long bytes() {
+        return currentBytes;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<List<Object>, Entry>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && it.hasNext()) {
+            currentBytes -= it.next().getValue().bytes;
+            it.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    private void remove(List<Object> key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            currentBytes -= entry.bytes;
+        }
+    }
+
+    static boolean hasUpdates(Map<String, Object> summary) {
+        if (summary == null) {
+            return false;
+        }
+        for (Object value : summary.values()) {
+            if (positive(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean positive(Object value) {
+        return value instanceof Number n && n.longValue() > 0;
+    }
+
+    /**
+     * 粗略估算对象占用的堆字节数，只用于预算控制
+     */
+    static long estimateBytes(Object value) {
+        if (value == null) {
+            return 8;
+        }
+        if (value instanceof CharSequence s) {
+            return 40 + 2L * s.length();
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return 16;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long total = 48;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                total += 32 + estimateBytes(e.getKey()) + estimateBytes(e.getValue());
+            }
+            return total;
+        }
+        if (value instanceof Collection<?> collection) {
+            long total = 40;
+            for (Object item : collection) {
+                total += 8 + estimateBytes(item);
+            }
+            return total;
+        }
+        if (value instanceof Entity entity) {
+            return 64 + estimateBytes(entity.asMap());
+        }
+        if (value instanceof Path path) {
+            long total = 48;
+            for (Path.Segment segment : path) {
+                total += estimateBytes(segment.relationship()) + estimateBytes(segment.end());
+            }
+            return total + estimateBytes(path.start());
+        }
+        return 64;
+    }
+
+    private record Entry(ReadPage page, long bytes, Set<String> labels, long createdAt) {
+    }
+
+    /**
+     * 查找结果：page 为空表示未命中，generation 是查找时的失效代数
+     */
+    private record Lookup(ReadPage page, long generation) {
+    }
+}
@@ -0,0 +1,187 @@
+package mcp.canary.neo4j.cache;
+
+import jakarta.annotation.PreDestroy;
+import mcp.canary.neo4j.service.Neo4jService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * get-neo4j-schema 的缓存
+ * 完整 Schema 由 apoc.meta.data() 在后台线程生成，包含节点标签和关系类型各自的属性以及节点上的关系。
+ * 写入统计可能引入新标签、关系类型或属性键时，先用 db.labels/db.relationshipTypes/db.propertyKeys
+ * 做一次廉价的 token 比对，只有确实出现新 token 才让缓存失效并在后台重新生成。
+ * APOC 在限定时间内没有返回（或不可用）时，用 token 拼出的简版 Schema 先行返回。
+ */
+@Component
+public class SchemaCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaCache.class);
+
+    static final String APOC_SCHEMA_QUERY = """
+            CALL apoc.meta.data() YIELD label, property, type, elementType, other
+            WITH elementType, label,
+                 collect(CASE WHEN type <> 'RELATIONSHIP' THEN property END) AS properties,
+                 collect(CASE WHEN type = 'RELATIONSHIP' THEN {type: property, targets: other} END) AS relationships
+            RETURN elementType, label, properties, relationships
+            ORDER BY elementType, label
+            """;
+
+    private final Neo4jService neo4jService;
+    private final Duration apocTimeout;
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "neo4j-schema-refresher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot;
+    private volatile boolean tokenCheckPending;
+    private CompletableFuture<Snapshot> inflight;
+
+    public SchemaCache(Neo4jService neo4jService,
+                       @Value("${neo4j.schema.apoc-timeout:PT3S}") Duration apocTimeout) {
+        this.neo4jService = neo4jService;
+        this.apocTimeout = apocTimeout;
+    }
+
+    /**
+     * 返回当前 Schema：有完整缓存直接返回；否则等待后台 APOC 生成，超时或失败时返回简版
+     */
+    public List<Map<String, Object>> get() {
+        if (tokenCheckPending) {
+            checkTokens();
+        }
+        Snapshot current = snapshot;
+        if (current != null && current.complete()) {
+            return current.rows();
+        }
+        try {
+            return refresh(false).get(apocTimeout.toMillis(), TimeUnit.MILLISECONDS).rows();
+        } catch (TimeoutException | ExecutionException e) {
+            logger.debug("APOC Schema 未能及时返回，使用简版 Schema：{}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        current = snapshot;
+        if (current != null) {
+            return current.rows();
+        }
+        Snapshot cheap = cheapSnapshot(loadTokens());
+        publish(cheap);
+        return cheap.rows();
+    }
+
+    /**
+     * 写入后调用：只有可能引入新 token 的写入才需要做 token 比对
+     */
+    public void onWrite(Map<String, Object> summary) {
+        if (summary == null) {
+            return;
+        }
+        for (String key : List.of("nodesCreated", "relationshipsCreated", "propertiesSet", "labelsAdded")) {
+            if (summary.get(key) instanceof Number n && n.longValue() > 0) {
+                tokenCheckPending = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 后台检查：首次启动时预热，之后只在有待比对的写入时做 token 比对
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${neo4j.schema.check-interval:PT10S}")
+    public void backgroundCheck() {
+        try {
+            if (snapshot == null) {
+                refresh(false);
+            } else if (tokenCheckPending) {
+                checkTokens();
+            }
+        } catch (Exception e) {
+            logger.warn("后台刷新 Schema 失败：{}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    void checkTokens() {
+        tokenCheckPending = false;
+        Tokens tokens = loadTokens();
+        Snapshot current = snapshot;
+        if (current == null || !tokens.equals(current.tokens())) {
+            logger.info("检测到新的标签、关系类型或属性键，重新生成 Schema");
+            publish(cheapSnapshot(tokens));
+            refresh(true);
+        }
+    }
+
+    /**
+     * 提交一次后台 APOC 生成。已有进行中的生成时复用；force 为 true 时在其后重新排队一次，
+     * 保证拿到的是 token 变化之后的结果。
+     */
+    synchronized CompletableFuture<Snapshot> refresh(boolean force) {
+        if (!force && inflight != null && !inflight.isDone()) {
+            return inflight;
+        }
+        inflight = CompletableFuture.supplyAsync(() -> {
+            Tokens tokens = loadTokens();
+            List<Map<String, Object>> rows = neo4jService.execute(APOC_SCHEMA_QUERY, null);
+            Snapshot complete = new Snapshot(List.copyOf(rows), tokens, true);
+            publish(complete);
+            return complete;
+        }, refresher);
+        return inflight;
+    }
+
+    private synchronized void publish(Snapshot next) {
+        Snapshot current = snapshot;
+        // 简版不覆盖 token 相同的完整版
+        if (!next.complete() && current != null && current.complete() && current.tokens().equals(next.tokens())) {
+            return;
+        }
+        snapshot = next;
+    }
+
+    private Tokens loadTokens() {
+        return new Tokens(
+                column("CALL db.labels() YIELD label RETURN label", "label"),
+                column("CALL db.relationshipTypes() YIELD relationshipType RETURN relationshipType", "relationshipType"),
+                column("CALL db.propertyKeys() YIELD propertyKey RETURN propertyKey", "propertyKey"));
+    }
+
+    private Set<String> column(String query, String key) {
+        Set<String> values = new TreeSet<>();
+        for (Map<String, Object> row : neo4jService.execute(query, null)) {
+            values.add(String.valueOf(row.get(key)));
+        }
+        return values;
+    }
+
+    private static Snapshot cheapSnapshot(Tokens tokens) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (String label : tokens.labels()) {
+            rows.add(Map.of("elementType", "node", "label", label));
+        }
+        for (String type : tokens.relationshipTypes()) {
+            rows.add(Map.of("elementType", "relationship", "label", type));
+        }
+        rows.add(Map.of("elementType", "propertyKeys", "properties", List.copyOf(tokens.propertyKeys())));
+        return new Snapshot(List.copyOf(rows), tokens, false);
+    }
+
+    record Tokens(Set<String> labels, Set<String> relationshipTypes, Set<String> propertyKeys) {
+    }
+
+    record Snapshot(List<Map<String, Object>> rows, Tokens tokens, boolean complete) {
+    }
+}
@@ -0,0 +1,228 @@
+package mcp.canary.neo4j.coalesce;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import mcp.canary.neo4j.cypher.CypherText;
+import mcp.canary.neo4j.service.BatchWriteResult;
+import mcp.canary.neo4j.service.Neo4jService;
+import mcp.canary.neo4j.service.WriteStatement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 合并并发写入
+ * 窗口期内到达的、参数化后文本相同的 MERGE 写入攒成一批，在同一个写事务中执行、一次提交，
+ * 减少并发会话各自提交时在共享节点上的锁竞争。批内语句按参数排序后执行，
+ * 并发的批次以相同顺序加锁，避免互相等待形成死锁。
+ * 每条语句单独执行，调用方拿到的仍是自己那条语句的统计；整批失败时逐条重试，只有出错的调用收到异常。
+ * 调用方取消返回值时，尚未执行的语句从批中移除；单独执行的语句随之取消，已在批事务中执行的语句不受影响。
+ */
+@Component
+public class WriteCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteCoalescer.class);
+
+    private static final Pattern MERGE = Pattern.compile("(?i)^\\s*MERGE\\b");
+
+    private static final Comparator<Pending> LOCK_ORDER =
+            Comparator.comparing(pending -> String.valueOf(new TreeMap<>(pending.params())));
+
+    private final Neo4jService neo4jService;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxBatch;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSize;
+    private final DistributionSummary batchFill;
+    private final Map<String, List<Pending>> batches = new HashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "neo4j-write-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WriteCoalescer(Neo4jService neo4jService,
+                          @Value("${neo4j.coalesce.enabled:false}") boolean enabled,
+                          @Value("${neo4j.coalesce.window:PT0.005S}") Duration window,
+                          @Value("${neo4j.coalesce.max-batch:50}") int maxBatch,
+                          MeterRegistry meterRegistry) {
+        if (maxBatch <= 0) {
+            throw new IllegalArgumentException("neo4j.coalesce.max-batch 必须大于 0");
+        }
+        this.neo4jService = neo4jService;
+        this.enabled = enabled;
+        this.window = window;
+        this.maxBatch = maxBatch;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = DistributionSummary.builder("neo4j.coalesce.batch.size")
+                .description("每批合并的写入条数")
+                .register(meterRegistry);
+        this.batchFill = DistributionSummary.builder("neo4j.coalesce.batch.fill")
+                .description("每批条数占 max-batch 的比例")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 是否走合并：开启且是以 MERGE 开头的写入
+     */
+    public boolean accepts(String query) {
+        return enabled && query != null && MERGE.matcher(query).find();
+    }
+
+    /**
+     * 提交一条已参数化的写入，等同批语句一起提交后返回本条语句的统计
+     *
+     * @param timeout 为 null 时使用 neo4j.tx-timeout.default；同一批取其中最长的超时
+     * @return 取消它时，语句还没执行就不再执行
+     */
+    public CompletionStage<Map<String, Object>> submit(String query, Map<String, Object> params, Duration timeout) {
+        Pending pending = new Pending(query, params != null ? params : Map.of(), timeout, new CompletableFuture<>());
+        String key = CypherText.normalize(query);
+        List<Pending> full = null;
+        synchronized (batches) {
+            List<Pending> batch = batches.get(key);
+            if (batch == null) {
+                batch = new ArrayList<>();
+                batches.put(key, batch);
+                List<Pending> scheduled = batch;
+                flusher.schedule(() -> flush(key, scheduled, "window"), window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            batch.add(pending);
+            if (batch.size() >= maxBatch) {
+                batches.remove(key);
+                full = batch;
+            }
+        }
+        pending.result().whenComplete((stats, error) -> {
+            if (pending.result().isCancelled()) {
+                withdraw(key, pending);
+            }
+        });
+        if (full != null) {
+            execute(full, "full");
+        }
+        return pending.result();
+    }
+
+    /**
+     * 把已取消的语句从尚未执行的批中移除；批已取出执行时由 execute 跳过
+     */
+    private void withdraw(String key, Pending pending) {
+        synchronized (batches) {
+            List<Pending> batch = batches.get(key);
+            if (batch != null && batch.remove(pending)) {
+                Counter.builder("neo4j.coalesce.cancelled").register(meterRegistry).increment();
+            }
+        }
+    }
+
+    private void flush(String key, List<Pending> batch, String cause) {
+        synchronized (batches) {
+            // 已因达到 max-batch 提前执行
+            if (!batches.remove(key, batch)) {
+                return;
+            }
+        }
+        execute(batch, cause);
+    }
+
+    private void execute(List<Pending> pendings, String cause) {
+        List<Pending> batch = pendings.stream().filter(pending -> !pending.result().isDone()).toList();
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSize.record(batch.size());
+        batchFill.record((double) batch.size() / maxBatch);
+        Counter.builder("neo4j.coalesce.flushes").tag("cause", cause).register(meterRegistry).increment();
+        if (batch.size() == 1) {
+            executeAlone(batch.get(0));
+            return;
+        }
+        List<Pending> ordered = new ArrayList<>(batch);
+        ordered.sort(LOCK_ORDER);
+        List<WriteStatement> statements = ordered.stream()
+                .map(pending -> new WriteStatement(pending.query(), pending.params()))
+                .toList();
+        neo4jService.executeWriteBatchAsync(statements, longest(ordered)).whenComplete((result, error) -> {
+            if (error == null) {
+                complete(ordered, result);
+                return;
+            }
+            logger.debug("合并写入失败，逐条重试 {} 条：{}", ordered.size(), error.getMessage());
+            Counter.builder("neo4j.coalesce.fallbacks").register(meterRegistry).increment();
+            ordered.forEach(this::executeAlone);
+        });
+    }
+
+    private static void complete(List<Pending> ordered, BatchWriteResult result) {
+        for (int i = 0; i < ordered.size(); i++) {
+            ordered.get(i).result().complete(result.getStatements().get(i));
+        }
+    }
+
+    private void executeAlone(Pending pending) {
+        if (pending.result().isDone()) {
+            return;
+        }
+        CompletionStage<Map<String, Object>> stage;
+        try {
+            stage = neo4jService.executeWriteWithSummaryAsync(pending.query(), pending.params(), pending.timeout());
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+            return;
+        }
+        stage.whenComplete((stats, error) -> {
+            if (error != null) {
+                pending.result().completeExceptionally(error);
+            } else {
+                pending.result().complete(stats);
+            }
+        });
+        // 单独执行的语句可以随调用方取消，由 Neo4jService 关闭会话回滚
+        pending.result().whenComplete((stats, error) -> {
+            if (pending.result().isCancelled()) {
+                stage.toCompletableFuture().cancel(true);
+            }
+        });
+    }
+
+    private static Duration longest(List<Pending> batch) {
+        Duration longest = null;
+        for (Pending pending : batch) {
+            if (pending.timeout() == null) {
+                return null;
+            }
+            if (longest == null || pending.timeout().compareTo(longest) > 0) {
+                longest = pending.timeout();
+            }
+        }
+        return longest;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+    }
+
+    private record Pending(String query, Map<String, Object> params, Duration timeout,
+                           CompletableFuture<Map<String, Object>> result) {
+    }
+}
@@ -0,0 +1,70 @@
+package mcp.canary.neo4j.cypher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 工具入口的查询参数化
+ * 执行前把字面量提取为参数（见 {@link CypherText#parameterize}），并统计执行计划缓存命中率。
+ * 驱动不返回服务端计划缓存是否命中，这里按与服务端相同的 LRU 容量（server.db.query_cache_size，默认 1000）
+ * 记录最近执行过的查询文本来估算：文本出现过即视为命中。
+ */
+@Component
+public class CypherParameterizer {
+
+    private final boolean enabled;
+    private final Map<String, Boolean> recentPlans;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CypherParameterizer(@Value("${neo4j.cypher.auto-parameterize:true}") boolean enabled,
+                               @Value("${neo4j.cypher.plan-cache-size:1000}") int planCacheSize,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.recentPlans = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > planCacheSize;
+            }
+        };
+        this.hits = Counter.builder("neo4j.cypher.plan.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("neo4j.cypher.plan.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("neo4j.cypher.plan.cache.hit.ratio", this, CypherParameterizer::hitRatio)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 参数化查询并记录一次计划缓存访问；关闭自动参数化时只做统计
+     */
+    public CypherText.Parameterized apply(String query, Map<String, Object> params) {
+        CypherText.Parameterized parameterized = enabled
+                ? CypherText.parameterize(query, params)
+                : new CypherText.Parameterized(query, params);
+        record(parameterized.query());
+        return parameterized;
+    }
+
+    /**
+     * 估算的计划缓存命中率，尚无访问时为 0
+     */
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private void record(String query) {
+        // 服务端计划缓存以去掉首尾空白的查询文本为键
+        String key = query == null ? "" : query.strip();
+        boolean hit;
+        synchronized (recentPlans) {
+            hit = recentPlans.put(key, Boolean.TRUE) != null;
+        }
+        (hit ? hits : misses).increment();
+    }
+}
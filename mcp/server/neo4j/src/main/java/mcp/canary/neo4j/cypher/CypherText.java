@@ -0,0 +1,551 @@
+package mcp.canary.neo4j.cypher;
+
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cypher 文本工具
+ * 基于一个只识别字符串、反引号标识符和注释的轻量扫描器，不做完整语法解析。
+ */
+public final class CypherText {
+
+    /**
+     * 节点模式的左括号：前面不是标识符（排除函数调用），括号内是可选变量名加 : ) { 之一
+     */
+    private static final Pattern NODE_PATTERN = Pattern.compile(
+            "(?<![\\w.$`])\\(\\s*(?:[A-Za-z_]\\w*|`[^`]*`)?\\s*([:){])");
+
+    /**
+     * 标签或关系类型：跟在 : | & ! 后面的标识符
+     */
+    private static final Pattern LABEL = Pattern.compile("[:|&!]\\s*([A-Za-z_]\\w*|`(?:[^`]|``)+`)");
+
+    /**
+     * 节点模式的变量和标签表达式，如 (n:A:B {...})、(:A|B)；group(1) 是变量，group(2) 是标签表达式
+     */
+    private static final Pattern NODE_LABELS = Pattern.compile(
+            "(?<![\\w.$`])\\(\\s*([A-Za-z_]\\w*|`[^`]*`)?\\s*"
+                    + "((?:[:|&]\\s*!?\\s*(?:[A-Za-z_]\\w*|`(?:[^`]|``)+`)\\s*)*)[){]");
+
+    /**
+     * SET n:A:B 形式给已有节点加标签
+     */
+    private static final Pattern SET_LABELS = Pattern.compile(
+            "(?i)\\bSET\\s+([A-Za-z_]\\w*|`[^`]*`)\\s*((?::\\s*(?:[A-Za-z_]\\w*|`(?:[^`]|``)+`)\\s*)+)");
+
+    private static final Pattern PROCEDURE_CALL = Pattern.compile("(?i)\\bCALL\\s+[A-Za-z_]");
+
+    /**
+     * 管理命令（建索引、约束、SHOW 等）：这些语句的部分位置不接受参数，不做自动参数化
+     */
+    private static final Pattern ADMIN_COMMAND = Pattern.compile(
+            "(?i)^\\s*(?:SHOW|DROP|ALTER|GRANT|DENY|REVOKE|START|STOP|ENABLE|TERMINATE"
+                    + "|CREATE\\s+(?:OR\\s+REPLACE\\s+)?(?:\\w+\\s+)?(?:INDEX|CONSTRAINT|DATABASE|ALIAS|USER|ROLE))\\b");
+
+    /**
+     * 查询开头的 EXPLAIN / PROFILE 前缀
+     */
+    private static final Pattern PLAN_PREFIX = Pattern.compile("(?i)^\\s*(EXPLAIN|PROFILE)\\b\\s*");
+
+    /**
+     * 可能读取或修改已有节点的子句；MERGE 的 ON CREATE SET 单独处理
+     */
+    private static final Pattern EXISTING_NODE_CLAUSE = Pattern.compile(
+            "(?i)\\b(MATCH|SET|REMOVE|DELETE|FOREACH|CALL|LOAD)\\b");
+
+    private static final Pattern ON_CREATE_SET = Pattern.compile("(?i)\\bON\\s+CREATE\\s+SET\\b");
+
+    private static final Pattern UNION = Pattern.compile("(?i)\\bUNION\\b");
+
+    private static final Pattern RETURN = Pattern.compile("(?i)\\bRETURN\\b");
+
+    private static final Pattern LIMIT = Pattern.compile("(?i)\\bLIMIT\\b");
+
+    static final String LITERAL_PARAM_PREFIX = "__lit";
+
+    private CypherText() {
+    }
+
+    /**
+     * 归一化：去掉注释，把字符串字面量之外的连续空白折叠为一个空格，首尾去空白。
+     * 只有空白或注释不同的查询归一化后相同。
+     */
+    public static String normalize(String query) {
+        if (query == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(query.length());
+        boolean pendingSpace = false;
+        int i = 0;
+        int n = query.length();
+        while (i < n) {
+            char c = query.charAt(i);
+            if (c == '/' && i + 1 < n && query.charAt(i + 1) == '/') {
+                i = skipLineComment(query, i);
+                pendingSpace = true;
+                continue;
+            }
+            if (c == '/' && i + 1 < n && query.charAt(i + 1) == '*') {
+                i = skipBlockComment(query, i);
+                pendingSpace = true;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+                i++;
+                continue;
+            }
+            if (pendingSpace && out.length() > 0) {
+                out.append(' ');
+            }
+            pendingSpace = false;
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = skipQuoted(query, i);
+                out.append(query, i, end);
+                i = end;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * 把字符串字面量的内容替换为空串（保留引号），注释替换为空格，反引号标识符保留。
+     * 用于在不被字面量内容干扰的前提下做正则分析。
+     */
+    public static String mask(String query) {
+        if (query == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(query.length());
+        int i = 0;
+        int n = query.length();
+        while (i < n) {
+            char c = query.charAt(i);
+            if (c == '/' && i + 1 < n && query.charAt(i + 1) == '/') {
+                i = skipLineComment(query, i);
+                out.append(' ');
+            } else if (c == '/' && i + 1 < n && query.charAt(i + 1) == '*') {
+                i = skipBlockComment(query, i);
+                out.append(' ');
+            } else if (c == '\'' || c == '"') {
+                i = skipQuoted(query, i);
+                out.append(c).append(c);
+            } else if (c == '`') {
+                int end = skipQuoted(query, i);
+                out.append(query, i, end);
+                i = end;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * 写入是否只会新建节点：没有 MATCH、SET（MERGE 的 ON CREATE SET 除外）、REMOVE、DELETE、FOREACH、CALL、LOAD CSV。
+     * 只有这类写入可以按查询中的标签失效缓存；其余写入可能修改已有节点，而已有节点可能还带着查询中没有出现的标签。
+     */
+    public static boolean createsOnly(String query) {
+        String masked = ON_CREATE_SET.matcher(mask(query)).replaceAll(" ");
+        return !EXISTING_NODE_CLAUSE.matcher(masked).find();
+    }
+
+    /**
+     * 查询涉及的标签和关系类型。
+     * 只有当所有节点模式都带标签、并且没有调用过程时才能确定范围，否则返回 empty，表示可能涉及任意标签。
+     */
+    public static Optional<Set<String>> labelScope(String query) {
+        String masked = mask(query);
+        if (PROCEDURE_CALL.matcher(masked).find()) {
+            return Optional.empty();
+        }
+        Matcher node = NODE_PATTERN.matcher(masked);
+        while (node.find()) {
+            if (!":".equals(node.group(1))) {
+                return Optional.empty();
+            }
+        }
+        Set<String> labels = new HashSet<>();
+        Matcher label = LABEL.matcher(masked);
+        while (label.find()) {
+            labels.add(unquote(label.group(1)));
+        }
+        return labels.isEmpty() ? Optional.empty() : Optional.of(labels);
+    }
+
+    /**
+     * 写入可能改动的节点标签：节点模式和 SET n:Label 中出现的标签，不含关系类型。
+     * 有过程调用，或者某个具名的节点变量在查询中从未带过标签（如 MATCH (p:Person)-->(m) SET m.x = 1）时
+     * 无法确定，返回 empty；不带变量也不带标签的匿名节点不影响结果。
+     */
+    public static Optional<Set<String>> nodeLabels(String query) {
+        String masked = mask(query);
+        if (PROCEDURE_CALL.matcher(masked).find()) {
+            return Optional.empty();
+        }
+        Set<String> labels = new HashSet<>();
+        Set<String> labelled = new HashSet<>();
+        Set<String> unlabelled = new HashSet<>();
+        for (Pattern pattern : List.of(NODE_LABELS, SET_LABELS)) {
+            Matcher node = pattern.matcher(masked);
+            while (node.find()) {
+                String variable = node.group(1) != null ? unquote(node.group(1)) : null;
+                Matcher label = LABEL.matcher(node.group(2));
+                boolean any = false;
+                while (label.find()) {
+                    labels.add(unquote(label.group(1)));
+                    any = true;
+                }
+                if (variable != null) {
+                    (any ? labelled : unlabelled).add(variable);
+                }
+            }
+        }
+        return labels.isEmpty() || !labelled.containsAll(unlabelled) ? Optional.empty() : Optional.of(labels);
+    }
+
+    /**
+     * 自动参数化：把字符串和数字字面量替换为 $__litN 参数，结构相同的查询因此得到相同文本，
+     * 可以命中 Neo4j 的执行计划缓存。
+     * 变长路径的跳数（*1..3）和管理命令不参数化；没有可提取的字面量时原样返回 query 和 params。
+     */
+    public static Parameterized parameterize(String query, Map<String, Object> params) {
+        if (query == null || ADMIN_COMMAND.matcher(mask(query)).find()) {
+            return new Parameterized(query, params);
+        }
+        StringBuilder out = new StringBuilder(query.length());
+        Map<String, Object> extracted = new LinkedHashMap<>();
+        int next = 0;
+        int i = 0;
+        int n = query.length();
+        while (i < n) {
+            char c = query.charAt(i);
+            int end;
+            Object value;
+            if (c == '/' && i + 1 < n && query.charAt(i + 1) == '/') {
+                end = skipLineComment(query, i);
+                value = null;
+            } else if (c == '/' && i + 1 < n && query.charAt(i + 1) == '*') {
+                end = skipBlockComment(query, i);
+                value = null;
+            } else if (c == '\'' || c == '"') {
+                end = skipQuoted(query, i);
+                value = end - i >= 2 ? unescape(query.substring(i + 1, end - 1)) : null;
+            } else if (c == '`') {
+                end = skipQuoted(query, i);
+                value = null;
+            } else if (Character.isLetter(c) || c == '_' || c == '$') {
+                end = i + 1;
+                while (end < n && (Character.isLetterOrDigit(query.charAt(end)) || query.charAt(end) == '_')) {
+                    end++;
+                }
+                value = null;
+            } else if (Character.isDigit(c)) {
+                end = skipNumber(query, i);
+                value = isRangeBound(query, i, end) ? null : parseNumber(query.substring(i, end));
+            } else {
+                end = i + 1;
+                value = null;
+            }
+            if (value == null) {
+                out.append(query, i, end);
+            } else {
+                String name;
+                do {
+                    name = LITERAL_PARAM_PREFIX + next++;
+                } while (params != null && params.containsKey(name));
+                extracted.put(name, value);
+                out.append('$').append(name);
+            }
+            i = end;
+        }
+        if (extracted.isEmpty()) {
+            return new Parameterized(query, params);
+        }
+        if (params != null) {
+            extracted.putAll(params);
+        }
+        return new Parameterized(out.toString(), extracted);
+    }
+
+    /**
+     * 查询形状的指纹：参数化并归一化后取哈希，只有字面量、空白或注释不同的查询指纹相同
+     */
+    public static String fingerprint(String query) {
+        String shape = normalize(parameterize(query, null).query());
+        return String.format("%08x", shape.hashCode());
+    }
+
+    /**
+     * 去掉查询开头的 EXPLAIN / PROFILE，便于重新加上需要的前缀
+     */
+    public static String stripPlanPrefix(String query) {
+        return query == null ? "" : PLAN_PREFIX.matcher(query).replaceFirst("");
+    }
+
+    /**
+     * 查询开头的 EXPLAIN 或 PROFILE（大写），没有时为空串
+     */
+    public static String planPrefix(String query) {
+        if (query == null) {
+            return "";
+        }
+        Matcher matcher = PLAN_PREFIX.matcher(query);
+        return matcher.find() ? matcher.group(1).toUpperCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * 给最外层 RETURN 追加 LIMIT。
+     * 只处理以 RETURN 结尾、没有 UNION、最后一个 RETURN 之后没有 LIMIT 也不在子查询里的查询，其余情况返回 empty。
+     */
+    public static Optional<String> appendLimit(String query, long limit) {
+        String masked = mask(query);
+        if (UNION.matcher(masked).find()) {
+            return Optional.empty();
+        }
+        Matcher matcher = RETURN.matcher(masked);
+        int last = -1;
+        while (matcher.find()) {
+            last = matcher.end();
+        }
+        if (last < 0) {
+            return Optional.empty();
+        }
+        String tail = masked.substring(last);
+        if (LIMIT.matcher(tail).find() || tail.indexOf('}') >= 0) {
+            return Optional.empty();
+        }
+        String trimmed = query.strip();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).stripTrailing();
+        }
+        // 换行追加，避免被末尾的行注释吞掉
+        return Optional.of(trimmed + "\nLIMIT " + limit);
+    }
+
+    /**
+     * 参数化后的查询和合并后的参数
+     */
+    public record Parameterized(String query, Map<String, Object> params) {
+    }
+
+    /**
+     * 用反引号包裹标识符（标签、属性名、索引名），内部反引号按 Cypher 规则转义
+     */
+    public static String quoteIdentifier(String identifier) {
+        return "`" + identifier.replace("`", "``") + "`";
+    }
+
+    /**
+     * 归一化查询与参数的 SHA-256（十六进制），参数按 canonical 序列化，嵌套 Map 的键顺序不影响结果。
+     * 用作幂等键和分页游标的语句指纹
+     */
+    public static String hash(String query, Map<String, Object> params) {
+        StringBuilder text = new StringBuilder(normalize(query)).append('\u0000');
+        canonical(params != null ? params : Map.of(), text);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按类型前缀写出值：字符串带长度，Map 按键排序后逐层展开，列表和数组保持原有顺序
+     */
+    private static void canonical(Object value, StringBuilder out) {
+        if (value == null) {
+            out.append('N');
+        } else if (value instanceof CharSequence s) {
+            out.append('S').append(s.length()).append(':').append(s);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value instanceof Boolean ? 'B' : 'D').append(value).append(';');
+        } else if (value instanceof Map<?, ?> map) {
+            TreeMap<String, Object> sorted = new TreeMap<>();
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                StringBuilder key = new StringBuilder();
+                canonical(e.getKey(), key);
+                sorted.put(key.toString(), e.getValue());
+            }
+            out.append('M').append(sorted.size()).append('{');
+            for (Map.Entry<String, Object> e : sorted.entrySet()) {
+                out.append(e.getKey());
+                canonical(e.getValue(), out);
+            }
+            out.append('}');
+        } else if (value instanceof Collection<?> collection) {
+            out.append('L').append(collection.size()).append('[');
+            for (Object item : collection) {
+                canonical(item, out);
+            }
+            out.append(']');
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            out.append('L').append(length).append('[');
+            for (int i = 0; i < length; i++) {
+                canonical(Array.get(value, i), out);
+            }
+            out.append(']');
+        } else {
+            String text = Objects.toString(value);
+            out.append('O').append(text.length()).append(':').append(text);
+        }
+    }
+
+    static String unquote(String identifier) {
+        if (identifier.length() >= 2 && identifier.startsWith("`") && identifier.endsWith("`")) {
+            return identifier.substring(1, identifier.length() - 1).replace("``", "`");
+        }
+        return identifier;
+    }
+
+    static int skipQuoted(String query, int start) {
+        char quote = query.charAt(start);
+        int i = start + 1;
+        int n = query.length();
+        while (i < n) {
+            char c = query.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                if (quote == '`' && i + 1 < n && query.charAt(i + 1) == '`') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return n;
+    }
+
+    private static int skipNumber(String query, int start) {
+        int n = query.length();
+        int i = start;
+        if (query.charAt(i) == '0' && i + 1 < n && "xXoO".indexOf(query.charAt(i + 1)) >= 0) {
+            i += 2;
+            while (i < n && (Character.isLetterOrDigit(query.charAt(i)) || query.charAt(i) == '_')) {
+                i++;
+            }
+            return i;
+        }
+        i = skipDigits(query, i);
+        if (i + 1 < n && query.charAt(i) == '.' && Character.isDigit(query.charAt(i + 1))) {
+            i = skipDigits(query, i + 1);
+        }
+        if (i < n && (query.charAt(i) == 'e' || query.charAt(i) == 'E')) {
+            int j = i + 1;
+            if (j < n && (query.charAt(j) == '+' || query.charAt(j) == '-')) {
+                j++;
+            }
+            if (j < n && Character.isDigit(query.charAt(j))) {
+                i = skipDigits(query, j);
+            }
+        }
+        // 数字后面紧跟标识符字符时不是合法的数字字面量，整体原样保留
+        while (i < n && (Character.isLetterOrDigit(query.charAt(i)) || query.charAt(i) == '_')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(String query, int start) {
+        int i = start;
+        while (i < query.length() && (Character.isDigit(query.charAt(i)) || query.charAt(i) == '_')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 变长路径 [*1..3] 中的跳数必须是字面量：前面是 * 或 ..，或者后面紧跟 ..
+     */
+    private static boolean isRangeBound(String query, int start, int end) {
+        int before = start - 1;
+        while (before >= 0 && Character.isWhitespace(query.charAt(before))) {
+            before--;
+        }
+        if (before >= 0 && (query.charAt(before) == '*'
+                || (query.charAt(before) == '.' && before > 0 && query.charAt(before - 1) == '.'))) {
+            return true;
+        }
+        int after = end;
+        while (after < query.length() && Character.isWhitespace(query.charAt(after))) {
+            after++;
+        }
+        return query.startsWith("..", after);
+    }
+
+    private static Number parseNumber(String text) {
+        String digits = text.replace("_", "");
+        try {
+            if (digits.length() > 2 && (digits.charAt(1) == 'x' || digits.charAt(1) == 'X')) {
+                return Long.parseLong(digits.substring(2), 16);
+            }
+            if (digits.length() > 2 && (digits.charAt(1) == 'o' || digits.charAt(1) == 'O')) {
+                return Long.parseLong(digits.substring(2), 8);
+            }
+            if (digits.indexOf('.') >= 0 || digits.indexOf('e') >= 0 || digits.indexOf('E') >= 0) {
+                return Double.parseDouble(digits);
+            }
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            // 超出 long 范围或不是合法数字，保留原文交给服务端报错
+            return null;
+        }
+    }
+
+    private static String unescape(String body) {
+        if (body.indexOf('\\') < 0) {
+            return body;
+        }
+        StringBuilder out = new StringBuilder(body.length());
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c != '\\' || i + 1 >= body.length()) {
+                out.append(c);
+                continue;
+            }
+            char e = body.charAt(++i);
+            switch (e) {
+                case 'n' -> out.append('\n');
+                case 't' -> out.append('\t');
+                case 'r' -> out.append('\r');
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'u' -> {
+                    if (i + 4 < body.length() && body.substring(i + 1, i + 5).matches("[0-9a-fA-F]{4}")) {
+                        out.append((char) Integer.parseInt(body.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    } else {
+                        out.append('\\').append(e);
+                    }
+                }
+                default -> out.append(e);
+            }
+        }
+        return out.toString();
+    }
+
+    private static int skipLineComment(String query, int start) {
+        int end = query.indexOf('\n', start);
+        return end < 0 ? query.length() : end;
+    }
+
+    private static int skipBlockComment(String query, int start) {
+        int end = query.indexOf("*/", start + 2);
+        return end < 0 ? query.length() : end + 2;
+    }
+}
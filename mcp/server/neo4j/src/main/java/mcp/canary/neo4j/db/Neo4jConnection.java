@@ -1,23 +1,40 @@
 package mcp.canary.neo4j.db;
 
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.neo4j.driver.AccessMode;
 import org.neo4j.driver.AuthTokens;
 import org.neo4j.driver.Config;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.MetricsAdapter;
 import org.neo4j.driver.Session;
 import org.neo4j.driver.SessionConfig;
-import org.neo4j.driver.exceptions.Neo4jException;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.exceptions.ServiceUnavailableException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Neo4j 数据库连接管理类
  * 负责创建和管理 Neo4j 驱动程序的连接
+ * 驱动指标通过 Micrometer 全局注册表导出（neo4j.driver.connections.*，按服务器地址区分连接池），
+ * Spring Boot 默认会把自身的 MeterRegistry 加入全局注册表，因此在 /actuator/metrics 和 /actuator/prometheus 可见。
+ * 创建驱动不做网络连接，启动时不等待数据库：连通性在后台异步验证，失败按指数退避重试，
+ * 状态通过 {@link Neo4jHealthIndicator} 暴露。验证通过前 {@link #requireAvailable()} 直接抛出 ServiceUnavailableException，
+ * 工具调用立即失败而不是等待连接超时；运行中遇到 ServiceUnavailableException 时回到未就绪状态并重新验证。
  */
 @Getter
 @Component
@@ -25,32 +42,124 @@ public class Neo4jConnection implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(Neo4jConnection.class);
     private final Driver driver;
+    private final String uri;
     private final String databaseName;
+    @Getter(AccessLevel.NONE)
+    private final Duration initialBackoff;
+    @Getter(AccessLevel.NONE)
+    private final Duration maxBackoff;
+    @Getter(AccessLevel.NONE)
+    private final Duration attemptTimeout;
+
+    private volatile boolean available;
+    private volatile Throwable lastFailure;
+    /**
+     * 验证次数：Reactor 重试回调和健康检查读取在不同线程上
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong attempts = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private boolean verifying;
+    @Getter(AccessLevel.NONE)
+    private boolean closed;
+    @Getter(AccessLevel.NONE)
+    private Disposable verification;
 
     public Neo4jConnection(
             @Value("${neo4j.uri}") String uri,
             @Value("${neo4j.username}") String username,
             @Value("${neo4j.password}") String password,
-            @Value("${neo4j.database:neo4j}") String databaseName) {
+            @Value("${neo4j.database:neo4j}") String databaseName,
+            @Value("${neo4j.pool.max-size:100}") int maxPoolSize,
+            @Value("${neo4j.pool.acquisition-timeout:PT600S}") Duration acquisitionTimeout,
+            @Value("${neo4j.connect.initial-backoff:PT1S}") Duration initialBackoff,
+            @Value("${neo4j.connect.max-backoff:PT30S}") Duration maxBackoff,
+            @Value("${neo4j.connect.attempt-timeout:PT10S}") Duration attemptTimeout) {
         logger.debug("正在初始化与 {} 数据库的连接，数据库名称为 {}", uri, databaseName);
-        this.driver = GraphDatabase.driver(uri, AuthTokens.basic(username, password), config());
-        try {
-            driver.verifyConnectivity();
+        this.driver = GraphDatabase.driver(uri, AuthTokens.basic(username, password),
+                config(maxPoolSize, acquisitionTimeout));
+        this.uri = uri;
+        this.databaseName = databaseName;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.attemptTimeout = attemptTimeout;
+    }
+
+    /**
+     * 在后台验证连通性，失败按 initial-backoff 到 max-backoff 的指数退避一直重试，直到成功或连接关闭。
+     * 已在验证或已就绪时不做任何事。
+     */
+    @PostConstruct
+    public synchronized void verifyInBackground() {
+        if (closed || verifying || available) {
+            return;
+        }
+        verifying = true;
+        verification = Mono.defer(() -> {
+                    attempts.incrementAndGet();
+                    return Mono.fromCompletionStage(driver.verifyConnectivityAsync());
+                })
+                .timeout(attemptTimeout)
+                .doOnError(e -> {
+                    lastFailure = e;
+                    logger.warn("第 {} 次验证与 {} 的 Neo4j 连接失败：{}", attempts.get(), uri, e.getMessage());
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, initialBackoff).maxBackoff(maxBackoff))
+                .subscribe(ignored -> { }, e -> finishVerification(false), () -> finishVerification(true));
+    }
+
+    private synchronized void finishVerification(boolean connected) {
+        verifying = false;
+        if (connected) {
+            available = true;
+            lastFailure = null;
             logger.info("已成功连接到位于 {} 的 Neo4j 数据库 {}", uri, databaseName);
-        } catch (Exception e) {
-            logger.error("无法验证与 Neo4j 的连接：{}", e.getMessage());
-            throw new Neo4jException("Neo4j 连接失败: ", e);
         }
-        this.databaseName = databaseName;
     }
 
-    private Config config() {
+    public long getAttempts() {
+        return attempts.get();
+    }
+
+    /**
+     * 连接未就绪时立即抛出 ServiceUnavailableException，避免调用方等待连接超时
+     */
+    public void requireAvailable() {
+        if (!available) {
+            Throwable failure = lastFailure;
+            throw new ServiceUnavailableException("Neo4j 数据库不可用，" + (failure == null
+                    ? "正在建立连接" : "最近一次连接失败：" + failure.getMessage()) + "，请稍后重试");
+        }
+    }
+
+    /**
+     * 查询失败时调用：驱动报告服务不可用时回到未就绪状态，并重新开始后台验证
+     */
+    public void reportFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(cause instanceof ServiceUnavailableException) || !available) {
+            return;
+        }
+        synchronized (this) {
+            if (!available) {
+                return;
+            }
+            available = false;
+            lastFailure = cause;
+        }
+        logger.warn("Neo4j 服务不可用，重新验证连接：{}", cause.getMessage());
+        verifyInBackground();
+    }
+
+    private Config config(int maxPoolSize, Duration acquisitionTimeout) {
         return Config.builder()
                 .withConnectionTimeout(300, TimeUnit.SECONDS)
-                .withMaxConnectionPoolSize(100)
+                .withMaxConnectionPoolSize(maxPoolSize)
                 .withMaxConnectionLifetime(1, TimeUnit.HOURS)
-                .withConnectionAcquisitionTimeout(600, TimeUnit.SECONDS)
+                .withConnectionAcquisitionTimeout(acquisitionTimeout.toMillis(), TimeUnit.MILLISECONDS)
                 .withMaxTransactionRetryTime(300, TimeUnit.SECONDS)
+                .withDriverMetrics()
+                .withMetricsAdapter(MetricsAdapter.MICROMETER)
                 .build();
     }
 
@@ -58,8 +167,48 @@ public class Neo4jConnection implements AutoCloseable {
         return driver.session(SessionConfig.forDatabase(databaseName));
     }
 
+    /**
+     * 创建指定访问模式的会话，集群部署下读会话可路由到从节点
+     */
+    public Session createSession(AccessMode mode) {
+        return driver.session(SessionConfig.builder()
+                .withDatabase(databaseName)
+                .withDefaultAccessMode(mode)
+                .build());
+    }
+
+    /**
+     * 创建指定访问模式和批量拉取大小的会话，结果按 fetchSize 分批从服务端流式拉取
+     */
+    public Session createSession(AccessMode mode, long fetchSize) {
+        return driver.session(SessionConfig.builder()
+                .withDatabase(databaseName)
+                .withDefaultAccessMode(mode)
+                .withFetchSize(fetchSize)
+                .build());
+    }
+
+    /**
+     * 创建异步会话，查询等待期间不占用调用线程；fetchSize 不大于 0 时使用驱动默认值
+     */
+    public AsyncSession createAsyncSession(AccessMode mode, long fetchSize) {
+        SessionConfig.Builder builder = SessionConfig.builder()
+                .withDatabase(databaseName)
+                .withDefaultAccessMode(mode);
+        if (fetchSize > 0) {
+            builder.withFetchSize(fetchSize);
+        }
+        return driver.session(AsyncSession.class, builder.build());
+    }
+
     @Override
     public void close() {
+        synchronized (this) {
+            closed = true;
+            if (verification != null) {
+                verification.dispose();
+            }
+        }
         if (driver != null) {
             try {
                 driver.close();
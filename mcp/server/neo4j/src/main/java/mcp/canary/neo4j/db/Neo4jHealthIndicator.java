@@ -0,0 +1,40 @@
+package mcp.canary.neo4j.db;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Neo4j 连通性健康检查（/actuator/health 中的 neo4j 项）
+ * 只读取 {@link Neo4jConnection} 后台验证的结果，不访问数据库：
+ * 验证通过为 UP，首次验证尚未结束为 UNKNOWN，验证失败为 OUT_OF_SERVICE 并附最近一次错误。
+ * 数据库不可用时服务本身仍然正常（工具调用快速失败），所以不报 DOWN；
+ * 存活和就绪探针（/actuator/health/liveness、/actuator/health/readiness）不包含本项。
+ */
+@Component
+public class Neo4jHealthIndicator implements HealthIndicator {
+
+    private final Neo4jConnection neo4jConnection;
+
+    public Neo4jHealthIndicator(Neo4jConnection neo4jConnection) {
+        this.neo4jConnection = neo4jConnection;
+    }
+
+    @Override
+    public Health health() {
+        Throwable failure = neo4jConnection.getLastFailure();
+        Health.Builder builder;
+        if (neo4jConnection.isAvailable()) {
+            builder = Health.up();
+        } else if (failure == null) {
+            builder = Health.unknown();
+        } else {
+            builder = Health.outOfService().withDetail("error", String.valueOf(failure.getMessage()));
+        }
+        return builder
+                .withDetail("uri", neo4jConnection.getUri())
+                .withDetail("database", neo4jConnection.getDatabaseName())
+                .withDetail("attempts", neo4jConnection.getAttempts())
+                .build();
+    }
+}
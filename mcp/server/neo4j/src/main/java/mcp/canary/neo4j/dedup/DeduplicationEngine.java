@@ -0,0 +1,246 @@
+package mcp.canary.neo4j.dedup;
+
+import mcp.canary.neo4j.cache.QueryResultCache;
+import mcp.canary.neo4j.cypher.CypherText;
+import mcp.canary.neo4j.service.Neo4jService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 分批去重引擎
+ * 全量去重按标签为 name 建立索引，沿索引顺序每次读取一个窗口（batchSize 个节点）的 name，在客户端分组找出重复，
+ * 攒够 batchSize 个重复 name 后在独立事务中调用 apoc.refactor.mergeNodes 合并。
+ * 每次查询只读一个窗口，单个事务和客户端占用的内存只与批大小有关，与图的规模无关。
+ * 增量去重只处理写入登记的标签和 name，不建索引。合并范围限定在同一标签内，未带标签的节点不参与去重。
+ */
+@Component
+public class DeduplicationEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeduplicationEngine.class);
+
+    private static final String NAME_WINDOW = """
+            MATCH (n:%s)
+            WHERE n.name %s $after
+            RETURN n.name AS name
+            ORDER BY n.name
+            LIMIT $window
+            """;
+
+    private static final String COUNT_NAME = """
+            MATCH (n:%s {name: $name})
+            RETURN count(n) AS size
+            """;
+
+    private static final String MERGE_DUPLICATES = """
+            UNWIND $names AS name
+            MATCH (n:%s {name: name})
+            WITH name, collect(n) AS nodes
+            WHERE size(nodes) > 1
+            CALL apoc.refactor.mergeNodes(nodes, {properties:"combine", mergeRels:true})
+            YIELD node
+            RETURN count(node) AS groups, sum(size(nodes) - 1) AS redundant
+            """;
+
+    private final Neo4jService neo4jService;
+    private final QueryResultCache queryResultCache;
+    private final int batchSize;
+    private final ReentrantLock running = new ReentrantLock();
+    private final Set<String> indexedLabels = ConcurrentHashMap.newKeySet();
+
+    public DeduplicationEngine(Neo4jService neo4jService,
+                               QueryResultCache queryResultCache,
+                               @Value("${neo4j.dedup.batch-size:500}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("neo4j.dedup.batch-size 必须大于 0");
+        }
+        this.neo4jService = neo4jService;
+        this.queryResultCache = queryResultCache;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 全量去重：逐个标签沿 name 索引分批扫描重复分组
+     *
+     * @param dryRun   为 true 时只统计重复分组和多余节点数，不建索引也不合并
+     * @param progress 每个批次完成后的进度回调，可为 null
+     */
+    public DeduplicationReport deduplicate(boolean dryRun, Consumer<String> progress) {
+        return locked(dryRun, report -> {
+            for (String label : labels()) {
+                if (!dryRun) {
+                    ensureNameIndex(label);
+                }
+                walkLabel(label, dryRun, report, progress);
+                report.setLabels(report.getLabels() + 1);
+            }
+        });
+    }
+
+    /**
+     * 增量去重：只在给定标签下合并给定 name 的重复节点，name 按批大小切分，每批一个事务。
+     * 不查询库中的全部标签，也不建索引（索引由全量去重建立）
+     *
+     * @param namesByLabel 标签到该标签下被写入的 name
+     */
+    public DeduplicationReport deduplicate(Map<String, ? extends Collection<String>> namesByLabel,
+                                           Consumer<String> progress) {
+        return locked(false, report -> {
+            if (namesByLabel == null) {
+                return;
+            }
+            for (Map.Entry<String, ? extends Collection<String>> entry : namesByLabel.entrySet()) {
+                String label = entry.getKey();
+                List<String> all = List.copyOf(entry.getValue());
+                if (all.isEmpty()) {
+                    continue;
+                }
+                int batch = 0;
+                for (int from = 0; from < all.size(); from += batchSize) {
+                    List<String> chunk = all.subList(from, Math.min(all.size(), from + batchSize));
+                    report.add(mergeBatch(label, ++batch, chunk, progress));
+                }
+                report.setLabels(report.getLabels() + 1);
+            }
+        });
+    }
+
+    private DeduplicationReport locked(boolean dryRun, Consumer<DeduplicationReport> body) {
+        if (!running.tryLock()) {
+            throw new IllegalStateException("已有去重任务正在运行，请稍后再试");
+        }
+        try {
+            long start = System.nanoTime();
+            DeduplicationReport report = new DeduplicationReport(dryRun);
+            body.accept(report);
+            report.setTotalMillis((System.nanoTime() - start) / 1_000_000);
+            logger.info("去重完成：dryRun={}，标签 {} 个，重复分组 {} 个，多余节点 {} 个，耗时 {} ms",
+                    dryRun, report.getLabels(), report.getDuplicateGroups(),
+                    report.getRedundantNodes(), report.getTotalMillis());
+            return report;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    /**
+     * 沿 name 顺序逐个窗口读取，窗口内按 name 计数；窗口读满时最后一个 name 可能延续到下一窗口，
+     * 留到下一窗口（>=）再计数。整个窗口都是同一个 name 时单独计数后跳过它
+     */
+    private void walkLabel(String label, boolean dryRun, DeduplicationReport report, Consumer<String> progress) {
+        String quoted = CypherText.quoteIdentifier(label);
+        String after = "";
+        String operator = ">=";
+        int batch = 0;
+        Map<String, Long> duplicates = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        while (true) {
+            List<Map<String, Object>> rows = neo4jService.execute(NAME_WINDOW.formatted(quoted, operator),
+                    Map.of("after", after, "window", batchSize));
+            TreeMap<String, Long> counts = new TreeMap<>();
+            for (Map<String, Object> row : rows) {
+                counts.merge((String) row.get("name"), 1L, Long::sum);
+            }
+            boolean full = rows.size() >= batchSize;
+            if (full && counts.size() == 1) {
+                String name = counts.firstKey();
+                List<Map<String, Object>> sized = neo4jService.execute(COUNT_NAME.formatted(quoted), Map.of("name", name));
+                counts.put(name, sized.isEmpty() ? 0 : toLong(sized.get(0).get("size")));
+                after = name;
+                operator = ">";
+            } else if (full) {
+                String tail = counts.lastKey();
+                counts.remove(tail);
+                after = tail;
+                operator = ">=";
+            }
+            counts.forEach((name, size) -> {
+                if (size > 1) {
+                    duplicates.put(name, size);
+                }
+            });
+
+            if (duplicates.size() >= batchSize || (!full && !duplicates.isEmpty())) {
+                report.add(flush(label, ++batch, duplicates, dryRun, start, progress));
+                duplicates.clear();
+                start = System.nanoTime();
+            }
+            if (!full) {
+                return;
+            }
+        }
+    }
+
+    private DeduplicationReport.BatchTiming flush(String label, int batch, Map<String, Long> duplicates, boolean dryRun,
+                                                  long start, Consumer<String> progress) {
+        List<String> names = new ArrayList<>(duplicates.keySet());
+        if (!dryRun) {
+            return mergeBatch(label, batch, names, progress);
+        }
+        long redundant = 0;
+        for (long size : duplicates.values()) {
+            redundant += size - 1;
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return notify(new DeduplicationReport.BatchTiming(label, batch, names.size(), redundant, millis), progress);
+    }
+
+    private DeduplicationReport.BatchTiming mergeBatch(String label, int batch, List<String> names,
+                                                       Consumer<String> progress) {
+        long start = System.nanoTime();
+        List<Map<String, Object>> rows = neo4jService.executeWrite(
+                MERGE_DUPLICATES.formatted(CypherText.quoteIdentifier(label)), Map.of("names", names));
+        long groups = 0;
+        long redundant = 0;
+        if (!rows.isEmpty()) {
+            Map<String, Object> row = rows.get(0);
+            groups = toLong(row.get("groups"));
+            redundant = toLong(row.get("redundant"));
+        }
+        if (groups > 0) {
+            // 合并后的节点带有各分组成员的全部标签和属性，不止 label 一个，只能全部失效
+            queryResultCache.invalidateAll();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return notify(new DeduplicationReport.BatchTiming(label, batch, groups, redundant, millis), progress);
+    }
+
+    private DeduplicationReport.BatchTiming notify(DeduplicationReport.BatchTiming timing, Consumer<String> progress) {
+        String message = String.format("标签 %s 第 %d 批：重复分组 %d 个，多余节点 %d 个，耗时 %d ms",
+                timing.getLabel(), timing.getBatch(), timing.getGroups(), timing.getRedundantNodes(), timing.getMillis());
+        logger.debug(message);
+        if (progress != null) {
+            progress.accept(message);
+        }
+        return timing;
+    }
+
+    private List<String> labels() {
+        List<String> labels = new ArrayList<>();
+        for (Map<String, Object> row : neo4jService.execute("CALL db.labels() YIELD label RETURN label", null)) {
+            labels.add((String) row.get("label"));
+        }
+        return labels;
+    }
+
+    private void ensureNameIndex(String label) {
+        if (indexedLabels.contains(label)) {
+            return;
+        }
+        String indexName = "dedup_name_" + label.replaceAll("[^A-Za-z0-9_]", "_")
+                + "_" + Integer.toHexString(label.hashCode());
+        neo4jService.executeWrite("CREATE INDEX " + CypherText.quoteIdentifier(indexName)
+                + " IF NOT EXISTS FOR (n:" + CypherText.quoteIdentifier(label) + ") ON (n.name)", null);
+        indexedLabels.add(label);
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number n ? n.longValue() : 0;
+    }
+}
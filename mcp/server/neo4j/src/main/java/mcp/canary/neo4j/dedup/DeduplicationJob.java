@@ -0,0 +1,176 @@
+package mcp.canary.neo4j.dedup;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import mcp.canary.neo4j.cypher.CypherText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 后台增量去重任务
+ * 写入工具在写入成功后按标签登记被改动的 name，任务按固定间隔只在这些标签下对这些 name 执行合并，
+ * 读路径不再承担任何去重开销。无法从写入语句中识别 name 或节点标签时退化为一次全量去重。
+ */
+@Component
+public class DeduplicationJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeduplicationJob.class);
+
+    /**
+     * 匹配 {name: 'xxx'} 以及 n.name = 'xxx' 两种写法中的字面量
+     */
+    private static final Pattern NAME_LITERAL = Pattern.compile(
+            "(?:\\bname\\s*:|\\.name\\s*=)\\s*(['\"])((?:\\\\.|(?!\\1).)*)\\1");
+
+    private final DeduplicationEngine engine;
+    /**
+     * 标签到待去重的 name；值只在 ConcurrentHashMap 的 merge / remove 中读写
+     */
+    private final Map<String, Set<String>> pendingNames = new ConcurrentHashMap<>();
+    private final AtomicBoolean fullScanPending = new AtomicBoolean(false);
+    private final AtomicLong oldestPendingAt = new AtomicLong(0);
+
+    public DeduplicationJob(DeduplicationEngine engine, MeterRegistry meterRegistry) {
+        this.engine = engine;
+        Gauge.builder("neo4j.dedup.lag", this, DeduplicationJob::lagSeconds)
+                .description("最早一次未处理写入距今的秒数")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("neo4j.dedup.pending.names", this, DeduplicationJob::pendingCount)
+                .description("等待去重的 name 数量")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 根据写入语句和统计摘要登记需要去重的 (标签, name)，标签取自语句中的节点模式（CypherText.nodeLabels）；
+     * 摘要显示没有新建节点或设置属性时忽略。
+     */
+    public void markDirty(String query, Map<String, Object> params, Map<String, Object> summary) {
+        if (!touchesNames(summary)) {
+            return;
+        }
+        Set<String> names = new HashSet<>();
+        collectNames(params, names);
+        if (query != null) {
+            Matcher matcher = NAME_LITERAL.matcher(query);
+            while (matcher.find()) {
+                names.add(matcher.group(2).replaceAll("\\\\(.)", "$1"));
+            }
+        }
+        mark(query != null ? CypherText.nodeLabels(query).orElse(Set.of()) : Set.of(), names);
+    }
+
+    /**
+     * 批量导入后登记 label 下各行的 name
+     */
+    public void markIngested(String label, List<Map<String, Object>> rows, Map<String, Object> summary) {
+        if (!touchesNames(summary)) {
+            return;
+        }
+        Set<String> names = new HashSet<>();
+        collectNames(rows, names);
+        mark(label != null ? Set.of(label) : Set.of(), names);
+    }
+
+    private void mark(Set<String> labels, Set<String> names) {
+        if (labels.isEmpty() || names.isEmpty()) {
+            fullScanPending.set(true);
+        } else {
+            for (String label : labels) {
+                pendingNames.merge(label, new HashSet<>(names), (current, added) -> {
+                    current.addAll(added);
+                    return current;
+                });
+            }
+        }
+        oldestPendingAt.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    @Scheduled(initialDelayString = "${neo4j.dedup.interval:PT30S}",
+            fixedDelayString = "${neo4j.dedup.interval:PT30S}")
+    public void run() {
+        if (oldestPendingAt.get() == 0) {
+            return;
+        }
+        long markedAt = oldestPendingAt.getAndSet(0);
+        boolean full = fullScanPending.getAndSet(false);
+        Map<String, Set<String>> names = new HashMap<>();
+        for (String label : List.copyOf(pendingNames.keySet())) {
+            Set<String> taken = pendingNames.remove(label);
+            if (taken != null) {
+                names.put(label, taken);
+            }
+        }
+
+        try {
+            if (full) {
+                engine.deduplicate(false, null);
+            } else {
+                engine.deduplicate(names, null);
+            }
+        } catch (Exception e) {
+            logger.warn("后台去重失败，将在下个周期重试：{}", e.getMessage());
+            names.forEach((label, taken) -> pendingNames.merge(label, taken, (current, added) -> {
+                current.addAll(added);
+                return current;
+            }));
+            if (full) {
+                fullScanPending.set(true);
+            }
+            oldestPendingAt.accumulateAndGet(markedAt, (cur, old) -> cur == 0 ? old : Math.min(cur, old));
+        }
+    }
+
+    double lagSeconds() {
+        long markedAt = oldestPendingAt.get();
+        return markedAt == 0 ? 0 : (System.currentTimeMillis() - markedAt) / 1000.0;
+    }
+
+    Map<String, Set<String>> pendingNames() {
+        return pendingNames;
+    }
+
+    private int pendingCount() {
+        int count = 0;
+        for (Set<String> names : pendingNames.values()) {
+            count += names.size();
+        }
+        return count;
+    }
+
+    private static boolean touchesNames(Map<String, Object> summary) {
+        if (summary == null) {
+            return false;
+        }
+        return positive(summary.get("nodesCreated")) || positive(summary.get("propertiesSet"));
+    }
+
+    private static boolean positive(Object value) {
+        return value instanceof Number n && n.longValue() > 0;
+    }
+
+    private static void collectNames(Object value, Set<String> names) {
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if ("name".equals(entry.getKey()) && entry.getValue() instanceof String name) {
+                    names.add(name);
+                } else {
+                    collectNames(entry.getValue(), names);
+                }
+            }
+        } else if (value instanceof Collection<?> collection) {
+            for (Object item : collection) {
+                collectNames(item, names);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package mcp.canary.neo4j.dedup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 去重执行报告
+ * dryRun 为 true 时只统计重复情况，不做任何合并
+ */
+@Data
+public class DeduplicationReport {
+
+    private boolean dryRun;
+
+    /**
+     * 处理过的标签数
+     */
+    private int labels;
+
+    /**
+     * 重复分组数（同一标签下 name 相同的节点为一组）
+     */
+    private long duplicateGroups;
+
+    /**
+     * 多余节点数，即合并后会被消除的节点数
+     */
+    private long redundantNodes;
+
+    private long totalMillis;
+
+    private List<BatchTiming> batches = new ArrayList<>();
+
+    public DeduplicationReport(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    void add(BatchTiming batch) {
+        batches.add(batch);
+        duplicateGroups += batch.getGroups();
+        redundantNodes += batch.getRedundantNodes();
+    }
+
+    /**
+     * 单个批次的统计，每个批次在独立事务中执行
+     */
+    @Data
+    @AllArgsConstructor
+    public static class BatchTiming {
+        private String label;
+        private int batch;
+        private long groups;
+        private long redundantNodes;
+        private long millis;
+    }
+}
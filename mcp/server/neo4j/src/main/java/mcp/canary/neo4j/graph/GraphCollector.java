@@ -0,0 +1,119 @@
+package mcp.canary.neo4j.graph;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Path;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 逐条遍历查询记录，把其中的 Node、Relationship、Path（包括列表和 Map 里嵌套的）收集成节点和边
+ * 节点和关系按 elementId 去重；关系两端要等全部记录读完才能确定，最后统一生成边。
+ * 节点数或关系数达到上限后不再接收，{@link #isFull()} 为 true，调用方据此停止拉取。
+ */
+public class GraphCollector {
+
+    private final int maxNodes;
+    private final int maxEdges;
+    private final Map<String, GraphNode> nodes = new LinkedHashMap<>();
+    private final Set<String> names = new HashSet<>();
+    private final Map<String, Relationship> relationships = new LinkedHashMap<>();
+    private boolean truncated;
+
+    public GraphCollector(int maxNodes, int maxEdges) {
+        if (maxNodes <= 0 || maxEdges < 0) {
+            throw new IllegalArgumentException("maxNodes 必须大于 0，maxEdges 不能小于 0");
+        }
+        this.maxNodes = maxNodes;
+        this.maxEdges = maxEdges;
+    }
+
+    public void accept(Record record) {
+        for (Value value : record.values()) {
+            collect(value.asObject());
+        }
+    }
+
+    public boolean isFull() {
+        return truncated;
+    }
+
+    public GraphResult result() {
+        GraphResult result = new GraphResult();
+        result.getNodes().addAll(nodes.values());
+        for (Relationship relationship : relationships.values()) {
+            GraphNode start = nodes.get(relationship.startNodeElementId());
+            GraphNode end = nodes.get(relationship.endNodeElementId());
+            if (start == null || end == null) {
+                result.setDanglingEdges(result.getDanglingEdges() + 1);
+                continue;
+            }
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("type", relationship.type());
+            properties.putAll(relationship.asMap());
+            result.getEdges().add(new GraphEdge(start.getName(), end.getName(), properties));
+        }
+        result.setTruncated(truncated);
+        return result;
+    }
+
+    private void collect(Object value) {
+        if (value instanceof Node node) {
+            addNode(node);
+        } else if (value instanceof Relationship relationship) {
+            addRelationship(relationship);
+        } else if (value instanceof Path path) {
+            path.nodes().forEach(this::addNode);
+            path.relationships().forEach(this::addRelationship);
+        } else if (value instanceof Iterable<?> items) {
+            items.forEach(this::collect);
+        } else if (value instanceof Map<?, ?> map) {
+            map.values().forEach(this::collect);
+        }
+    }
+
+    private void addNode(Node node) {
+        if (nodes.containsKey(node.elementId())) {
+            return;
+        }
+        if (nodes.size() >= maxNodes) {
+            truncated = true;
+            return;
+        }
+        Iterator<String> labels = node.labels().iterator();
+        String label = labels.hasNext() ? labels.next() : null;
+        nodes.put(node.elementId(), new GraphNode(uniqueName(node, label), label, node.asMap()));
+    }
+
+    private void addRelationship(Relationship relationship) {
+        if (relationships.containsKey(relationship.elementId())) {
+            return;
+        }
+        if (relationships.size() >= maxEdges) {
+            truncated = true;
+            return;
+        }
+        relationships.put(relationship.elementId(), relationship);
+    }
+
+    private String uniqueName(Node node, String label) {
+        Value name = node.get("name");
+        String base = !name.isNull() ? String.valueOf(name.asObject()) : label != null ? label : "node";
+        if (names.add(base)) {
+            return base;
+        }
+        String elementId = node.elementId();
+        String unique = base + " #" + elementId.substring(elementId.lastIndexOf(':') + 1);
+        if (!names.add(unique)) {
+            unique = base + " #" + elementId;
+            names.add(unique);
+        }
+        return unique;
+    }
+}
@@ -0,0 +1,25 @@
+package mcp.canary.neo4j.graph;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 图的边，字段与 echart 模块 generate_graph_chart 的 edges 参数一致，source/target 引用 {@link GraphNode#getName()}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GraphEdge {
+
+    private String source;
+
+    private String target;
+
+    /**
+     * 关系属性，首项 type 为关系类型（关系自身有 type 属性时以属性为准）
+     */
+    private Map<String, Object> properties;
+}
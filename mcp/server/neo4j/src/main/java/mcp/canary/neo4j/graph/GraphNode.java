@@ -0,0 +1,31 @@
+package mcp.canary.neo4j.graph;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 图节点，字段与 echart 模块 generate_graph_chart 的 nodes 参数一致，可直接传入
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GraphNode {
+
+    /**
+     * 节点唯一标识：优先取 name 属性，缺失或重名时追加 elementId 区分
+     */
+    private String name;
+
+    /**
+     * 节点的第一个标签，作为图表类目
+     */
+    private String categoryName;
+
+    /**
+     * Neo4j node properties
+     */
+    private Map<String, Object> properties;
+}
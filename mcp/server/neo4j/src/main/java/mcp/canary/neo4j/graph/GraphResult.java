@@ -0,0 +1,27 @@
+package mcp.canary.neo4j.graph;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 图形结果：按 elementId 去重后的节点和边
+ */
+@Data
+public class GraphResult {
+
+    private List<GraphNode> nodes = new ArrayList<>();
+
+    private List<GraphEdge> edges = new ArrayList<>();
+
+    /**
+     * 达到 neo4j.graph.max-nodes 或 neo4j.graph.max-edges 后停止读取，结果不完整
+     */
+    private boolean truncated;
+
+    /**
+     * 起点或终点不在结果中的关系数，这些关系没有输出为边；需要时在查询中一并返回两端节点
+     */
+    private int danglingEdges;
+}
@@ -0,0 +1,42 @@
+package mcp.canary.neo4j.guard;
+
+import java.util.List;
+
+/**
+ * 查询估算代价超出预算被拒绝
+ * violations 列出超出预算的项，消息里带同样的内容，调用方（模型）可据此补充过滤条件或 LIMIT 后重试。
+ */
+public class AdmissionRejectedException extends IllegalArgumentException {
+
+    private final String fingerprint;
+    private final List<Violation> violations;
+
+    public AdmissionRejectedException(String fingerprint, List<Violation> violations) {
+        super("查询 " + fingerprint + " 的估算代价超出预算，请补充过滤条件、缩小变长路径跳数或加 LIMIT 后重试：" + violations);
+        this.fingerprint = fingerprint;
+        this.violations = List.copyOf(violations);
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public List<Violation> getViolations() {
+        return violations;
+    }
+
+    /**
+     * 一项超出预算的检查
+     *
+     * @param operator      算子类型，整个计划的估算行数超限时为 "*"
+     * @param estimatedRows 估算行数
+     * @param budget        预算行数
+     */
+    public record Violation(String operator, long estimatedRows, long budget) {
+
+        @Override
+        public String toString() {
+            return operator + " 估算 " + estimatedRows + " 行 > 预算 " + budget;
+        }
+    }
+}
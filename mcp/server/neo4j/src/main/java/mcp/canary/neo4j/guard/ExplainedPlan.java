@@ -0,0 +1,47 @@
+package mcp.canary.neo4j.guard;
+
+import org.neo4j.driver.Value;
+import org.neo4j.driver.summary.Plan;
+import org.neo4j.driver.summary.QueryType;
+import org.neo4j.driver.summary.ResultSummary;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * EXPLAIN 得到的查询特征，按查询形状缓存
+ *
+ * @param queryType        服务端编译出的查询类型：r（READ_ONLY）、rw、w、s
+ * @param maxEstimatedRows 计划树中各算子估算行数（EstimatedRows）的最大值，没有计划时为 0
+ * @param operatorRows     算子类型（去掉 @neo4j 之类的后缀）到该类算子最大估算行数的映射
+ */
+public record ExplainedPlan(QueryType queryType, double maxEstimatedRows, Map<String, Double> operatorRows) {
+
+    static ExplainedPlan of(ResultSummary summary) {
+        if (!summary.hasPlan()) {
+            return new ExplainedPlan(summary.queryType(), 0, Collections.emptyMap());
+        }
+        Map<String, Double> operatorRows = new LinkedHashMap<>();
+        collect(summary.plan(), operatorRows);
+        double max = 0;
+        for (double rows : operatorRows.values()) {
+            max = Math.max(max, rows);
+        }
+        return new ExplainedPlan(summary.queryType(), max, Collections.unmodifiableMap(operatorRows));
+    }
+
+    private static void collect(Plan plan, Map<String, Double> operatorRows) {
+        String operator = plan.operatorType();
+        int suffix = operator.indexOf('@');
+        if (suffix > 0) {
+            operator = operator.substring(0, suffix);
+        }
+        Value estimated = plan.arguments().get("EstimatedRows");
+        double rows = estimated != null && !estimated.isNull() ? estimated.asDouble() : 0;
+        operatorRows.merge(operator, rows, Math::max);
+        for (Plan child : plan.children()) {
+            collect(child, operatorRows);
+        }
+    }
+}
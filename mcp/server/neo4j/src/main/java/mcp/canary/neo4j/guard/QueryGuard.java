@@ -0,0 +1,183 @@
+package mcp.canary.neo4j.guard;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import mcp.canary.neo4j.cypher.CypherText;
+import mcp.canary.neo4j.service.Neo4jService;
+import org.neo4j.driver.summary.QueryType;
+import org.neo4j.driver.summary.ResultSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 基于 EXPLAIN 的查询检查
+ * 由服务端编译查询并给出查询类型，不依赖关键字匹配：能识别会写入的过程调用、REMOVE、DETACH DELETE，
+ * 也不会误拒字符串里含 SET 之类单词的读查询。
+ * 准入控制用同一份计划的估算行数：整个计划的最大估算行数超过 neo4j.guard.max-estimated-rows，
+ * 或某类算子（如 CartesianProduct、VarLengthExpand）超过 neo4j.guard.operator-budgets 中的预算时，
+ * 按 neo4j.guard.over-budget 拒绝（reject）或给最外层 RETURN 追加 LIMIT（limit，无法追加时仍拒绝）。
+ * 结果按归一化后的查询文本缓存（LRU，容量 neo4j.guard.cache-size），同一形状只在第一次调用时多一次 EXPLAIN 往返；
+ * 并发的首次调用共用同一个 EXPLAIN，失败的结果不缓存。
+ */
+@Component
+public class QueryGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryGuard.class);
+
+    private final Neo4jService neo4jService;
+    private final long maxEstimatedRows;
+    private final Map<String, Long> operatorBudgets;
+    private final boolean limitOverBudget;
+    private final long rewriteLimit;
+    private final Map<String, CompletableFuture<ExplainedPlan>> plans;
+    private final Counter hits;
+    private final Counter misses;
+    private final MeterRegistry meterRegistry;
+
+    public QueryGuard(Neo4jService neo4jService,
+                      @Value("${neo4j.guard.cache-size:1000}") int cacheSize,
+                      @Value("${neo4j.guard.max-estimated-rows:1000000}") long maxEstimatedRows,
+                      @Value("${neo4j.guard.operator-budgets:CartesianProduct=100000,VarLengthExpand=1000000}") String operatorBudgets,
+                      @Value("${neo4j.guard.over-budget:reject}") String overBudget,
+                      @Value("${neo4j.guard.rewrite-limit:1000}") long rewriteLimit,
+                      MeterRegistry meterRegistry) {
+        String action = overBudget.trim().toLowerCase(Locale.ROOT);
+        if (!action.equals("reject") && !action.equals("limit")) {
+            throw new IllegalArgumentException("neo4j.guard.over-budget 只能是 reject 或 limit");
+        }
+        if (rewriteLimit <= 0) {
+            throw new IllegalArgumentException("neo4j.guard.rewrite-limit 必须大于 0");
+        }
+        this.neo4jService = neo4jService;
+        this.maxEstimatedRows = maxEstimatedRows;
+        this.operatorBudgets = parseBudgets(operatorBudgets);
+        this.limitOverBudget = action.equals("limit");
+        this.rewriteLimit = rewriteLimit;
+        this.meterRegistry = meterRegistry;
+        this.plans = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<ExplainedPlan>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.hits = Counter.builder("neo4j.guard.plan.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("neo4j.guard.plan.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * 读查询检查：只放行服务端判定为只读（READ_ONLY）的查询，否则以 IllegalArgumentException 失败；
+     * 再做代价准入，返回实际要执行的查询（原样或追加了 LIMIT），超出预算且不改写时以 {@link AdmissionRejectedException} 失败。
+     * 只做 EXPLAIN 的查询不会执行，不做代价准入。
+     */
+    public CompletionStage<String> checkRead(String query, Map<String, Object> params) {
+        return explain(query, params).thenApply(plan -> {
+            if (plan.queryType() != QueryType.READ_ONLY) {
+                throw new IllegalArgumentException("Read tool only supports read-only queries. 查询类型: " + plan.queryType());
+            }
+            return "EXPLAIN".equals(CypherText.planPrefix(query)) ? query : admit(query, plan);
+        });
+    }
+
+    private String admit(String query, ExplainedPlan plan) {
+        List<AdmissionRejectedException.Violation> violations = violations(plan);
+        if (violations.isEmpty()) {
+            count("admitted");
+            return query;
+        }
+        if (limitOverBudget) {
+            Optional<String> limited = CypherText.appendLimit(query, rewriteLimit);
+            if (limited.isPresent()) {
+                count("limited");
+                logger.info("查询 {} 超出预算 {}，追加 LIMIT {}", CypherText.fingerprint(query), violations, rewriteLimit);
+                return limited.get();
+            }
+        }
+        count("rejected");
+        throw new AdmissionRejectedException(CypherText.fingerprint(query), violations);
+    }
+
+    List<AdmissionRejectedException.Violation> violations(ExplainedPlan plan) {
+        List<AdmissionRejectedException.Violation> violations = new ArrayList<>();
+        if (maxEstimatedRows > 0 && plan.maxEstimatedRows() > maxEstimatedRows) {
+            violations.add(new AdmissionRejectedException.Violation("*",
+                    Math.round(plan.maxEstimatedRows()), maxEstimatedRows));
+        }
+        for (Map.Entry<String, Double> operator : plan.operatorRows().entrySet()) {
+            for (Map.Entry<String, Long> budget : operatorBudgets.entrySet()) {
+                if (operator.getKey().startsWith(budget.getKey()) && operator.getValue() > budget.getValue()) {
+                    violations.add(new AdmissionRejectedException.Violation(operator.getKey(),
+                            Math.round(operator.getValue()), budget.getValue()));
+                }
+            }
+        }
+        return violations;
+    }
+
+    private void count(String result) {
+        Counter.builder("neo4j.guard.admission").tag("result", result).register(meterRegistry).increment();
+    }
+
+    /**
+     * 解析 "CartesianProduct=100000,VarLengthExpand=1000000" 形式的算子预算，算子按前缀匹配
+     */
+    static Map<String, Long> parseBudgets(String budgets) {
+        Map<String, Long> parsed = new LinkedHashMap<>();
+        if (budgets == null || budgets.isBlank()) {
+            return parsed;
+        }
+        for (String item : budgets.split(",")) {
+            String[] pair = item.split("=");
+            if (pair.length != 2 || pair[0].isBlank()) {
+                throw new IllegalArgumentException("neo4j.guard.operator-budgets 格式应为 算子=行数，逗号分隔：" + item);
+            }
+            parsed.put(pair[0].trim(), Long.parseLong(pair[1].trim()));
+        }
+        return parsed;
+    }
+
+    /**
+     * 取查询形状对应的 EXPLAIN 结果，未缓存时在读事务中执行一次 EXPLAIN
+     */
+    CompletionStage<ExplainedPlan> explain(String query, Map<String, Object> params) {
+        String key = CypherText.normalize(CypherText.stripPlanPrefix(query));
+        CompletableFuture<ExplainedPlan> future;
+        boolean loading = false;
+        synchronized (plans) {
+            future = plans.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                plans.put(key, future);
+                loading = true;
+            }
+        }
+        if (!loading) {
+            hits.increment();
+            return future;
+        }
+        misses.increment();
+        CompletableFuture<ExplainedPlan> pending = future;
+        CompletionStage<ResultSummary> explained;
+        try {
+            explained = neo4jService.explainAsync(query, params);
+        } catch (RuntimeException e) {
+            explained = CompletableFuture.failedFuture(e);
+        }
+        explained.whenComplete((summary, error) -> {
+            if (error != null) {
+                synchronized (plans) {
+                    plans.remove(key, pending);
+                }
+                pending.completeExceptionally(error);
+            } else {
+                pending.complete(ExplainedPlan.of(summary));
+            }
+        });
+        return pending;
+    }
+}
@@ -0,0 +1,120 @@
+package mcp.canary.neo4j.ingest;
+
+import mcp.canary.neo4j.cache.QueryResultCache;
+import mcp.canary.neo4j.cypher.CypherText;
+import mcp.canary.neo4j.service.Neo4jService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 批量导入
+ * 把一组行数据按 UNWIND 分批 MERGE 到同一标签下，每批在一个托管写事务中执行，
+ * 一次调用代替逐条 write-neo4j-cypher 的几百次往返。首次导入某个标签/键时建立索引，保证 MERGE 走索引查找。
+ */
+@Component
+public class BulkIngestor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkIngestor.class);
+
+    private static final String MERGE_ROWS = """
+            UNWIND $rows AS row
+            MERGE (n:%s {%s: row[$key]})
+            SET n += row
+            """;
+
+    private final Neo4jService neo4jService;
+    private final QueryResultCache queryResultCache;
+    private final int defaultBatchSize;
+    private final Set<List<String>> indexedKeys = ConcurrentHashMap.newKeySet();
+
+    public BulkIngestor(Neo4jService neo4jService,
+                        QueryResultCache queryResultCache,
+                        @Value("${neo4j.ingest.batch-size:1000}") int defaultBatchSize) {
+        if (defaultBatchSize <= 0) {
+            throw new IllegalArgumentException("neo4j.ingest.batch-size 必须大于 0");
+        }
+        this.neo4jService = neo4jService;
+        this.queryResultCache = queryResultCache;
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    /**
+     * 按 key 把 rows MERGE 到 label 下，行内其余字段作为属性写入
+     *
+     * @param batchSize 每个事务处理的行数，为 null 时使用 neo4j.ingest.batch-size
+     * @param timeout   每批事务的超时，为 null 时使用 neo4j.tx-timeout.default
+     * @param progress  每批完成后的进度回调，可为 null
+     * @return 各批统计计数之和，键与 executeWriteWithSummary 相同
+     */
+    public Map<String, Object> ingest(String label, String key, List<Map<String, Object>> rows,
+                                      Integer batchSize, Duration timeout, Consumer<String> progress) {
+        validate(label, key, rows, batchSize);
+        int size = batchSize != null ? batchSize : defaultBatchSize;
+        ensureIndex(label, key);
+
+        String query = MERGE_ROWS.formatted(CypherText.quoteIdentifier(label), CypherText.quoteIdentifier(key));
+        Map<String, Object> total = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        int batch = 0;
+        for (int from = 0; from < rows.size(); from += size) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("批量导入已取消，已提交 " + batch + " 批");
+            }
+            List<Map<String, Object>> chunk = rows.subList(from, Math.min(rows.size(), from + size));
+            long batchStart = System.nanoTime();
+            Map<String, Object> stats = neo4jService.executeWriteWithSummary(query, Map.of("rows", chunk, "key", key), timeout);
+            // 每批提交后立即失效，后续批次失败或取消时已提交的数据也能被读到；
+            // MERGE 命中的已有节点可能还带着其他标签，由 onWrite 按写入类型决定失效范围
+            queryResultCache.onWrite(query, stats);
+            Neo4jService.addStats(total, stats);
+            if (progress != null) {
+                progress.accept("%s 第 %d 批：%d 行，用时 %d ms".formatted(
+                        label, ++batch, chunk.size(), (System.nanoTime() - batchStart) / 1_000_000));
+            }
+        }
+        logger.info("批量导入 {} 行到 {}，用时 {} ms", rows.size(), label, (System.nanoTime() - start) / 1_000_000);
+        return total;
+    }
+
+    private static void validate(String label, String key, List<Map<String, Object>> rows, Integer batchSize) {
+        if (label == null || label.isBlank()) {
+            throw new IllegalArgumentException("label 不能为空");
+        }
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("key 不能为空");
+        }
+        if (rows == null || rows.isEmpty()) {
+            throw new IllegalArgumentException("rows 不能为空");
+        }
+        if (batchSize != null && batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize 必须大于 0");
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> row = rows.get(i);
+            if (row == null || row.get(key) == null) {
+                throw new IllegalArgumentException("第 " + i + " 行缺少合并键 " + key);
+            }
+        }
+    }
+
+    private void ensureIndex(String label, String key) {
+        List<String> indexKey = List.of(label, key);
+        if (indexedKeys.contains(indexKey)) {
+            return;
+        }
+        String indexName = "ingest_" + (label + "_" + key).replaceAll("[^A-Za-z0-9_]", "_")
+                + "_" + Integer.toHexString(indexKey.hashCode());
+        neo4jService.executeWrite("CREATE INDEX " + CypherText.quoteIdentifier(indexName)
+                + " IF NOT EXISTS FOR (n:" + CypherText.quoteIdentifier(label) + ") ON (n."
+                + CypherText.quoteIdentifier(key) + ")", null);
+        indexedKeys.add(indexKey);
+    }
+}
@@ -0,0 +1,96 @@
+package mcp.canary.neo4j.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import mcp.canary.neo4j.cypher.CypherText;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 工具调用耗时
+ * 环绕所有 @McpTool 方法，按工具名、结果和查询形状指纹记录到 mcp.tool.latency，工具方法本身不需要任何埋点。
+ * 返回 Mono 的工具从订阅计时到完成；组装阶段同步抛出的异常也记为 error。
+ * 查询形状取名为 query 的参数做 {@link CypherText#fingerprint}，不同形状超过上限后记为 other，防止标签基数无限增长。
+ */
+@Aspect
+@Component
+public class ToolMetricsAspect {
+
+    static final String METRIC = "mcp.tool.latency";
+
+    private static final String QUERY_PARAMETER = "query";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxQueryShapes;
+    private final Set<String> queryShapes = ConcurrentHashMap.newKeySet();
+
+    public ToolMetricsAspect(MeterRegistry meterRegistry,
+                             @Value("${neo4j.metrics.max-query-shapes:200}") int maxQueryShapes) {
+        this.meterRegistry = meterRegistry;
+        this.maxQueryShapes = maxQueryShapes;
+    }
+
+    @Around("@annotation(tool)")
+    public Object time(ProceedingJoinPoint joinPoint, McpTool tool) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        String name = tool.name().isBlank() ? signature.getName() : tool.name();
+        String shape = queryShape(signature.getParameterNames(), joinPoint.getArgs());
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(name, shape, "error", start);
+            throw e;
+        }
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                long subscribed = System.nanoTime();
+                return mono.doOnSuccess(value -> record(name, shape, "success", subscribed))
+                        .doOnError(e -> record(name, shape, "error", subscribed))
+                        .doOnCancel(() -> record(name, shape, "cancelled", subscribed));
+            });
+        }
+        record(name, shape, "success", start);
+        return result;
+    }
+
+    private String queryShape(String[] names, Object[] args) {
+        if (names == null) {
+            return "none";
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (QUERY_PARAMETER.equals(names[i]) && args[i] instanceof String query) {
+                String shape = CypherText.fingerprint(query);
+                if (queryShapes.contains(shape)) {
+                    return shape;
+                }
+                if (queryShapes.size() < maxQueryShapes && queryShapes.add(shape)) {
+                    return shape;
+                }
+                return "other";
+            }
+        }
+        return "none";
+    }
+
+    private void record(String tool, String shape, String outcome, long startNanos) {
+        Timer.builder(METRIC)
+                .description("MCP 工具调用耗时")
+                .tag("tool", tool)
+                .tag("outcome", outcome)
+                .tag("query", shape)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,26 @@
+package mcp.canary.neo4j.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量写入结果
+ * 所有语句在同一个事务中提交，statements 与传入顺序一一对应
+ */
+@Data
+@AllArgsConstructor
+public class BatchWriteResult {
+
+    /**
+     * 每条语句的写入统计，键与 executeWriteWithSummary 相同
+     */
+    private List<Map<String, Object>> statements;
+
+    /**
+     * 各语句统计之和
+     */
+    private Map<String, Object> total;
+}
@@ -1,65 +1,530 @@
 package mcp.canary.neo4j.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import mcp.canary.neo4j.cypher.CypherText;
 import mcp.canary.neo4j.db.Neo4jConnection;
+import mcp.canary.neo4j.graph.GraphCollector;
+import mcp.canary.neo4j.graph.GraphResult;
+import mcp.canary.neo4j.slowlog.SlowQueryLog;
+import org.neo4j.driver.AccessMode;
+import org.neo4j.driver.Record;
 import org.neo4j.driver.Result;
+import org.neo4j.driver.TransactionCallback;
+import org.neo4j.driver.TransactionConfig;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.async.AsyncTransactionCallback;
+import org.neo4j.driver.async.ResultCursor;
+import org.neo4j.driver.summary.ResultSummary;
 import org.neo4j.driver.summary.SummaryCounters;
 import org.neo4j.driver.types.MapAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Cypher 执行服务
+ * 读写都通过驱动的事务函数（executeRead / executeWrite）执行：集群部署时读事务可以路由到从节点，
+ * 瞬时错误由驱动按 withMaxTransactionRetryTime 自动重试。事务函数可能被执行多次，回调内不能有外部副作用。
+ * *Async 方法基于驱动的 AsyncSession，供异步 MCP 工具使用，查询在途时不占用调用线程。
+ * 分页读取结束后把耗时和 ResultSummary 交给 {@link SlowQueryLog}，超过阈值的读取记入慢查询日志。
+ * 每个事务都带服务端超时（{@link TransactionTimeouts}），工具可以按调用传入更短或更长的超时；
+ * *Async 方法返回的 future 被取消时（如 MCP 客户端断开）立即关闭会话，回滚事务并丢弃未读完的结果。
+ * 连接未就绪时不打开会话，直接以 ServiceUnavailableException 失败；执行中的失败交给 Neo4jConnection 判断是否需要重新验证连接。
+ */
 @Service
 public class Neo4jService {
     private static final Logger logger = LoggerFactory.getLogger(Neo4jService.class);
     private final Neo4jConnection neo4jConnection;
+    private final MeterRegistry meterRegistry;
+    private final SlowQueryLog slowQueryLog;
+    private final TransactionTimeouts timeouts;
 
-    public Neo4jService(Neo4jConnection neo4jConnection) {
+    public Neo4jService(Neo4jConnection neo4jConnection, MeterRegistry meterRegistry, SlowQueryLog slowQueryLog,
+                        TransactionTimeouts timeouts) {
         this.neo4jConnection = neo4jConnection;
+        this.meterRegistry = meterRegistry;
+        this.slowQueryLog = slowQueryLog;
+        this.timeouts = timeouts;
     }
 
     /**
-     * 执行原生 Cypher 并返回结果列表
+     * 在读事务中执行原生 Cypher 并返回结果列表
      */
     public List<Map<String, Object>> execute(String query, Map<String, Object> params) {
-        try (var session = neo4jConnection.createSession()) {
-            return session.run(query, params != null ? params : Collections.emptyMap())
-                    .list(MapAccessor::asMap);
-        }
+        Map<String, Object> safeParams = params != null ? params : Collections.emptyMap();
+        return inTransaction(AccessMode.READ, 0, null, tx -> {
+            Result result = tx.run(query, safeParams);
+            List<Map<String, Object>> rows = result.list(MapAccessor::asMap);
+            recordRoute(AccessMode.READ, result.consume());
+            return rows;
+        });
     }
 
     /**
-     * 自动去重逻辑：查找 name 属性重复的节点，并调用 APOC 进行深度合并。
-     * 合并规则：属性结合、关系重定向到新节点。
+     * 在写事务中执行原生 Cypher 并返回结果列表，用于需要返回数据的写操作（如 APOC 合并、建索引）
      */
-    public void deduplicateNodesByName() {
-        String dedupeCypher = """
-            MATCH (n)
-            WHERE n.name IS NOT NULL
-            WITH n.name AS name, collect(n) AS nodes
-            WHERE size(nodes) > 1
-            CALL apoc.refactor.mergeNodes(nodes, {properties:"combine", mergeRels:true})
-            YIELD node RETURN count(node)
-            """;
-        execute(dedupeCypher, null);
-        logger.info("Executed APOC node deduplication based on 'name' property.");
+    public List<Map<String, Object>> executeWrite(String query, Map<String, Object> params) {
+        Map<String, Object> safeParams = params != null ? params : Collections.emptyMap();
+        return inTransaction(AccessMode.WRITE, 0, null, tx -> {
+            Result result = tx.run(query, safeParams);
+            List<Map<String, Object>> rows = result.list(MapAccessor::asMap);
+            recordRoute(AccessMode.WRITE, result.consume());
+            return rows;
+        });
+    }
+
+    /**
+     * 流式分页读取：按 pageSize 从驱动游标逐条拉取记录，只保留当前页在内存中。
+     * 续读时重新执行查询并流式跳过已读记录，剩余记录通过 consume() 在服务端丢弃，
+     * 因此单次调用的内存占用只与 pageSize 有关，与结果总量无关。
+     */
+    public ReadPage executePage(String query, Map<String, Object> params, String cursor, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize 必须大于 0");
+        }
+        Map<String, Object> safeParams = params != null ? params : Collections.emptyMap();
+        long offset = ReadCursor.decode(cursor, query, safeParams);
+
+        long start = System.nanoTime();
+        AtomicReference<ResultSummary> summaryRef = new AtomicReference<>();
+        ReadPage page = inTransaction(AccessMode.READ, pageSize, null, tx -> {
+            Result result = tx.run(query, safeParams);
+            long skipped = 0;
+            while (skipped < offset && result.hasNext()) {
+                result.next();
+                skipped++;
+            }
+
+            List<Map<String, Object>> records = new ArrayList<>(pageSize);
+            while (records.size() < pageSize && result.hasNext()) {
+                records.add(result.next().asMap());
+            }
+
+            boolean hasMore = result.hasNext();
+            ResultSummary summary = result.consume();
+            summaryRef.set(summary);
+            recordRoute(AccessMode.READ, summary);
+            String nextCursor = hasMore ? ReadCursor.encode(offset + records.size(), query, safeParams) : null;
+            return new ReadPage(records, nextCursor, hasMore);
+        });
+        slowQueryLog.onRead(query, safeParams, offset, page.getRecords().size(),
+                System.nanoTime() - start, summaryRef.get());
+        return page;
     }
 
     /**
      * 执行写入操作并获取统计摘要
      */
     public Map<String, Object> executeWriteWithSummary(String query, Map<String, Object> params) {
-        try (var session = neo4jConnection.createSession()) {
-            Result result = session.run(query, params != null ? params : Collections.emptyMap());
-            SummaryCounters c = result.consume().counters();
-
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("nodesCreated", c.nodesCreated());
-            stats.put("nodesDeleted", c.nodesDeleted());
-            stats.put("relationshipsCreated", c.relationshipsCreated());
-            stats.put("propertiesSet", c.propertiesSet());
-            return stats;
+        return executeWriteWithSummary(query, params, null);
+    }
+
+    /**
+     * executeWriteWithSummary，指定事务超时
+     *
+     * @param timeout 为 null 时使用 neo4j.tx-timeout.default
+     */
+    public Map<String, Object> executeWriteWithSummary(String query, Map<String, Object> params, Duration timeout) {
+        Map<String, Object> safeParams = params != null ? params : Collections.emptyMap();
+        return inTransaction(AccessMode.WRITE, 0, timeout, tx -> {
+            ResultSummary summary = tx.run(query, safeParams).consume();
+            recordRoute(AccessMode.WRITE, summary);
+            return toStats(summary.counters());
+        });
+    }
+
+    /**
+     * executePage 的异步版本：基于 AsyncSession，等待服务端返回期间不占用任何线程
+     */
+    public CompletionStage<ReadPage> executePageAsync(String query, Map<String, Object> params, String cursor, int pageSize) {
+        return executePageAsync(query, params, cursor, pageSize, null);
+    }
+
+    /**
+     * executePageAsync，指定事务超时
+     *
+     * @param timeout 为 null 时使用 neo4j.tx-timeout.default
+     */
+    public CompletionStage<ReadPage> executePageAsync(String query, Map<String, Object> params, String cursor, int pageSize,
+                                                      Duration timeout) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize 必须大于 0");
+        }
+        Map<String, Object> safeParams = params != null ? params : Collections.emptyMap();
+        long offset = ReadCursor.decode(cursor, query, safeParams);
+
+        long start = System.nanoTime();
+        AtomicReference<ResultSummary> summaryRef = new AtomicReference<>();
+        CompletableFuture<ReadPage> read = inTransactionAsync(AccessMode.READ, pageSize, timeout,
+                tx -> tx.runAsync(query, safeParams).thenCompose(result -> {
+                    List<Map<String, Object>> records = new ArrayList<>(pageSize);
+                    return CursorPull.pull(result, offset, record -> { })
+                            .thenCompose(skipped -> CursorPull.pull(result, pageSize, record -> records.add(record.asMap())))
+                            .thenCompose(pulled -> result.peekAsync())
+                            .thenCompose(next -> result.consumeAsync().thenApply(summary -> {
+                                summaryRef.set(summary);
+                                recordRoute(AccessMode.READ, summary);
+                                boolean hasMore = next != null;
+                                String nextCursor = hasMore ? ReadCursor.encode(offset + records.size(), query, safeParams) : null;
+                                return new ReadPage(records, nextCursor, hasMore);
+                            }));
+                }));
+        return forwardCancel(read, read.thenApply(page -> {
+            slowQueryLog.onRead(query, safeParams, offset, page.getRecords().size(),
+                    System.nanoTime() - start, summaryRef.get());
+            return page;
+        }));
+    }
+
+    /**
+     * 在读事务中执行查询，把结果里的节点、关系和路径收集成去重后的图。
+     * 节点或关系数达到上限后停止拉取，剩余结果在服务端丢弃。
+     *
+     * @param timeout 为 null 时使用 neo4j.tx-timeout.default
+     */
+    public CompletionStage<GraphResult> executeGraphAsync(String query, Map<String, Object> params,
+                                                          int maxNodes, int maxEdges, Duration timeout) {
+        Map<String, Object> safeParams = params != null ? params : Collections.emptyMap();
+        return inTransactionAsync(AccessMode.READ, 0, timeout, tx -> {
+            // 事务函数可能因瞬时错误被驱动重试，每次都从头收集
+            GraphCollector collector = new GraphCollector(maxNodes, maxEdges);
+            return tx.runAsync(query, safeParams)
+                    .thenCompose(result -> CursorPull.pull(result, Long.MAX_VALUE, collector::isFull, collector::accept)
+                            .thenCompose(pulled -> result.consumeAsync())
+                            .thenApply(summary -> {
+                                recordRoute(AccessMode.READ, summary);
+                                return collector.result();
+                            }));
+        });
+    }
+
+    /**
+     * 在读事务中对查询做 EXPLAIN，只编译不执行，返回带执行计划和查询类型的 ResultSummary。
+     * 查询自带 EXPLAIN/PROFILE 前缀时先去掉。
+     */
+    public CompletionStage<ResultSummary> explainAsync(String query, Map<String, Object> params) {
+        return explainAsync(query, params, null);
+    }
+
+    /**
+     * explainAsync，指定事务超时
+     *
+     * @param timeout 为 null 时使用 neo4j.tx-timeout.default
+     */
+    public CompletionStage<ResultSummary> explainAsync(String query, Map<String, Object> params, Duration timeout) {
+        return planAsync("EXPLAIN", query, params, timeout);
+    }
+
+    /**
+     * 在读事务中对查询做 PROFILE：完整执行一次并丢弃结果，返回带实际行数和 dbHits 的 ResultSummary。
+     * 查询自带 EXPLAIN/PROFILE 前缀时先去掉；超时后事务回滚，取消返回值时关闭会话。
+     *
+     * @param timeout 为 null 时使用 neo4j.tx-timeout.default
+     */
+    public CompletionStage<ResultSummary> profileAsync(String query, Map<String, Object> params, Duration timeout) {
+        return planAsync("PROFILE", query, params, timeout);
+    }
+
+    private CompletionStage<ResultSummary> planAsync(String prefix, String query, Map<String, Object> params,
+                                                     Duration timeout) {
+        Map<String, Object> safeParams = params != null ? params : Collections.emptyMap();
+        String planned = prefix + " " + CypherText.stripPlanPrefix(query);
+        return inTransactionAsync(AccessMode.READ, 0, timeout, tx -> tx.runAsync(planned, safeParams)
+                .thenCompose(ResultCursor::consumeAsync));
+    }
+
+    /**
+     * executeWriteWithSummary 的异步版本
+     */
+    public CompletionStage<Map<String, Object>> executeWriteWithSummaryAsync(String query, Map<String, Object> params) {
+        return executeWriteWithSummaryAsync(query, params, null);
+    }
+
+    /**
+     * executeWriteWithSummaryAsync，指定事务超时
+     *
+     * @param timeout 为 null 时使用 neo4j.tx-timeout.default
+     */
+    public CompletionStage<Map<String, Object>> executeWriteWithSummaryAsync(String query, Map<String, Object> params,
+                                                                             Duration timeout) {
+        Map<String, Object> safeParams = params != null ? params : Collections.emptyMap();
+        return inTransactionAsync(AccessMode.WRITE, 0, timeout, tx -> tx.runAsync(query, safeParams)
+                .thenCompose(ResultCursor::consumeAsync)
+                .thenApply(summary -> {
+                    recordRoute(AccessMode.WRITE, summary);
+                    return toStats(summary.counters());
+                }));
+    }
+
+    /**
+     * 在同一个写事务中按顺序执行多条语句，只提交一次。
+     * 任一语句失败时整个事务回滚，异常信息中带上失败语句的序号（从 1 开始）。
+     *
+     * @param timeout 为 null 时使用 neo4j.tx-timeout.default，作用于整个事务
+     */
+    public CompletionStage<BatchWriteResult> executeWriteBatchAsync(List<WriteStatement> statements, Duration timeout) {
+        if (statements == null || statements.isEmpty()) {
+            throw new IllegalArgumentException("statements 不能为空");
+        }
+        for (int i = 0; i < statements.size(); i++) {
+            WriteStatement statement = statements.get(i);
+            if (statement == null || statement.getQuery() == null || statement.getQuery().isBlank()) {
+                throw new IllegalArgumentException("第 " + (i + 1) + " 条语句的 query 不能为空");
+            }
+        }
+        AtomicInteger current = new AtomicInteger(-1);
+        CompletableFuture<BatchWriteResult> batch = inTransactionAsync(AccessMode.WRITE, 0, timeout, tx -> {
+            // 事务函数可能因瞬时错误被驱动重试，每次都从头收集
+            List<Map<String, Object>> results = new ArrayList<>(statements.size());
+            CompletionStage<Void> chain = CompletableFuture.completedFuture(null);
+            for (int i = 0; i < statements.size(); i++) {
+                int index = i;
+                WriteStatement statement = statements.get(i);
+                Map<String, Object> safeParams = statement.getParams() != null ? statement.getParams() : Collections.emptyMap();
+                chain = chain.<ResultCursor>thenCompose(ignored -> {
+                    current.set(index);
+                    return tx.runAsync(statement.getQuery(), safeParams);
+                }).thenCompose(ResultCursor::consumeAsync).thenAccept(summary -> {
+                    recordRoute(AccessMode.WRITE, summary);
+                    results.add(toStats(summary.counters()));
+                });
+            }
+            return chain.thenApply(ignored -> {
+                Map<String, Object> total = new LinkedHashMap<>();
+                results.forEach(stats -> addStats(total, stats));
+                return new BatchWriteResult(results, total);
+            });
+        });
+        return forwardCancel(batch, batch.exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CancellationException || current.get() < 0) {
+                throw error instanceof CompletionException ce ? ce : new CompletionException(cause);
+            }
+            throw new IllegalStateException("第 " + (current.get() + 1) + " 条语句执行失败，整批已回滚："
+                    + cause.getMessage(), cause);
+        }));
+    }
+
+    /**
+     * 把 stats 中的计数累加到 total
+     */
+    public static void addStats(Map<String, Object> total, Map<String, Object> stats) {
+        stats.forEach((name, value) -> total.merge(name, value,
+                (a, b) -> ((Number) a).intValue() + ((Number) b).intValue()));
+    }
+
+    /**
+     * 把驱动的统计计数转换为工具返回的 Map
+     */
+    public static Map<String, Object> toStats(SummaryCounters c) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nodesCreated", c.nodesCreated());
+        stats.put("nodesDeleted", c.nodesDeleted());
+        stats.put("relationshipsCreated", c.relationshipsCreated());
+        stats.put("relationshipsDeleted", c.relationshipsDeleted());
+        stats.put("propertiesSet", c.propertiesSet());
+        stats.put("labelsAdded", c.labelsAdded());
+        stats.put("labelsRemoved", c.labelsRemoved());
+        return stats;
+    }
+
+    /**
+     * downstream 被取消时一并取消 upstream：CompletableFuture 的取消不会沿 thenApply/thenCompose 传回上游
+     */
+    public static <T> CompletableFuture<T> forwardCancel(CompletionStage<?> upstream, CompletionStage<T> downstream) {
+        CompletableFuture<T> future = downstream.toCompletableFuture();
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled()) {
+                upstream.toCompletableFuture().cancel(false);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 以指定访问模式打开会话并执行事务函数，统计执行次数和重试次数
+     *
+     * @param fetchSize 大于 0 时作为会话的批量拉取大小
+     * @param timeout   事务超时，为 null 时使用 neo4j.tx-timeout.default
+     */
+    private <T> T inTransaction(AccessMode mode, long fetchSize, Duration timeout, TransactionCallback<T> work) {
+        neo4jConnection.requireAvailable();
+        String modeTag = mode.name().toLowerCase(Locale.ROOT);
+        int[] attempts = {0};
+        TransactionCallback<T> counted = tx -> {
+            if (attempts[0]++ > 0) {
+                Counter.builder("neo4j.tx.retries").tag("mode", modeTag).register(meterRegistry).increment();
+                logger.debug("重试 {} 事务，第 {} 次", modeTag, attempts[0]);
+            }
+            return work.execute(tx);
+        };
+        try (var session = fetchSize > 0
+                ? neo4jConnection.createSession(mode, fetchSize)
+                : neo4jConnection.createSession(mode)) {
+            T value = mode == AccessMode.READ
+                    ? session.executeRead(counted, config(timeout))
+                    : session.executeWrite(counted, config(timeout));
+            Counter.builder("neo4j.tx.executions").tag("mode", modeTag).tag("outcome", "success")
+                    .register(meterRegistry).increment();
+            return value;
+        } catch (RuntimeException e) {
+            Counter.builder("neo4j.tx.executions").tag("mode", modeTag).tag("outcome", "failure")
+                    .register(meterRegistry).increment();
+            neo4jConnection.reportFailure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * inTransaction 的异步版本：事务函数返回 CompletionStage，结束后异步关闭会话。
+     * 返回的 future 被取消时立即关闭会话，驱动回滚事务并丢弃剩余结果，服务端不再继续执行。
+     */
+    private <T> CompletableFuture<T> inTransactionAsync(AccessMode mode, long fetchSize, Duration timeout,
+                                                        AsyncTransactionCallback<CompletionStage<T>> work) {
+        try {
+            neo4jConnection.requireAvailable();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        String modeTag = mode.name().toLowerCase(Locale.ROOT);
+        AtomicInteger attempts = new AtomicInteger();
+        AsyncTransactionCallback<CompletionStage<T>> counted = tx -> {
+            if (attempts.getAndIncrement() > 0) {
+                Counter.builder("neo4j.tx.retries").tag("mode", modeTag).register(meterRegistry).increment();
+                logger.debug("重试 {} 事务，第 {} 次", modeTag, attempts.get());
+            }
+            return work.execute(tx);
+        };
+        AsyncSession session = neo4jConnection.createAsyncSession(mode, fetchSize);
+        CompletionStage<T> stage = mode == AccessMode.READ
+                ? session.executeReadAsync(counted, config(timeout))
+                : session.executeWriteAsync(counted, config(timeout));
+        CompletableFuture<T> future = stage.handle((value, error) -> {
+            Counter.builder("neo4j.tx.executions").tag("mode", modeTag)
+                    .tag("outcome", error == null ? "success" : "failure")
+                    .register(meterRegistry).increment();
+            if (error != null) {
+                neo4jConnection.reportFailure(error);
+            }
+            return session.closeAsync().<T>handle((ignored, closeError) -> {
+                if (error != null) {
+                    throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+                }
+                return value;
+            });
+        }).thenCompose(Function.identity()).toCompletableFuture();
+        future.whenComplete((value, error) -> {
+            if (future.isCancelled()) {
+                Counter.builder("neo4j.tx.cancelled").tag("mode", modeTag).register(meterRegistry).increment();
+                logger.debug("调用方已取消，关闭 {} 会话", modeTag);
+                session.closeAsync();
+            }
+        });
+        return future;
+    }
+
+    private TransactionConfig config(Duration timeout) {
+        Duration effective = timeout != null ? timeout : timeouts.defaultTimeout();
+        if (effective.isZero() || effective.isNegative()) {
+            return TransactionConfig.empty();
+        }
+        return TransactionConfig.builder().withTimeout(effective).build();
+    }
+
+    /**
+     * 记录事务实际落到的服务器，集群部署下可以看出读写分别路由到了哪些成员
+     */
+    private void recordRoute(AccessMode mode, ResultSummary summary) {
+        if (summary == null || summary.server() == null) {
+            return;
+        }
+        Counter.builder("neo4j.tx.routed")
+                .tag("mode", mode.name().toLowerCase(Locale.ROOT))
+                .tag("server", String.valueOf(summary.server().address()))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 从异步游标逐条拉取至多 limit 条记录。已缓冲的记录在循环里同步处理，
+     * 只有需要等待服务端时才挂回调，避免长结果集上的递归过深。
+     */
+    private static final class CursorPull {
+        private final ResultCursor cursor;
+        private final long limit;
+        private final BooleanSupplier stop;
+        private final Consumer<Record> sink;
+        private final CompletableFuture<Long> done = new CompletableFuture<>();
+        private long pulled;
+
+        private CursorPull(ResultCursor cursor, long limit, BooleanSupplier stop, Consumer<Record> sink) {
+            this.cursor = cursor;
+            this.limit = limit;
+            this.stop = stop;
+            this.sink = sink;
+        }
+
+        static CompletionStage<Long> pull(ResultCursor cursor, long limit, Consumer<Record> sink) {
+            return pull(cursor, limit, () -> false, sink);
+        }
+
+        /**
+         * 同 pull，stop 返回 true 时提前结束
+         */
+        static CompletionStage<Long> pull(ResultCursor cursor, long limit, BooleanSupplier stop, Consumer<Record> sink) {
+            CursorPull pull = new CursorPull(cursor, limit, stop, sink);
+            pull.next();
+            return pull.done;
+        }
+
+        private void next() {
+            while (pulled < limit && !stop.getAsBoolean()) {
+                CompletableFuture<Record> future = cursor.nextAsync().toCompletableFuture();
+                if (!future.isDone()) {
+                    future.whenComplete((record, error) -> {
+                        if (error != null) {
+                            done.completeExceptionally(error);
+                        } else if (accept(record)) {
+                            next();
+                        }
+                    });
+                    return;
+                }
+                Record record;
+                try {
+                    record = future.join();
+                } catch (CompletionException e) {
+                    done.completeExceptionally(e.getCause());
+                    return;
+                }
+                if (!accept(record)) {
+                    return;
+                }
+            }
+            done.complete(pulled);
+        }
+
+        private boolean accept(Record record) {
+            if (record == null) {
+                done.complete(pulled);
+                return false;
+            }
+            sink.accept(record);
+            pulled++;
+            return true;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package mcp.canary.neo4j.service;
+
+import mcp.canary.neo4j.cypher.CypherText;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * 分页续读游标
+ * 编码内容为「已读记录数 + 查询指纹」，对调用方不透明。指纹用于拒绝拿着别的查询的游标续读，
+ * 取 CypherText.hash（归一化查询和参数的 SHA-256）的前 128 位，不同查询几乎不可能碰撞。
+ */
+final class ReadCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private ReadCursor() {
+    }
+
+    static String encode(long offset, String query, Map<String, Object> params) {
+        String raw = offset + ":" + fingerprint(query, params);
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标得到已读记录数；cursor 为空时从头读取
+     */
+    static long decode(String cursor, String query, Map<String, Object> params) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        String raw;
+        try {
+            raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+        int sep = raw.indexOf(':');
+        if (sep <= 0 || !raw.substring(sep + 1).equals(fingerprint(query, params))) {
+            throw new IllegalArgumentException("分页游标与当前查询不匹配，请使用同一查询和参数续读");
+        }
+        try {
+            long offset = Long.parseLong(raw.substring(0, sep));
+            if (offset < 0) {
+                throw new IllegalArgumentException("无效的分页游标: " + cursor);
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+    }
+
+    private static String fingerprint(String query, Map<String, Object> params) {
+        return CypherText.hash(query, params).substring(0, 32);
+    }
+}
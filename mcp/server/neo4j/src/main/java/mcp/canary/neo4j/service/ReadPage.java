@@ -0,0 +1,31 @@
+package mcp.canary.neo4j.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分页读取结果
+ * hasMore 为 true 时，将 nextCursor 原样传回 read-neo4j-cypher 即可继续读取下一页
+ */
+@Data
+@AllArgsConstructor
+public class ReadPage {
+
+    /**
+     * 当前页的记录
+     */
+    private List<Map<String, Object>> records;
+
+    /**
+     * 下一页的续读游标，没有更多数据时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有未读取的记录
+     */
+    private boolean hasMore;
+}
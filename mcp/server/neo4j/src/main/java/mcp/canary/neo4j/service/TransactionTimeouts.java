@@ -0,0 +1,77 @@
+package mcp.canary.neo4j.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 事务超时配置
+ * neo4j.tx-timeout.default 作用于 Neo4jService 执行的所有事务，neo4j.tx-timeout.tools 按工具名覆盖；
+ * 工具调用时还可以用 timeoutSeconds 单独指定，但不超过 neo4j.tx-timeout.max。
+ * 超时由服务端计时，到期后服务端终止查询并回滚事务。
+ */
+@Component
+public class TransactionTimeouts {
+
+    private final Duration defaultTimeout;
+    private final Map<String, Duration> toolTimeouts;
+    private final Duration max;
+
+    public TransactionTimeouts(@Value("${neo4j.tx-timeout.default:PT60S}") Duration defaultTimeout,
+                               @Value("${neo4j.tx-timeout.tools:}") String toolTimeouts,
+                               @Value("${neo4j.tx-timeout.max:PT600S}") Duration max) {
+        if (max.isNegative() || max.isZero()) {
+            throw new IllegalArgumentException("neo4j.tx-timeout.max 必须大于 0");
+        }
+        this.defaultTimeout = defaultTimeout;
+        this.toolTimeouts = parse(toolTimeouts);
+        this.max = max;
+    }
+
+    /**
+     * 未指定工具时使用的超时，为 0 时沿用服务端的 db.transaction.timeout
+     */
+    public Duration defaultTimeout() {
+        return defaultTimeout;
+    }
+
+    /**
+     * 工具调用的事务超时：调用方指定的秒数优先（不超过上限），其次是工具配置，最后是默认值
+     */
+    public Duration forTool(String tool, Integer timeoutSeconds) {
+        if (timeoutSeconds != null) {
+            if (timeoutSeconds <= 0) {
+                throw new IllegalArgumentException("timeoutSeconds 必须大于 0");
+            }
+            Duration requested = Duration.ofSeconds(timeoutSeconds);
+            return requested.compareTo(max) > 0 ? max : requested;
+        }
+        return toolTimeouts.getOrDefault(tool, defaultTimeout);
+    }
+
+    /**
+     * 解析 "read-neo4j-cypher=PT30S,ingest-neo4j-nodes=PT5M" 形式的工具超时
+     */
+    static Map<String, Duration> parse(String timeouts) {
+        Map<String, Duration> parsed = new LinkedHashMap<>();
+        if (timeouts == null || timeouts.isBlank()) {
+            return parsed;
+        }
+        for (String item : timeouts.split(",")) {
+            String[] pair = item.split("=");
+            try {
+                if (pair.length != 2 || pair[0].isBlank()) {
+                    throw new IllegalArgumentException(item);
+                }
+                parsed.put(pair[0].trim(), Duration.parse(pair[1].trim()));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IllegalArgumentException("neo4j.tx-timeout.tools 格式应为 工具名=ISO-8601 时长，逗号分隔：" + item);
+            }
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,26 @@
+package mcp.canary.neo4j.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 批量写入中的一条语句
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WriteStatement {
+
+    /**
+     * Cypher 写入语句
+     */
+    private String query;
+
+    /**
+     * 语句参数，可以为空
+     */
+    private Map<String, Object> params;
+}
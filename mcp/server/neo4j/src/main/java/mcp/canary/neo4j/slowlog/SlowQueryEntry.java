@@ -0,0 +1,64 @@
+package mcp.canary.neo4j.slowlog;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 一条慢查询记录
+ * query 是自动参数化后的文本，字面量已提取为参数，记录里不保存参数值。
+ */
+@Data
+public class SlowQueryEntry {
+
+    /**
+     * 查询形状指纹，与 mcp.tool.latency 的 query 标签一致
+     */
+    private String fingerprint;
+
+    private String query;
+
+    /**
+     * 本页返回的记录数
+     */
+    private int rows;
+
+    /**
+     * 续读时在游标上跳过的记录数
+     */
+    private long skipped;
+
+    /**
+     * 从打开会话到读完本页的总耗时，包含驱动重试
+     */
+    private long elapsedMillis;
+
+    /**
+     * 服务端返回第一条记录前的耗时（ResultSummary.resultAvailableAfter），未知时为 -1
+     */
+    private long availableAfterMillis = -1;
+
+    /**
+     * 服务端消费完结果的耗时（ResultSummary.resultConsumedAfter），未知时为 -1
+     */
+    private long consumedAfterMillis = -1;
+
+    private String server;
+
+    /**
+     * 记录时间，ISO-8601
+     */
+    private String recordedAt;
+
+    /**
+     * EXPLAIN 或 PROFILE，未采集到执行计划时为 null
+     */
+    private String planType;
+
+    /**
+     * 执行计划树：operator、identifiers、arguments、children，PROFILE 额外带 dbHits、rows
+     */
+    private Map<String, Object> plan;
+
+    private String planError;
+}
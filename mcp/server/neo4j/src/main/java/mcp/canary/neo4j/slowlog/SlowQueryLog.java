@@ -0,0 +1,199 @@
+package mcp.canary.neo4j.slowlog;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import mcp.canary.neo4j.cypher.CypherText;
+import mcp.canary.neo4j.service.Neo4jService;
+import org.neo4j.driver.summary.Plan;
+import org.neo4j.driver.summary.ProfiledPlan;
+import org.neo4j.driver.summary.ResultSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢查询日志
+ * read-neo4j-cypher 单页读取超过 neo4j.slow-query.threshold 时记录一条，保存在容量为 neo4j.slow-query.capacity 的环形缓冲中，
+ * 满了丢弃最早的记录。执行计划异步采集，不拖慢本次读取：查询自带 EXPLAIN/PROFILE 时直接取其 ResultSummary，
+ * 否则按 neo4j.slow-query.plan 通过 Neo4jService 补跑一次 EXPLAIN（只编译不执行）或 PROFILE（会完整再执行一次），
+ * 事务超时为 neo4j.slow-query.plan-timeout，连接不可用时不采集。
+ * 同一形状的计划正在采集时，后续记录不再重复采集；PROFILE 模式下每个指纹只 PROFILE 一次，之后改用 EXPLAIN，
+ * 避免反复重跑本来就慢的查询。
+ */
+@Component
+public class SlowQueryLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private final Neo4jService neo4jService;
+    private final long thresholdNanos;
+    private final int capacity;
+    private final String planMode;
+    private final Duration planTimeout;
+    private final Counter slowQueries;
+
+    private final ArrayDeque<SlowQueryEntry> entries = new ArrayDeque<>();
+    private final Set<String> capturing = ConcurrentHashMap.newKeySet();
+    /**
+     * 已经 PROFILE 过的指纹，最多保留 capacity 个，按最近使用淘汰
+     */
+    private final Set<String> profiled;
+
+    /**
+     * @param neo4jService Neo4jService 读取时回调本类，这里延迟注入以打破循环依赖
+     */
+    public SlowQueryLog(@Lazy Neo4jService neo4jService,
+                        @Value("${neo4j.slow-query.threshold:PT1S}") Duration threshold,
+                        @Value("${neo4j.slow-query.capacity:100}") int capacity,
+                        @Value("${neo4j.slow-query.plan:explain}") String planMode,
+                        @Value("${neo4j.slow-query.plan-timeout:PT5S}") Duration planTimeout,
+                        MeterRegistry meterRegistry) {
+        String mode = planMode.trim().toUpperCase(Locale.ROOT);
+        if (!mode.equals("EXPLAIN") && !mode.equals("PROFILE")) {
+            throw new IllegalArgumentException("neo4j.slow-query.plan 只能是 explain 或 profile");
+        }
+        this.neo4jService = neo4jService;
+        this.thresholdNanos = threshold.toNanos();
+        this.capacity = capacity;
+        this.planMode = mode;
+        this.planTimeout = planTimeout;
+        this.profiled = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > Math.max(capacity, 1);
+            }
+        }));
+        this.slowQueries = Counter.builder("neo4j.slow.queries").register(meterRegistry);
+    }
+
+    /**
+     * 一次分页读取完成后调用，未超过阈值时直接返回
+     *
+     * @param summary 本次读取的 ResultSummary，可为 null
+     */
+    public void onRead(String query, Map<String, Object> params, long skipped, int rows,
+                       long elapsedNanos, ResultSummary summary) {
+        if (capacity <= 0 || elapsedNanos < thresholdNanos) {
+            return;
+        }
+        slowQueries.increment();
+        SlowQueryEntry entry = new SlowQueryEntry();
+        entry.setFingerprint(CypherText.fingerprint(query));
+        entry.setQuery(query);
+        entry.setRows(rows);
+        entry.setSkipped(skipped);
+        entry.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        entry.setRecordedAt(Instant.now().toString());
+        if (summary != null) {
+            entry.setAvailableAfterMillis(summary.resultAvailableAfter(TimeUnit.MILLISECONDS));
+            entry.setConsumedAfterMillis(summary.resultConsumedAfter(TimeUnit.MILLISECONDS));
+            if (summary.server() != null) {
+                entry.setServer(summary.server().address());
+            }
+        }
+        logger.warn("慢查询 {}：{} ms，{} 行，{}", entry.getFingerprint(), entry.getElapsedMillis(), rows, query);
+
+        if (summary != null && (summary.hasProfile() || summary.hasPlan())) {
+            applyPlan(entry, summary);
+            add(entry);
+        } else if (capturing.add(entry.getFingerprint())) {
+            capturePlan(entry, params).whenComplete((ignored, error) -> {
+                capturing.remove(entry.getFingerprint());
+                add(entry);
+            });
+        } else {
+            add(entry);
+        }
+    }
+
+    /**
+     * 最近的慢查询，最新的在前
+     *
+     * @param limit 最多返回条数，为 null 或不大于 0 时返回全部
+     */
+    public synchronized List<SlowQueryEntry> entries(Integer limit) {
+        int size = limit == null || limit <= 0 ? entries.size() : Math.min(limit, entries.size());
+        List<SlowQueryEntry> result = new ArrayList<>(size);
+        Iterator<SlowQueryEntry> it = entries.descendingIterator();
+        while (result.size() < size && it.hasNext()) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private synchronized void add(SlowQueryEntry entry) {
+        while (entries.size() >= capacity) {
+            entries.pollFirst();
+        }
+        entries.addLast(entry);
+    }
+
+    private CompletionStage<Void> capturePlan(SlowQueryEntry entry, Map<String, Object> params) {
+        CompletionStage<ResultSummary> planning;
+        try {
+            planning = planMode.equals("PROFILE") && profiled.add(entry.getFingerprint())
+                    ? neo4jService.profileAsync(entry.getQuery(), params, planTimeout)
+                    : neo4jService.explainAsync(entry.getQuery(), params, planTimeout);
+        } catch (RuntimeException e) {
+            entry.setPlanError(e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        return planning.handle((summary, error) -> {
+            if (error != null) {
+                entry.setPlanError(error.getMessage());
+                logger.debug("采集 {} 执行计划失败", entry.getFingerprint(), error);
+            } else {
+                applyPlan(entry, summary);
+            }
+            return null;
+        });
+    }
+
+    private static void applyPlan(SlowQueryEntry entry, ResultSummary summary) {
+        if (summary.hasProfile()) {
+            entry.setPlanType("PROFILE");
+            entry.setPlan(toMap(summary.profile()));
+        } else if (summary.hasPlan()) {
+            entry.setPlanType("EXPLAIN");
+            entry.setPlan(toMap(summary.plan()));
+        }
+    }
+
+    /**
+     * 把执行计划树转换为可序列化的 Map
+     */
+    static Map<String, Object> toMap(Plan plan) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("operator", plan.operatorType());
+        node.put("identifiers", plan.identifiers());
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        for (Map.Entry<String, org.neo4j.driver.Value> argument : plan.arguments().entrySet()) {
+            arguments.put(argument.getKey(), argument.getValue().asObject());
+        }
+        node.put("arguments", arguments);
+        if (plan instanceof ProfiledPlan profiled) {
+            node.put("dbHits", profiled.dbHits());
+            node.put("rows", profiled.records());
+        }
+        List<Map<String, Object>> children = new ArrayList<>();
+        for (Plan child : plan.children()) {
+            children.add(toMap(child));
+        }
+        node.put("children", children);
+        return node;
+    }
+}
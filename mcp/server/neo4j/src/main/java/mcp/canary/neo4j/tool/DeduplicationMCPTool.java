@@ -0,0 +1,49 @@
+package mcp.canary.neo4j.tool;
+
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema.LoggingLevel;
+import io.modelcontextprotocol.spec.McpSchema.LoggingMessageNotification;
+import jakarta.annotation.Resource;
+import mcp.canary.neo4j.dedup.DeduplicationEngine;
+import mcp.canary.neo4j.dedup.DeduplicationReport;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Component
+public class DeduplicationMCPTool {
+
+    @Resource
+    private DeduplicationEngine deduplicationEngine;
+
+    /**
+     * 全量去重。
+     * 注意事项：默认只做统计（dryRun），确认后再传 dryRun=false 执行合并。每个批次完成后推送一条进度日志。
+     * 去重是长时间的阻塞操作，放到 boundedElastic 上执行。
+     */
+    @McpTool(name = "deduplicate-neo4j-nodes",
+            description = "按标签合并 name 相同的重复节点（APOC 合并属性和关系），分批执行，每批一个事务。" +
+                    "默认 dryRun=true 只返回重复分组数和多余节点数，不修改数据；确认需要合并时传 dryRun=false。")
+    public Mono<DeduplicationReport> deduplicateNodes(
+            @McpToolParam(description = "是否只统计不合并，缺省为 true", required = false) Boolean dryRun,
+            McpAsyncServerExchange exchange) {
+        boolean safeDryRun = dryRun == null || dryRun;
+        return sendLog(exchange, safeDryRun ? "开始统计重复节点" : "开始分批合并重复节点")
+                .then(Mono.fromCallable(() -> deduplicationEngine.deduplicate(safeDryRun,
+                                message -> sendLog(exchange, message).subscribe()))
+                        .subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private Mono<Void> sendLog(McpAsyncServerExchange exchange, String message) {
+        if (exchange == null) {
+            return Mono.empty();
+        }
+        return exchange.loggingNotification(LoggingMessageNotification.builder()
+                .level(LoggingLevel.INFO)
+                .logger("Neo4j-Dedup-Tool")
+                .data(message)
+                .build());
+    }
+}
@@ -0,0 +1,75 @@
+package mcp.canary.neo4j.tool;
+
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema.LoggingLevel;
+import io.modelcontextprotocol.spec.McpSchema.LoggingMessageNotification;
+import jakarta.annotation.Resource;
+import mcp.canary.neo4j.cypher.CypherParameterizer;
+import mcp.canary.neo4j.cypher.CypherText;
+import mcp.canary.neo4j.graph.GraphResult;
+import mcp.canary.neo4j.guard.QueryGuard;
+import mcp.canary.neo4j.service.Neo4jService;
+import mcp.canary.neo4j.service.TransactionTimeouts;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@Component
+public class GraphMCPTool {
+
+    @Resource
+    private Neo4jService neo4jService;
+
+    @Resource
+    private CypherParameterizer cypherParameterizer;
+
+    @Resource
+    private QueryGuard queryGuard;
+
+    @Resource
+    private TransactionTimeouts transactionTimeouts;
+
+    @Value("${neo4j.graph.max-nodes:500}")
+    private int maxNodes = 500;
+
+    @Value("${neo4j.graph.max-edges:2000}")
+    private int maxEdges = 2000;
+
+    /**
+     * 以图的形式读取数据。
+     * 注意事项：与 read-neo4j-cypher 相同的只读检查和代价准入；结果不分页，节点或关系数达到上限时截断。
+     * 一次遍历记录中的节点、关系和路径，按 elementId 去重，输出可直接交给 generate_graph_chart 的 nodes/edges。
+     */
+    @McpTool(name = "read-neo4j-graph",
+            description = "执行只读查询并把结果中的节点、关系、路径整理成去重后的 nodes 和 edges，" +
+                    "格式与 generate_graph_chart 的 nodes/edges 参数一致，可直接传入画图，无需自己转换。" +
+                    "查询应返回节点、关系或路径，如 MATCH p=(a:Person)-[:KNOWS]->(b) RETURN p LIMIT 50。" +
+                    "truncated 为 true 表示达到数量上限，danglingEdges 为两端节点不在结果中而被略去的关系数。")
+    public Mono<GraphResult> readNeo4jGraph(
+            @McpToolParam(description = "Cypher read query returning nodes, relationships or paths") String query,
+            @McpToolParam(description = "查询参数，如 {\"name\": \"Alice\"}", required = false) Map<String, Object> params,
+            @McpToolParam(description = "事务超时秒数，缺省使用服务端配置", required = false) Integer timeoutSeconds,
+            McpAsyncServerExchange exchange) {
+
+        CypherText.Parameterized p = cypherParameterizer.apply(query, params);
+        return sendLog(exchange, "读取图数据")
+                .then(Mono.fromCompletionStage(() -> queryGuard.checkRead(p.query(), p.params())))
+                .flatMap(admitted -> Mono.fromCompletionStage(() -> neo4jService.executeGraphAsync(admitted, p.params(),
+                        maxNodes, maxEdges, transactionTimeouts.forTool("read-neo4j-graph", timeoutSeconds))));
+    }
+
+    private Mono<Void> sendLog(McpAsyncServerExchange exchange, String message) {
+        if (exchange == null) {
+            return Mono.empty();
+        }
+        return exchange.loggingNotification(LoggingMessageNotification.builder()
+                .level(LoggingLevel.INFO)
+                .logger("Neo4j-Graph-Tool")
+                .data(message)
+                .build());
+    }
+}
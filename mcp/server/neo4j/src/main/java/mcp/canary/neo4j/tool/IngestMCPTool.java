@@ -0,0 +1,72 @@
+package mcp.canary.neo4j.tool;
+
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema.LoggingLevel;
+import io.modelcontextprotocol.spec.McpSchema.LoggingMessageNotification;
+import jakarta.annotation.Resource;
+import mcp.canary.neo4j.cache.SchemaCache;
+import mcp.canary.neo4j.dedup.DeduplicationJob;
+import mcp.canary.neo4j.ingest.BulkIngestor;
+import mcp.canary.neo4j.service.TransactionTimeouts;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class IngestMCPTool {
+
+    @Resource
+    private BulkIngestor bulkIngestor;
+
+    @Resource
+    private SchemaCache schemaCache;
+
+    @Resource
+    private DeduplicationJob deduplicationJob;
+
+    @Resource
+    private TransactionTimeouts transactionTimeouts;
+
+    /**
+     * 批量导入节点。
+     * 注意事项：每行必须带合并键；行内其余字段作为属性写入（SET n += row），值只能是基本类型或其列表。
+     * 分批在独立事务中执行，每批完成后推送一条进度日志，放到 boundedElastic 上执行。
+     * 超时按批计算；调用被取消时中断执行线程，进行中的批次由驱动断开连接并回滚，之后的批次不再执行，已提交的批次保留。
+     */
+    @McpTool(name = "ingest-neo4j-nodes",
+            description = "批量导入节点：按 key 把 rows 中的每一行 MERGE 到 label 下，其余字段写为属性。" +
+                    "服务端用 UNWIND 分批执行，适合一次写入几十到几万个实体，代替多次调用 write-neo4j-cypher。返回汇总的写入统计。")
+    public Mono<Map<String, Object>> ingestNodes(
+            @McpToolParam(description = "节点标签，如 Person") String label,
+            @McpToolParam(description = "合并键属性名，如 name") String key,
+            @McpToolParam(description = "行数据列表，如 [{\"name\": \"Alice\", \"age\": 30}]") List<Map<String, Object>> rows,
+            @McpToolParam(description = "每个事务处理的行数，缺省使用服务端配置", required = false) Integer batchSize,
+            @McpToolParam(description = "每批事务的超时秒数，缺省使用服务端配置", required = false) Integer timeoutSeconds,
+            McpAsyncServerExchange exchange) {
+        return sendLog(exchange, "开始批量导入 " + (rows == null ? 0 : rows.size()) + " 行")
+                .then(Mono.fromCallable(() -> bulkIngestor.ingest(label, key, rows, batchSize,
+                                transactionTimeouts.forTool("ingest-neo4j-nodes", timeoutSeconds),
+                                message -> sendLog(exchange, message).subscribe()))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .doOnNext(summary -> {
+                    schemaCache.onWrite(summary);
+                    deduplicationJob.markIngested(label, rows, summary);
+                });
+    }
+
+    private Mono<Void> sendLog(McpAsyncServerExchange exchange, String message) {
+        if (exchange == null) {
+            return Mono.empty();
+        }
+        return exchange.loggingNotification(LoggingMessageNotification.builder()
+                .level(LoggingLevel.INFO)
+                .logger("Neo4j-Ingest-Tool")
+                .data(message)
+                .build());
+    }
+}
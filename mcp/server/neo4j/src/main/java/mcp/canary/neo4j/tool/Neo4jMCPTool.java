@@ -1,15 +1,32 @@
 package mcp.canary.neo4j.tool;
 
-import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema.LoggingLevel;
 import io.modelcontextprotocol.spec.McpSchema.LoggingMessageNotification;
 import jakarta.annotation.Resource;
+import mcp.canary.neo4j.cache.IdempotencyCache;
+import mcp.canary.neo4j.cache.QueryResultCache;
+import mcp.canary.neo4j.cache.SchemaCache;
+import mcp.canary.neo4j.coalesce.WriteCoalescer;
+import mcp.canary.neo4j.cypher.CypherParameterizer;
+import mcp.canary.neo4j.cypher.CypherText;
+import mcp.canary.neo4j.dedup.DeduplicationJob;
+import mcp.canary.neo4j.guard.QueryGuard;
+import mcp.canary.neo4j.service.BatchWriteResult;
 import mcp.canary.neo4j.service.Neo4jService;
+import mcp.canary.neo4j.service.ReadPage;
+import mcp.canary.neo4j.service.TransactionTimeouts;
+import mcp.canary.neo4j.service.WriteStatement;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletionStage;
 
 @Component
 public class Neo4jMCPTool {
@@ -17,66 +34,164 @@ public class Neo4jMCPTool {
     @Resource
     private Neo4jService neo4jService;
 
+    @Resource
+    private DeduplicationJob deduplicationJob;
+
+    @Resource
+    private QueryResultCache queryResultCache;
+
+    @Resource
+    private SchemaCache schemaCache;
+
+    @Resource
+    private CypherParameterizer cypherParameterizer;
+
+    @Resource
+    private QueryGuard queryGuard;
+
+    @Resource
+    private TransactionTimeouts transactionTimeouts;
+
+    @Resource
+    private WriteCoalescer writeCoalescer;
+
+    @Resource
+    private IdempotencyCache idempotencyCache;
+
+    @Value("${neo4j.read.page-size:200}")
+    private int readPageSize = 200;
+
     /**
-     * 获取数据库架构，包含标签和属性名。
-     * 提示：此工具使用 APOC 辅助生成元数据预览。
+     * 获取数据库架构，包含节点标签、关系类型及其属性名。
+     * 提示：此工具使用 APOC 辅助生成元数据预览，结果有缓存，只有出现新的标签、关系类型或属性键时才重新生成。
+     * 缓存未命中时可能等待 APOC，放到 boundedElastic 上执行，不阻塞事件循环。
      */
     @McpTool(name = "get-neo4j-schema",
-            description = "获取图数据库的 Schema。包含节点标签(Labels)、属性键和关系类型。在编写 Cypher 之前应先调用此工具。")
-    public List<Map<String, Object>> getNeo4jSchema(McpSyncServerExchange exchange) {
-        sendLog(exchange, "Fetching database schema...");
-        String query = "CALL apoc.meta.data() YIELD label, property, type, elementType " +
-                "WHERE elementType = 'node' RETURN label, collect(property) as properties";
-        return neo4jService.execute(query, null);
+            description = "获取图数据库的 Schema。包含节点标签(Labels)、关系类型及各自的属性键，以及节点上的关系。在编写 Cypher 之前应先调用此工具。")
+    public Mono<List<Map<String, Object>>> getNeo4jSchema(McpAsyncServerExchange exchange) {
+        return sendLog(exchange, "Fetching database schema...")
+                .then(Mono.fromCallable(schemaCache::get).subscribeOn(Schedulers.boundedElastic()));
     }
 
     /**
-     * 读取数据并在完成后触发自动去重。
-     * 注意事项：此工具仅限 MATCH/RETURN 语句。系统会自动合并 name 相同的重复节点。
+     * 读取数据。
+     * 注意事项：此工具仅限只读查询，由服务端 EXPLAIN 给出的查询类型判定，判定结果按查询形状缓存。
+     * 同一份 EXPLAIN 的估算行数超出预算时拒绝执行，或按配置追加 LIMIT 后执行。
+     * name 相同的重复节点由后台任务合并，读路径不做去重。
+     * 结果按页流式返回，hasMore 为 true 时携带 nextCursor 再次调用即可续读。
+     * 相同查询的结果会在进程内缓存，写入后按标签失效。
+     * 执行前字面量会被提取为参数，结构相同的查询共用一份执行计划。
+     * 查询通过驱动的异步会话执行，等待数据库期间不占用线程。
+     * 事务超时取 timeoutSeconds 或 neo4j.tx-timeout 中的工具配置；客户端断开、调用被取消时事务随之回滚。
      */
     @McpTool(name = "read-neo4j-cypher",
-            description = "执行读取查询。注意：系统会自动触发基于 'name' 属性的去重（使用 APOC 合并节点和关系）。仅支持 MATCH 查询。")
-    public List<Map<String, Object>> readNeo4jCypher(
-            @McpToolParam(description = "Cypher read query (e.g. MATCH (n) RETURN n LIMIT 10)") String query,
-            McpSyncServerExchange exchange) {
-
-        if (query.toUpperCase().matches(".*\\b(CREATE|MERGE|DELETE|SET)\\b.*")) {
-            throw new IllegalArgumentException("Read tool only supports read-only queries.");
-        }
-
-        sendLog(exchange, "Executing read and checking for duplicates...");
-        List<Map<String, Object>> results = neo4jService.execute(query, null);
-
-        // 执行去重逻辑
-        neo4jService.deduplicateNodesByName();
+            description = "执行只读查询。包含写入（CREATE、MERGE、SET、REMOVE、DELETE、写入型过程等）的查询会被拒绝。建议把查询中的值写成 $参数 并通过 params 传入。" +
+                    "结果分页返回：若 hasMore 为 true，请用相同的 query、params 并传入返回的 nextCursor 继续读取下一页。")
+    public Mono<ReadPage> readNeo4jCypher(
+            @McpToolParam(description = "Cypher read query (e.g. MATCH (n:Person {name: $name}) RETURN n LIMIT 10)") String query,
+            @McpToolParam(description = "查询参数，如 {\"name\": \"Alice\"}", required = false) Map<String, Object> params,
+            @McpToolParam(description = "上一页返回的 nextCursor，首次查询留空", required = false) String cursor,
+            @McpToolParam(description = "事务超时秒数，缺省使用服务端配置", required = false) Integer timeoutSeconds,
+            McpAsyncServerExchange exchange) {
 
-        return results;
+        CypherText.Parameterized p = cypherParameterizer.apply(query, params);
+        return sendLog(exchange, "Executing read...")
+                .then(Mono.fromCompletionStage(() -> queryGuard.checkRead(p.query(), p.params())))
+                .flatMap(admitted -> Mono.fromCompletionStage(() -> {
+                    Duration timeout = transactionTimeouts.forTool("read-neo4j-cypher", timeoutSeconds);
+                    return queryResultCache.getAsync(admitted, p.params(), cursor, readPageSize,
+                            () -> neo4jService.executePageAsync(admitted, p.params(), cursor, readPageSize, timeout));
+                }));
     }
 
     /**
      * 写入数据。
      * 注意事项：建议优先使用 MERGE 语法。如果使用 CREATE，系统会尝试应用幂等逻辑。
+     * 写入成功后登记被改动的 name，由后台任务增量合并同名节点。
+     * 执行前字面量会被提取为参数，结构相同的写入共用一份执行计划。
+     * 写入通过驱动的异步会话执行，等待数据库期间不占用线程。
+     * 开启 neo4j.coalesce.enabled 时，并发到达的同形 MERGE 合并到同一个事务中提交。
+     * 给出 idempotencyKey 时，同一键在 neo4j.idempotency.ttl 内只写一次，重复调用直接返回第一次的统计，
+     * 不再失效缓存或登记去重；同一键用于不同的查询或参数时拒绝执行。未给出时不去重。
+     * 事务超时取 timeoutSeconds 或 neo4j.tx-timeout 中的工具配置；客户端断开、调用被取消时事务随之回滚。
      */
     @McpTool(name = "write-neo4j-cypher",
-            description = "执行写入查询。注意事项：请务必使用 MERGE 语法而非 CREATE，以确保 '存在即修改' 的幂等行为。若节点已存在，请在 MERGE 后面紧跟 ON MATCH SET。")
-    public Map<String, Object> writeNeo4jCypher(
-            @McpToolParam(description = "Cypher write query (Recommended: MERGE (n:Label {name: 'xxx'}) ON MATCH SET n.prop = 'val')") String query,
-            McpSyncServerExchange exchange) {
-
-        sendLog(exchange, "开始执行 Neo4j 读取查询");
+            description = "执行写入查询。注意事项：请务必使用 MERGE 语法而非 CREATE，以确保 '存在即修改' 的幂等行为。若节点已存在，请在 MERGE 后面紧跟 ON MATCH SET。" +
+                    "建议把值写成 $参数 并通过 params 传入。超时后重试同一写入时请带上相同的 idempotencyKey，已执行过的写入不会重复生效。")
+    public Mono<Map<String, Object>> writeNeo4jCypher(
+            @McpToolParam(description = "Cypher write query (Recommended: MERGE (n:Label {name: $name}) ON MATCH SET n.prop = $value)") String query,
+            @McpToolParam(description = "查询参数，如 {\"name\": \"Alice\", \"value\": 1}", required = false) Map<String, Object> params,
+            @McpToolParam(description = "事务超时秒数，缺省使用服务端配置", required = false) Integer timeoutSeconds,
+            @McpToolParam(description = "幂等键，重试时保持不变，不同写入使用不同的键；缺省不去重", required = false) String idempotencyKey,
+            McpAsyncServerExchange exchange) {
 
         // 自动逻辑增强：将裸的 CREATE 转换为 MERGE 是一种高风险操作，
         // 我们通过提示词强约束 LLM 使用 MERGE，此处直接执行并返回统计。
-        return neo4jService.executeWriteWithSummary(query, null);
+        CypherText.Parameterized p = cypherParameterizer.apply(query, params);
+        return sendLog(exchange, "开始执行 Neo4j 读取查询")
+                .then(Mono.fromCompletionStage(() -> idempotencyCache.execute(idempotencyKey, p.query(), p.params(), () -> {
+                    Duration timeout = transactionTimeouts.forTool("write-neo4j-cypher", timeoutSeconds);
+                    CompletionStage<Map<String, Object>> write = writeCoalescer.accepts(p.query())
+                            ? writeCoalescer.submit(p.query(), p.params(), timeout)
+                            : neo4jService.executeWriteWithSummaryAsync(p.query(), p.params(), timeout);
+                    // 副作用只在真正写入时执行，重放的调用跳过
+                    return Neo4jService.forwardCancel(write, write.thenApply(summary -> {
+                        queryResultCache.onWrite(query, summary);
+                        schemaCache.onWrite(summary);
+                        deduplicationJob.markDirty(query, params, summary);
+                        return summary;
+                    }));
+                })));
+    }
+
+    /**
+     * 批量写入。
+     * 注意事项：所有语句按顺序在同一个写事务中执行，只提交一次；任一语句失败则整批回滚，已执行的语句也不会生效。
+     * 每条语句单独做字面量参数化，写入后逐条失效缓存、登记去重。
+     * 事务超时作用于整个事务，取 timeoutSeconds 或 neo4j.tx-timeout 中的工具配置。
+     */
+    @McpTool(name = "write-neo4j-cypher-batch",
+            description = "在一个事务中按顺序执行多条写入语句，一次调用、一次提交，适合一次创建多个相互关联的实体和关系。" +
+                    "任一语句失败时全部回滚。返回每条语句的写入统计（statements）和汇总（total）。语句写法要求同 write-neo4j-cypher。")
+    public Mono<BatchWriteResult> writeNeo4jCypherBatch(
+            @McpToolParam(description = "按顺序执行的语句列表，如 [{\"query\": \"MERGE (a:Person {name: $name})\", \"params\": {\"name\": \"Alice\"}}]")
+            List<WriteStatement> statements,
+            @McpToolParam(description = "事务超时秒数，缺省使用服务端配置", required = false) Integer timeoutSeconds,
+            McpAsyncServerExchange exchange) {
+
+        List<WriteStatement> parameterized = new ArrayList<>();
+        if (statements != null) {
+            for (WriteStatement statement : statements) {
+                if (statement == null || statement.getQuery() == null) {
+                    parameterized.add(statement);
+                    continue;
+                }
+                CypherText.Parameterized p = cypherParameterizer.apply(statement.getQuery(), statement.getParams());
+                parameterized.add(new WriteStatement(p.query(), p.params()));
+            }
+        }
+        return sendLog(exchange, "开始批量写入 " + parameterized.size() + " 条语句")
+                .then(Mono.fromCompletionStage(() -> neo4jService.executeWriteBatchAsync(parameterized,
+                        transactionTimeouts.forTool("write-neo4j-cypher-batch", timeoutSeconds))))
+                .doOnNext(result -> {
+                    for (int i = 0; i < statements.size(); i++) {
+                        WriteStatement statement = statements.get(i);
+                        Map<String, Object> summary = result.getStatements().get(i);
+                        queryResultCache.onWrite(statement.getQuery(), summary);
+                        deduplicationJob.markDirty(statement.getQuery(), statement.getParams(), summary);
+                    }
+                    schemaCache.onWrite(result.getTotal());
+                });
     }
 
-    private void sendLog(McpSyncServerExchange exchange, String message) {
-        if (exchange != null) {
-            exchange.loggingNotification(LoggingMessageNotification.builder()
-                    .level(LoggingLevel.INFO)
-                    .logger("Neo4j-Tool")
-                    .data(message)
-                    .build());
+    private Mono<Void> sendLog(McpAsyncServerExchange exchange, String message) {
+        if (exchange == null) {
+            return Mono.empty();
         }
+        return exchange.loggingNotification(LoggingMessageNotification.builder()
+                .level(LoggingLevel.INFO)
+                .logger("Neo4j-Tool")
+                .data(message)
+                .build());
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package mcp.canary.neo4j.tool;
+
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import io.modelcontextprotocol.spec.McpSchema.LoggingLevel;
+import io.modelcontextprotocol.spec.McpSchema.LoggingMessageNotification;
+import jakarta.annotation.Resource;
+import mcp.canary.neo4j.slowlog.SlowQueryEntry;
+import mcp.canary.neo4j.slowlog.SlowQueryLog;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Component
+public class SlowQueryMCPTool {
+
+    @Resource
+    private SlowQueryLog slowQueryLog;
+
+    /**
+     * 查看慢查询日志。
+     * 注意事项：只读内存中的环形缓冲，不访问数据库。
+     */
+    @McpTool(name = "get-neo4j-slow-queries",
+            description = "返回最近超过阈值的 read-neo4j-cypher 查询（最新在前），包含查询形状指纹、行数、耗时和 EXPLAIN/PROFILE 执行计划。" +
+                    "用于找出全库扫描（AllNodesScan、NodeByLabelScan）等需要加索引或改写的查询。")
+    public Mono<List<SlowQueryEntry>> getSlowQueries(
+            @McpToolParam(description = "最多返回条数，缺省返回全部", required = false) Integer limit,
+            McpAsyncServerExchange exchange) {
+        return sendLog(exchange, "读取慢查询日志")
+                .then(Mono.fromSupplier(() -> slowQueryLog.entries(limit)));
+    }
+
+    private Mono<Void> sendLog(McpAsyncServerExchange exchange, String message) {
+        if (exchange == null) {
+            return Mono.empty();
+        }
+        return exchange.loggingNotification(LoggingMessageNotification.builder()
+                .level(LoggingLevel.INFO)
+                .logger("Neo4j-SlowQuery-Tool")
+                .data(message)
+                .build());
+    }
+}
@@ -6,10 +6,14 @@ import org.neo4j.driver.AuthToken;
 import org.neo4j.driver.Config;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.GraphDatabase;
+
+import java.util.concurrent.CompletableFuture;
+
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class Neo4jApplicationMainTest {
 
@@ -17,6 +21,7 @@ class Neo4jApplicationMainTest {
     void main_startsAndStops() {
         String uri = "bolt://localhost:7687";
         Driver driver = mock(Driver.class);
+        when(driver.verifyConnectivityAsync()).thenReturn(CompletableFuture.completedFuture(null));
 
         try (MockedStatic<GraphDatabase> graphDb = org.mockito.Mockito.mockStatic(GraphDatabase.class)) {
             graphDb.when(() -> GraphDatabase.driver(eq(uri), any(AuthToken.class), any(Config.class)))
@@ -0,0 +1,123 @@
+package mcp.canary.neo4j.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyCacheTest {
+
+    private static final Map<String, Object> STATS = Map.of("nodesCreated", 1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger writes;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        writes = new AtomicInteger();
+    }
+
+    @Test
+    void execute_sameKeySameStatement_writesOnce() {
+        IdempotencyCache cache = cache(100, Duration.ofMinutes(1));
+
+        cache.execute("k1", "CREATE (n {name: $p})", Map.of("p", "A"), this::write).toCompletableFuture().join();
+        assertEquals(STATS, cache.execute("k1", "CREATE  (n {name: $p})", Map.of("p", "A"), this::write)
+                .toCompletableFuture().join());
+
+        assertEquals(1, writes.get());
+        assertEquals(1, meterRegistry.get("neo4j.idempotency.replays").counter().count());
+    }
+
+    @Test
+    void execute_withoutKey_alwaysWrites() {
+        IdempotencyCache cache = cache(100, Duration.ofMinutes(1));
+
+        cache.execute(null, "CREATE (n {name: $p})", Map.of("p", "A"), this::write).toCompletableFuture().join();
+        cache.execute(" ", "CREATE (n {name: $p})", Map.of("p", "A"), this::write).toCompletableFuture().join();
+        cache.execute(null, "CREATE (n {name: $p})", Map.of("p", "A"), this::write).toCompletableFuture().join();
+
+        assertEquals(3, writes.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void execute_sameKeyDifferentStatement_rejected() {
+        IdempotencyCache cache = cache(100, Duration.ofMinutes(1));
+        cache.execute("k1", "CREATE (n {name: $p})", Map.of("p", "A"), this::write).toCompletableFuture().join();
+
+        CompletableFuture<Map<String, Object>> otherQuery = cache.execute("k1", "CREATE (m {name: $p})", Map.of("p", "A"),
+                this::write).toCompletableFuture();
+        CompletableFuture<Map<String, Object>> otherParams = cache.execute("k1", "CREATE (n {name: $p})", Map.of("p", "B"),
+                this::write).toCompletableFuture();
+
+        CompletionException error = assertThrows(CompletionException.class, otherQuery::join);
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        assertThrows(CompletionException.class, otherParams::join);
+        assertEquals(1, writes.get());
+        assertEquals(2, meterRegistry.get("neo4j.idempotency.conflicts").counter().count());
+        assertEquals(0, meterRegistry.get("neo4j.idempotency.replays").counter().count());
+    }
+
+    @Test
+    void execute_inFlightDuplicate_waitsForFirstWrite() {
+        IdempotencyCache cache = cache(100, Duration.ofMinutes(1));
+        CompletableFuture<Map<String, Object>> pending = new CompletableFuture<>();
+
+        CompletableFuture<Map<String, Object>> first = cache.execute("k", "CREATE (n)", null, () -> pending).toCompletableFuture();
+        CompletableFuture<Map<String, Object>> retry = cache.execute("k", "CREATE (n)", null, this::write).toCompletableFuture();
+        assertFalse(retry.isDone());
+        pending.complete(STATS);
+
+        assertEquals(STATS, first.join());
+        assertEquals(STATS, retry.join());
+        assertEquals(0, writes.get());
+    }
+
+    @Test
+    void execute_failedWrite_forgottenSoRetryWrites() {
+        IdempotencyCache cache = cache(100, Duration.ofMinutes(1));
+
+        CompletableFuture<Map<String, Object>> failed = cache.execute("k", "CREATE (n)", null,
+                () -> CompletableFuture.failedFuture(new IllegalStateException("boom"))).toCompletableFuture();
+        assertThrows(CompletionException.class, failed::join);
+        cache.execute("k", "CREATE (n)", null, this::write).toCompletableFuture().join();
+
+        assertEquals(1, writes.get());
+    }
+
+    @Test
+    void execute_expiredOrEvicted_writesAgain() {
+        IdempotencyCache expiring = cache(100, Duration.ofNanos(1));
+        expiring.execute("k", "CREATE (n)", null, this::write).toCompletableFuture().join();
+        expiring.execute("k", "CREATE (n)", null, this::write).toCompletableFuture().join();
+        assertEquals(2, writes.get());
+
+        IdempotencyCache small = cache(1, Duration.ofMinutes(1));
+        small.execute("a", "CREATE (n)", null, this::write).toCompletableFuture().join();
+        small.execute("b", "CREATE (n)", null, this::write).toCompletableFuture().join();
+        small.execute("a", "CREATE (n)", null, this::write).toCompletableFuture().join();
+        assertEquals(5, writes.get());
+        assertEquals(1, small.size());
+    }
+
+    private CompletableFuture<Map<String, Object>> write() {
+        writes.incrementAndGet();
+        return CompletableFuture.completedFuture(STATS);
+    }
+
+    private IdempotencyCache cache(int maxEntries, Duration ttl) {
+        return new IdempotencyCache(maxEntries, ttl, meterRegistry);
+    }
+}
@@ -0,0 +1,181 @@
+package mcp.canary.neo4j.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mcp.canary.neo4j.service.ReadPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryResultCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loads = new AtomicInteger();
+    }
+
+    private Supplier<ReadPage> loader(String value) {
+        return () -> {
+            loads.incrementAndGet();
+            return new ReadPage(List.of(Map.of("v", value)), null, false);
+        };
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+
+    @Test
+    void get_sameNormalizedQuery_hitsCache() {
+        QueryResultCache cache = new QueryResultCache(10, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry);
+
+        ReadPage first = cache.get("MATCH (n:Person) RETURN n", null, null, 10, loader("a"));
+        ReadPage second = cache.get("MATCH  (n:Person)\n RETURN n", null, null, 10, loader("b"));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, counter("neo4j.cache.query.hits"));
+        assertEquals(1, counter("neo4j.cache.query.misses"));
+    }
+
+    @Test
+    void get_differentParamsOrCursor_miss() {
+        QueryResultCache cache = new QueryResultCache(10, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry);
+
+        cache.get("MATCH (n:Person) RETURN n", null, null, 10, loader("a"));
+        cache.get("MATCH (n:Person) RETURN n", Map.of("x", 1), null, 10, loader("a"));
+        cache.get("MATCH (n:Person) RETURN n", null, "c1", 10, loader("a"));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void get_overMaxEntries_evictsLeastRecentlyUsed() {
+        QueryResultCache cache = new QueryResultCache(2, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry);
+
+        cache.get("MATCH (a:A) RETURN a", null, null, 10, loader("a"));
+        cache.get("MATCH (b:B) RETURN b", null, null, 10, loader("b"));
+        cache.get("MATCH (a:A) RETURN a", null, null, 10, loader("a"));
+        cache.get("MATCH (c:C) RETURN c", null, null, 10, loader("c"));
+        cache.get("MATCH (a:A) RETURN a", null, null, 10, loader("a"));
+
+        assertEquals(3, loads.get());
+        assertEquals(2, cache.size());
+        assertEquals(1, meterRegistry.get("neo4j.cache.query.evictions").tag("cause", "size").counter().count());
+    }
+
+    @Test
+    void get_overByteBudget_notCached() {
+        QueryResultCache cache = new QueryResultCache(10, DataSize.ofBytes(100), Duration.ofMinutes(1), meterRegistry);
+
+        cache.get("MATCH (a:A) RETURN a", null, null, 10, loader("x".repeat(200)));
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    void get_expiredEntry_reloads() throws InterruptedException {
+        QueryResultCache cache = new QueryResultCache(10, DataSize.ofMegabytes(1), Duration.ofMillis(1), meterRegistry);
+
+        cache.get("MATCH (a:A) RETURN a", null, null, 10, loader("a"));
+        Thread.sleep(5);
+        cache.get("MATCH (a:A) RETURN a", null, null, 10, loader("a"));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, meterRegistry.get("neo4j.cache.query.evictions").tag("cause", "expired").counter().count());
+    }
+
+    @Test
+    void onWrite_labelledWrite_invalidatesOnlyOverlappingAndUnscopedEntries() {
+        QueryResultCache cache = new QueryResultCache(10, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry);
+        cache.get("MATCH (p:Person) RETURN p", null, null, 10, loader("p"));
+        cache.get("MATCH (c:Company) RETURN c", null, null, 10, loader("c"));
+        cache.get("MATCH (n) RETURN n", null, null, 10, loader("n"));
+
+        cache.onWrite("MERGE (p:Person {name: 'A'})", Map.of("nodesCreated", 1));
+
+        assertEquals(1, cache.size());
+        cache.get("MATCH (c:Company) RETURN c", null, null, 10, loader("c"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void onWrite_zeroCountersOrUnknownScope() {
+        QueryResultCache cache = new QueryResultCache(10, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry);
+        cache.get("MATCH (c:Company) RETURN c", null, null, 10, loader("c"));
+
+        cache.onWrite("MERGE (p:Person {name: 'A'})", Map.of("nodesCreated", 0));
+        assertEquals(1, cache.size());
+
+        cache.onWrite("MATCH (n {name: 'A'}) SET n.x = 1", Map.of("propertiesSet", 1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void onWrite_existingNodesWithOtherLabels_invalidatesEverything() {
+        // 同一批节点同时带 :Employee 和 :Person，按 Employee 修改后 Person 的缓存也必须失效
+        QueryResultCache cache = new QueryResultCache(10, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry);
+        cache.get("MATCH (p:Person) RETURN p.age", null, null, 10, loader("p"));
+
+        cache.onWrite("MATCH (n:Employee) SET n.age = 1", Map.of("propertiesSet", 1));
+        assertEquals(0, cache.size());
+
+        cache.get("MATCH (p:Person) RETURN p.age", null, null, 10, loader("p"));
+        cache.onWrite("MERGE (n:Employee {id: 1}) ON MATCH SET n.age = 2", Map.of("propertiesSet", 1));
+        assertEquals(0, cache.size());
+
+        cache.get("MATCH (p:Person) RETURN p.age", null, null, 10, loader("p"));
+        cache.onWrite("MERGE (a:Employee {id: 1}) CREATE (a)-[:OWNS]->(:Car)", Map.of("relationshipsCreated", 1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void onWrite_createOnly_keepsUnrelatedLabels() {
+        QueryResultCache cache = new QueryResultCache(10, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry);
+        cache.get("MATCH (p:Person) RETURN p.age", null, null, 10, loader("p"));
+
+        cache.onWrite("CREATE (n:Employee {age: 1})", Map.of("nodesCreated", 1, "propertiesSet", 1));
+        cache.onWrite("MERGE (n:Employee {id: 2}) ON CREATE SET n.age = 1", Map.of("nodesCreated", 1));
+
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void invalidate_duringLoad_resultNotCached() {
+        QueryResultCache cache = new QueryResultCache(10, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry);
+
+        cache.get("MATCH (a:A) RETURN a", null, null, 10, () -> {
+            cache.invalidate(Set.of("A"));
+            return new ReadPage(List.of(), null, false);
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void getAsync_cancelled_cancelsLoader() {
+        QueryResultCache cache = new QueryResultCache(10, DataSize.ofMegabytes(1), Duration.ofMinutes(1), meterRegistry);
+        CompletableFuture<ReadPage> loading = new CompletableFuture<>();
+
+        cache.getAsync("MATCH (a:A) RETURN a", null, null, 10, () -> loading).toCompletableFuture().cancel(true);
+
+        assertTrue(loading.isCancelled());
+        assertEquals(0, cache.size());
+    }
+}
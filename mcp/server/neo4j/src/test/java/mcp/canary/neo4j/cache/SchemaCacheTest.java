@@ -0,0 +1,133 @@
+package mcp.canary.neo4j.cache;
+
+import mcp.canary.neo4j.service.Neo4jService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SchemaCacheTest {
+
+    private static final List<Map<String, Object>> APOC_ROWS =
+            List.of(Map.of("elementType", "node", "label", "Person", "properties", List.of("name")));
+
+    @Mock
+    private Neo4jService neo4jService;
+
+    private SchemaCache cache;
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    private void stubTokens(List<String> labels) {
+        when(neo4jService.execute(startsWith("CALL db.labels()"), isNull()))
+                .thenReturn(labels.stream().map(l -> Map.<String, Object>of("label", l)).toList());
+        when(neo4jService.execute(startsWith("CALL db.relationshipTypes()"), isNull()))
+                .thenReturn(List.of(Map.of("relationshipType", "KNOWS")));
+        when(neo4jService.execute(startsWith("CALL db.propertyKeys()"), isNull()))
+                .thenReturn(List.of(Map.of("propertyKey", "name")));
+    }
+
+    @Test
+    void get_cachesApocSchemaAcrossCalls() {
+        cache = new SchemaCache(neo4jService, Duration.ofSeconds(5));
+        stubTokens(List.of("Person"));
+        when(neo4jService.execute(eq(SchemaCache.APOC_SCHEMA_QUERY), isNull())).thenReturn(APOC_ROWS);
+
+        List<Map<String, Object>> first = cache.get();
+        List<Map<String, Object>> second = cache.get();
+
+        assertEquals(APOC_ROWS, first);
+        assertSame(first, second);
+        verify(neo4jService, times(1)).execute(eq(SchemaCache.APOC_SCHEMA_QUERY), isNull());
+    }
+
+    @Test
+    void get_apocSlow_returnsCheapSchemaFromTokens() throws InterruptedException {
+        cache = new SchemaCache(neo4jService, Duration.ofMillis(50));
+        stubTokens(List.of("Person"));
+        CountDownLatch release = new CountDownLatch(1);
+        when(neo4jService.execute(eq(SchemaCache.APOC_SCHEMA_QUERY), isNull())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return APOC_ROWS;
+        });
+
+        List<Map<String, Object>> rows = cache.get();
+
+        assertTrue(rows.contains(Map.of("elementType", "node", "label", "Person")));
+        assertTrue(rows.contains(Map.of("elementType", "relationship", "label", "KNOWS")));
+        assertTrue(rows.contains(Map.of("elementType", "propertyKeys", "properties", List.of("name"))));
+
+        release.countDown();
+        cache.refresh(false).join();
+        assertEquals(APOC_ROWS, cache.get());
+    }
+
+    @Test
+    void onWrite_sameTokens_keepsCache() {
+        cache = new SchemaCache(neo4jService, Duration.ofSeconds(5));
+        stubTokens(List.of("Person"));
+        when(neo4jService.execute(eq(SchemaCache.APOC_SCHEMA_QUERY), isNull())).thenReturn(APOC_ROWS);
+        cache.get();
+
+        cache.onWrite(Map.of("nodesCreated", 1));
+        cache.get();
+
+        verify(neo4jService, times(1)).execute(eq(SchemaCache.APOC_SCHEMA_QUERY), isNull());
+    }
+
+    @Test
+    void onWrite_newLabel_regeneratesSchema() {
+        cache = new SchemaCache(neo4jService, Duration.ofSeconds(5));
+        stubTokens(List.of("Person"));
+        when(neo4jService.execute(eq(SchemaCache.APOC_SCHEMA_QUERY), isNull())).thenReturn(APOC_ROWS);
+        cache.get();
+
+        stubTokens(List.of("Person", "Company"));
+        cache.onWrite(Map.of("labelsAdded", 1));
+        cache.backgroundCheck();
+        cache.refresh(false).join();
+
+        verify(neo4jService, times(2)).execute(eq(SchemaCache.APOC_SCHEMA_QUERY), isNull());
+    }
+
+    @Test
+    void onWrite_deleteOnly_skipsTokenCheck() {
+        cache = new SchemaCache(neo4jService, Duration.ofSeconds(5));
+        stubTokens(List.of("Person"));
+        when(neo4jService.execute(eq(SchemaCache.APOC_SCHEMA_QUERY), isNull())).thenReturn(APOC_ROWS);
+        cache.get();
+
+        cache.onWrite(Map.of("nodesDeleted", 3, "nodesCreated", 0));
+        cache.get();
+
+        verify(neo4jService, times(1)).execute(startsWith("CALL db.labels()"), isNull());
+        verify(neo4jService, never()).execute(startsWith("MATCH"), isNull());
+    }
+}
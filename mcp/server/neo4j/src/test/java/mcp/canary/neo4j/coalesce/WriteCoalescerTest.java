@@ -0,0 +1,162 @@
+package mcp.canary.neo4j.coalesce;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mcp.canary.neo4j.service.BatchWriteResult;
+import mcp.canary.neo4j.service.Neo4jService;
+import mcp.canary.neo4j.service.WriteStatement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class WriteCoalescerTest {
+
+    private static final String MERGE = "MERGE (n:Person {name: $__lit0})";
+
+    @Mock
+    private Neo4jService neo4jService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WriteCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.shutdown();
+        }
+    }
+
+    @Test
+    void accepts_onlyMergeWhenEnabled() {
+        assertFalse(coalescer(false, Duration.ofMillis(5), 10).accepts(MERGE));
+        coalescer.shutdown();
+        coalescer = coalescer(true, Duration.ofMillis(5), 10);
+        assertTrue(coalescer.accepts("  merge (n:Person {name: $name})"));
+        assertFalse(coalescer.accepts("CREATE (n:Person)"));
+        assertFalse(coalescer.accepts("MATCH (n) MERGE (n)-[:R]->(m)"));
+    }
+
+    @Test
+    void submit_fullBatch_runsOneSortedTransactionAndSplitsCounters() {
+        Map<String, Object> bob = Map.of("nodesCreated", 0);
+        Map<String, Object> alice = Map.of("nodesCreated", 1);
+        when(neo4jService.executeWriteBatchAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(
+                new BatchWriteResult(List.of(alice, bob), Map.of("nodesCreated", 1))));
+        coalescer = coalescer(true, Duration.ofHours(1), 2);
+
+        CompletableFuture<Map<String, Object>> first = coalescer.submit(MERGE, Map.of("__lit0", "Bob"),
+                Duration.ofSeconds(10)).toCompletableFuture();
+        assertFalse(first.isDone());
+        CompletableFuture<Map<String, Object>> second = coalescer.submit(MERGE, Map.of("__lit0", "Alice"),
+                Duration.ofSeconds(30)).toCompletableFuture();
+
+        assertSame(bob, first.join());
+        assertSame(alice, second.join());
+        verify(neo4jService).executeWriteBatchAsync(List.of(
+                new WriteStatement(MERGE, Map.of("__lit0", "Alice")),
+                new WriteStatement(MERGE, Map.of("__lit0", "Bob"))), Duration.ofSeconds(30));
+        assertEquals(1, meterRegistry.get("neo4j.coalesce.flushes").tag("cause", "full").counter().count());
+        assertEquals(1.0, meterRegistry.get("neo4j.coalesce.batch.fill").summary().max());
+    }
+
+    @Test
+    void submit_windowElapsed_flushesSingleWriteAlone() {
+        Map<String, Object> stats = Map.of("nodesCreated", 1);
+        when(neo4jService.executeWriteWithSummaryAsync(MERGE, Map.of("__lit0", "A"), null))
+                .thenReturn(CompletableFuture.completedFuture(stats));
+        coalescer = coalescer(true, Duration.ofMillis(5), 10);
+
+        assertSame(stats, coalescer.submit(MERGE, Map.of("__lit0", "A"), null).toCompletableFuture().join());
+        verify(neo4jService, never()).executeWriteBatchAsync(any(), any());
+        assertEquals(1, meterRegistry.get("neo4j.coalesce.flushes").tag("cause", "window").counter().count());
+    }
+
+    @Test
+    void submit_cancelledBeforeFlush_droppedFromBatch() {
+        Map<String, Object> stats = Map.of("nodesCreated", 1);
+        when(neo4jService.executeWriteBatchAsync(any(), any())).thenReturn(CompletableFuture.completedFuture(
+                new BatchWriteResult(List.of(stats, stats), Map.of("nodesCreated", 2))));
+        coalescer = coalescer(true, Duration.ofHours(1), 2);
+
+        CompletableFuture<Map<String, Object>> abandoned = coalescer.submit(MERGE, Map.of("__lit0", "A"), null)
+                .toCompletableFuture();
+        abandoned.cancel(true);
+        coalescer.submit(MERGE, Map.of("__lit0", "B"), null);
+        coalescer.submit(MERGE, Map.of("__lit0", "C"), null).toCompletableFuture().join();
+
+        verify(neo4jService).executeWriteBatchAsync(List.of(
+                new WriteStatement(MERGE, Map.of("__lit0", "B")),
+                new WriteStatement(MERGE, Map.of("__lit0", "C"))), null);
+        assertEquals(1, meterRegistry.get("neo4j.coalesce.cancelled").counter().count());
+    }
+
+    @Test
+    void submit_cancelledWhileRunningAlone_cancelsWrite() {
+        CompletableFuture<Map<String, Object>> running = new CompletableFuture<>();
+        when(neo4jService.executeWriteWithSummaryAsync(MERGE, Map.of("__lit0", "A"), null)).thenReturn(running);
+        coalescer = coalescer(true, Duration.ofMillis(5), 10);
+
+        CompletableFuture<Map<String, Object>> result = coalescer.submit(MERGE, Map.of("__lit0", "A"), null)
+                .toCompletableFuture();
+        verify(neo4jService, timeout(5000)).executeWriteWithSummaryAsync(MERGE, Map.of("__lit0", "A"), null);
+        result.cancel(true);
+
+        assertTrue(running.isCancelled());
+    }
+
+    @Test
+    void submit_batchFails_retriesEachAndFailsOnlyTheBadWrite() {
+        when(neo4jService.executeWriteBatchAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("第 1 条语句执行失败")));
+        Map<String, Object> stats = Map.of("nodesCreated", 1);
+        when(neo4jService.executeWriteWithSummaryAsync(eq(MERGE), eq(Map.of("__lit0", "good")), any()))
+                .thenReturn(CompletableFuture.completedFuture(stats));
+        when(neo4jService.executeWriteWithSummaryAsync(eq(MERGE), eq(Map.of("__lit0", "bad")), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException("constraint")));
+        coalescer = coalescer(true, Duration.ofHours(1), 2);
+
+        CompletableFuture<Map<String, Object>> good = coalescer.submit(MERGE, Map.of("__lit0", "good"), null)
+                .toCompletableFuture();
+        CompletableFuture<Map<String, Object>> bad = coalescer.submit(MERGE, Map.of("__lit0", "bad"), null)
+                .toCompletableFuture();
+
+        assertSame(stats, good.join());
+        CompletionException error = assertThrows(CompletionException.class, bad::join);
+        assertTrue(error.getCause() instanceof IllegalArgumentException);
+        assertEquals(1, meterRegistry.get("neo4j.coalesce.fallbacks").counter().count());
+    }
+
+    private WriteCoalescer coalescer(boolean enabled, Duration window, int maxBatch) {
+        coalescer = new WriteCoalescer(neo4jService, enabled, window, maxBatch, meterRegistry);
+        return coalescer;
+    }
+}
@@ -0,0 +1,56 @@
+package mcp.canary.neo4j.cypher;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CypherParameterizerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void apply_sameShape_countsPlanCacheHit() {
+        CypherParameterizer parameterizer = new CypherParameterizer(true, 10, meterRegistry);
+
+        parameterizer.apply("MATCH (n {name: 'A'}) RETURN n", null);
+        parameterizer.apply("MATCH (n {name: 'B'}) RETURN n", null);
+        parameterizer.apply("MATCH (n {name: 'C'}) RETURN n", null);
+
+        assertEquals(2, meterRegistry.get("neo4j.cypher.plan.cache").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("neo4j.cypher.plan.cache").tag("result", "miss").counter().count());
+        assertEquals(2.0 / 3, meterRegistry.get("neo4j.cypher.plan.cache.hit.ratio").gauge().value(), 1e-9);
+    }
+
+    @Test
+    void apply_overPlanCacheSize_evictsLeastRecentlyUsed() {
+        CypherParameterizer parameterizer = new CypherParameterizer(true, 1, meterRegistry);
+
+        parameterizer.apply("MATCH (a:A) RETURN a", null);
+        parameterizer.apply("MATCH (b:B) RETURN b", null);
+        parameterizer.apply("MATCH (a:A) RETURN a", null);
+
+        assertEquals(0, parameterizer.hitRatio());
+    }
+
+    @Test
+    void apply_disabled_keepsLiteralsButStillCounts() {
+        CypherParameterizer parameterizer = new CypherParameterizer(false, 10, meterRegistry);
+
+        CypherText.Parameterized first = parameterizer.apply("MATCH (n {name: 'A'}) RETURN n", null);
+        parameterizer.apply("MATCH (n {name: 'B'}) RETURN n", Map.of());
+
+        assertEquals("MATCH (n {name: 'A'}) RETURN n", first.query());
+        assertNull(first.params());
+        assertEquals(0, parameterizer.hitRatio());
+    }
+}
@@ -0,0 +1,159 @@
+package mcp.canary.neo4j.cypher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CypherTextTest {
+
+    @Test
+    void normalize_collapsesWhitespaceAndDropsComments() {
+        String query = "  MATCH (n:Person)\n\t// comment\n WHERE n.name = 'a  b' /* block */ RETURN n  ";
+
+        assertEquals("MATCH (n:Person) WHERE n.name = 'a  b' RETURN n", CypherText.normalize(query));
+        assertEquals(CypherText.normalize("MATCH (n) RETURN n"), CypherText.normalize("MATCH  (n)\nRETURN n"));
+    }
+
+    @Test
+    void mask_blanksStringLiterals() {
+        assertEquals("MATCH (n {name: ''}) SET n.x = \"\"",
+                CypherText.mask("MATCH (n {name: 'it\\'s :Fake'}) SET n.x = \"SET\""));
+    }
+
+    @Test
+    void labelScope_allNodesLabelled_returnsLabelsAndTypes() {
+        Optional<Set<String>> scope = CypherText.labelScope(
+                "MATCH (p:Person {name: 'x:Y'})-[:WORKS_AT]->(c:`My Company`) RETURN count(p)");
+
+        assertEquals(Optional.of(Set.of("Person", "WORKS_AT", "My Company")), scope);
+    }
+
+    @Test
+    void labelScope_unlabelledNodeOrProcedure_unknown() {
+        assertTrue(CypherText.labelScope("MATCH (n) RETURN n").isEmpty());
+        assertTrue(CypherText.labelScope("MATCH (p:Person)-[:R]->(x) RETURN x").isEmpty());
+        assertTrue(CypherText.labelScope("CALL db.labels() YIELD label RETURN label").isEmpty());
+        assertTrue(CypherText.labelScope("RETURN 1").isEmpty());
+    }
+
+    @Test
+    void nodeLabels_collectsNodeAndSetLabelsButNotRelationshipTypes() {
+        assertEquals(Optional.of(Set.of("Person", "My Company", "Vip")), CypherText.nodeLabels(
+                "MATCH (p:Person {name: 'x:Y'})-[:WORKS_AT]->(c:`My Company`) MERGE (p)-[:R]->() SET p:Vip, c.name = 'n'"));
+        assertEquals(Optional.of(Set.of("A", "B")), CypherText.nodeLabels("MERGE (:A|B {name: $name})"));
+    }
+
+    @Test
+    void nodeLabels_unlabelledVariableOrProcedure_unknown() {
+        assertTrue(CypherText.nodeLabels("MATCH (p:Person)-[:R]->(m) SET m.name = 'x'").isEmpty());
+        assertTrue(CypherText.nodeLabels("MATCH (n) WHERE elementId(n) = $id SET n.name = 'x'").isEmpty());
+        assertTrue(CypherText.nodeLabels("CALL apoc.create.node(['A'], {name: 'x'})").isEmpty());
+    }
+
+    @Test
+    void hash_ignoresWhitespaceAndParamOrder() {
+        assertEquals(CypherText.hash("CREATE (n {a: $a, b: $b})", Map.of("a", 1, "b", 2)),
+                CypherText.hash("CREATE  (n {a: $a, b: $b}) // retry", Map.of("b", 2, "a", 1)));
+        assertNotEquals(CypherText.hash("CREATE (n)", Map.of()), CypherText.hash("CREATE (m)", Map.of()));
+    }
+
+    @Test
+    void hash_nestedMapsCanonicalRegardlessOfInsertionOrder() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("x", 1);
+        first.put("y", List.of(Map.of("a", 1), "b"));
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("y", List.of(Map.of("a", 1), "b"));
+        second.put("x", 1);
+
+        assertEquals(CypherText.hash("CREATE (n $props)", Map.of("props", first)),
+                CypherText.hash("CREATE (n $props)", Map.of("props", second)));
+        assertEquals(CypherText.hash("CREATE (n {tags: $t})", Map.of("t", new String[]{"a", "b"})),
+                CypherText.hash("CREATE (n {tags: $t})", Map.of("t", List.of("a", "b"))));
+        assertNotEquals(CypherText.hash("CREATE (n {tags: $t})", Map.of("t", List.of("a,b"))),
+                CypherText.hash("CREATE (n {tags: $t})", Map.of("t", List.of("a", "b"))));
+    }
+
+    @Test
+    void createsOnly_onlyCreateAndMergeWithoutTouchingExistingNodes() {
+        assertTrue(CypherText.createsOnly("CREATE (n:Person {name: 'SET'})"));
+        assertTrue(CypherText.createsOnly("UNWIND $rows AS r MERGE (n:Person {id: r.id}) ON CREATE SET n.x = r.x"));
+        assertFalse(CypherText.createsOnly("MATCH (n:Person) SET n.x = 1"));
+        assertFalse(CypherText.createsOnly("MERGE (n:Person {id: 1}) ON CREATE SET n.x = 1 ON MATCH SET n.x = 2"));
+        assertFalse(CypherText.createsOnly("MERGE (n:Person {id: 1}) SET n += $props"));
+        assertFalse(CypherText.createsOnly("MATCH (n:Person) DETACH DELETE n"));
+        assertFalse(CypherText.createsOnly("CALL apoc.create.node(['A'], {})"));
+    }
+
+    @Test
+    void parameterize_extractsStringAndNumberLiterals() {
+        CypherText.Parameterized p = CypherText.parameterize(
+                "MATCH (n:Person2 {name: 'it\\'s'}) WHERE n.age > 18 AND n.score = 1.5 // 'comment'\nRETURN n LIMIT 10", null);
+
+        assertEquals("MATCH (n:Person2 {name: $__lit0}) WHERE n.age > $__lit1 AND n.score = $__lit2 // 'comment'\n"
+                + "RETURN n LIMIT $__lit3", p.query());
+        assertEquals(Map.of("__lit0", "it's", "__lit1", 18L, "__lit2", 1.5, "__lit3", 10L), p.params());
+    }
+
+    @Test
+    void parameterize_sameShapeDifferentValues_sameQueryText() {
+        assertEquals(CypherText.parameterize("MATCH (n {name: 'A'}) RETURN n", null).query(),
+                CypherText.parameterize("MATCH (n {name: \"B\"}) RETURN n", null).query());
+    }
+
+    @Test
+    void parameterize_keepsRangeBoundsIdentifiersAndAdminCommands() {
+        assertEquals("MATCH (a)-[:R*1..3]->(b) WHERE a.`x 1` = $__lit0 RETURN b",
+                CypherText.parameterize("MATCH (a)-[:R*1..3]->(b) WHERE a.`x 1` = 5 RETURN b", null).query());
+
+        String ddl = "CREATE INDEX person_name IF NOT EXISTS FOR (n:Person) ON (n.name) OPTIONS {indexProvider: 'range-1.0'}";
+        assertSame(ddl, CypherText.parameterize(ddl, null).query());
+
+        Map<String, Object> params = Map.of("name", "A");
+        CypherText.Parameterized untouched = CypherText.parameterize("MATCH (n {name: $name}) RETURN n", params);
+        assertSame(params, untouched.params());
+    }
+
+    @Test
+    void parameterize_userParamNameCollision_skipsTakenName() {
+        CypherText.Parameterized p = CypherText.parameterize("RETURN $__lit0, 'x'", Map.of("__lit0", 1));
+
+        assertEquals("RETURN $__lit0, $__lit1", p.query());
+        assertEquals(Map.of("__lit0", 1, "__lit1", "x"), p.params());
+    }
+
+    @Test
+    void fingerprint_ignoresLiteralsAndWhitespace() {
+        assertEquals(CypherText.fingerprint("MATCH (n {name: 'A'}) RETURN n LIMIT 5"),
+                CypherText.fingerprint("MATCH  (n {name: \"B\"})\n// c\nRETURN n LIMIT 10"));
+        assertNotEquals(CypherText.fingerprint("MATCH (n:A) RETURN n"), CypherText.fingerprint("MATCH (n:B) RETURN n"));
+        assertEquals(8, CypherText.fingerprint(null).length());
+    }
+
+    @Test
+    void appendLimit_outerReturnOnly() {
+        assertEquals(Optional.of("MATCH (n) RETURN n\nLIMIT 100"), CypherText.appendLimit("MATCH (n) RETURN n ;\n", 100));
+        assertEquals(Optional.empty(), CypherText.appendLimit("MATCH (n) RETURN n LIMIT 5", 100));
+        assertEquals(Optional.empty(), CypherText.appendLimit("MATCH (n:A) RETURN n UNION MATCH (n:B) RETURN n", 100));
+        assertEquals(Optional.empty(), CypherText.appendLimit("MATCH (n) CALL { WITH n RETURN n AS m } ", 100));
+        assertEquals(Optional.of("MATCH (n) WHERE n.s = 'RETURN 1 LIMIT 2' RETURN n\nLIMIT 10"),
+                CypherText.appendLimit("MATCH (n) WHERE n.s = 'RETURN 1 LIMIT 2' RETURN n", 10));
+    }
+
+    @Test
+    void planPrefix_detectsExplainAndProfile() {
+        assertEquals("EXPLAIN", CypherText.planPrefix("  explain MATCH (n) RETURN n"));
+        assertEquals("PROFILE", CypherText.planPrefix("PROFILE MATCH (n) RETURN n"));
+        assertEquals("", CypherText.planPrefix("MATCH (n) RETURN n"));
+    }
+}
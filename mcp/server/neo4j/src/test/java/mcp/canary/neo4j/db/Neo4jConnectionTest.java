@@ -9,56 +9,146 @@ import org.neo4j.driver.AuthToken;
 import org.neo4j.driver.Config;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.MetricsAdapter;
 import org.neo4j.driver.Session;
 import org.neo4j.driver.SessionConfig;
-import org.neo4j.driver.exceptions.Neo4jException;
+import org.neo4j.driver.exceptions.ServiceUnavailableException;
 
 import java.lang.reflect.Field;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class Neo4jConnectionTest {
 
-    @Test
-    void constructor_success_verifiesConnectivityAndSetsDatabase() {
-        String uri = "bolt://localhost:7687";
-        Driver driver = mock(Driver.class);
+    private static final String URI = "bolt://localhost:7687";
 
+    private static Neo4jConnection connection(Driver driver) {
         try (MockedStatic<GraphDatabase> graphDb = org.mockito.Mockito.mockStatic(GraphDatabase.class)) {
-            graphDb.when(() -> GraphDatabase.driver(eq(uri), any(AuthToken.class), any(Config.class)))
+            graphDb.when(() -> GraphDatabase.driver(eq(URI), any(AuthToken.class), any(Config.class)))
                     .thenReturn(driver);
+            return new Neo4jConnection(URI, "user", "pass", "neo4j", 100, Duration.ofSeconds(600),
+                    Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(1));
+        }
+    }
+
+    private static void awaitAvailable(Neo4jConnection connection) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!connection.isAvailable() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(connection.isAvailable());
+    }
+
+    @Test
+    void constructor_doesNotConnectAndSetsDatabase() {
+        Driver driver = mock(Driver.class);
+
+        Neo4jConnection connection = connection(driver);
 
-            Neo4jConnection connection = new Neo4jConnection(uri, "user", "pass", "neo4j");
+        verifyNoInteractions(driver);
+        assertEquals("neo4j", connection.getDatabaseName());
+        assertFalse(connection.isAvailable());
+        assertThrows(ServiceUnavailableException.class, connection::requireAvailable);
+    }
 
-            verify(driver).verifyConnectivity();
-            assertEquals("neo4j", connection.getDatabaseName());
+    @Test
+    void verifyInBackground_retriesWithBackoffUntilConnected() throws InterruptedException {
+        Driver driver = mock(Driver.class);
+        when(driver.verifyConnectivityAsync())
+                .thenReturn(CompletableFuture.failedFuture(new ServiceUnavailableException("refused")))
+                .thenReturn(CompletableFuture.failedFuture(new ServiceUnavailableException("refused")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        Neo4jConnection connection = connection(driver);
+
+        connection.verifyInBackground();
+        awaitAvailable(connection);
+
+        assertEquals(3, connection.getAttempts());
+        assertNull(connection.getLastFailure());
+        assertDoesNotThrow(connection::requireAvailable);
+        connection.verifyInBackground();
+        verify(driver, times(3)).verifyConnectivityAsync();
+    }
+
+    @Test
+    void requireAvailable_afterFailure_reportsLastError() throws InterruptedException {
+        Driver driver = mock(Driver.class);
+        when(driver.verifyConnectivityAsync())
+                .thenReturn(CompletableFuture.failedFuture(new ServiceUnavailableException("connection refused")));
+        Neo4jConnection connection = connection(driver);
+
+        connection.verifyInBackground();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (connection.getLastFailure() == null && System.nanoTime() < deadline) {
+            Thread.sleep(5);
         }
+        connection.close();
+
+        ServiceUnavailableException error = assertThrows(ServiceUnavailableException.class, connection::requireAvailable);
+        assertTrue(error.getMessage().contains("connection refused"));
+    }
+
+    @Test
+    void reportFailure_serviceUnavailable_reverifies() throws InterruptedException {
+        Driver driver = mock(Driver.class);
+        CompletableFuture<Void> second = new CompletableFuture<>();
+        when(driver.verifyConnectivityAsync())
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(second);
+        Neo4jConnection connection = connection(driver);
+        connection.verifyInBackground();
+        awaitAvailable(connection);
+
+        connection.reportFailure(new CompletionException(new IllegalStateException("syntax")));
+        assertTrue(connection.isAvailable());
+        connection.reportFailure(new CompletionException(new ServiceUnavailableException("gone")));
+
+        assertFalse(connection.isAvailable());
+        assertThrows(ServiceUnavailableException.class, connection::requireAvailable);
+        second.complete(null);
+        awaitAvailable(connection);
+        verify(driver, times(2)).verifyConnectivityAsync();
     }
 
     @Test
-    void constructor_failure_wrapsException() {
+    void constructor_enablesMicrometerDriverMetricsAndPoolSettings() {
         String uri = "bolt://localhost:7687";
         Driver driver = mock(Driver.class);
-        doThrow(new RuntimeException("boom")).when(driver).verifyConnectivity();
 
         try (MockedStatic<GraphDatabase> graphDb = org.mockito.Mockito.mockStatic(GraphDatabase.class)) {
             graphDb.when(() -> GraphDatabase.driver(eq(uri), any(AuthToken.class), any(Config.class)))
                     .thenReturn(driver);
 
-            assertThrows(Neo4jException.class,
-                    () -> new Neo4jConnection(uri, "user", "pass", "neo4j"));
+            new Neo4jConnection(uri, "user", "pass", "neo4j", 32, Duration.ofSeconds(15),
+                    Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofSeconds(10));
+
+            ArgumentCaptor<Config> configCaptor = ArgumentCaptor.forClass(Config.class);
+            graphDb.verify(() -> GraphDatabase.driver(eq(uri), any(AuthToken.class), configCaptor.capture()));
+            Config config = configCaptor.getValue();
+            assertTrue(config.isMetricsEnabled());
+            assertEquals(MetricsAdapter.MICROMETER, config.metricsAdapter());
+            assertEquals(32, config.maxConnectionPoolSize());
+            assertEquals(15_000, config.connectionAcquisitionTimeoutMillis());
         }
     }
 
@@ -73,7 +163,8 @@ class Neo4jConnectionTest {
             graphDb.when(() -> GraphDatabase.driver(eq(uri), any(AuthToken.class), any(Config.class)))
                     .thenReturn(driver);
 
-            Neo4jConnection connection = new Neo4jConnection(uri, "user", "pass", "neo4j");
+            Neo4jConnection connection = new Neo4jConnection(uri, "user", "pass", "neo4j", 100, Duration.ofSeconds(600),
+                    Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofSeconds(10));
             Session created = connection.createSession();
 
             assertEquals(session, created);
@@ -94,7 +185,8 @@ class Neo4jConnectionTest {
             graphDb.when(() -> GraphDatabase.driver(eq(uri), any(AuthToken.class), any(Config.class)))
                     .thenReturn(driver);
 
-            Neo4jConnection connection = new Neo4jConnection(uri, "user", "pass", "neo4j");
+            Neo4jConnection connection = new Neo4jConnection(uri, "user", "pass", "neo4j", 100, Duration.ofSeconds(600),
+                    Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofSeconds(10));
             doThrow(new RuntimeException("close failed")).when(driver).close();
 
             assertDoesNotThrow(connection::close);
@@ -110,7 +202,8 @@ class Neo4jConnectionTest {
             graphDb.when(() -> GraphDatabase.driver(eq(uri), any(AuthToken.class), any(Config.class)))
                     .thenReturn(driver);
 
-            Neo4jConnection connection = new Neo4jConnection(uri, "user", "pass", "neo4j");
+            Neo4jConnection connection = new Neo4jConnection(uri, "user", "pass", "neo4j", 100, Duration.ofSeconds(600),
+                    Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofSeconds(10));
 
             assertDoesNotThrow(connection::close);
             verify(driver).close();
@@ -126,7 +219,8 @@ class Neo4jConnectionTest {
             graphDb.when(() -> GraphDatabase.driver(eq(uri), any(AuthToken.class), any(Config.class)))
                     .thenReturn(driver);
 
-            Neo4jConnection connection = new Neo4jConnection(uri, "user", "pass", "neo4j");
+            Neo4jConnection connection = new Neo4jConnection(uri, "user", "pass", "neo4j", 100, Duration.ofSeconds(600),
+                    Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofSeconds(10));
             Field driverField = Neo4jConnection.class.getDeclaredField("driver");
             driverField.setAccessible(true);
             driverField.set(connection, null);
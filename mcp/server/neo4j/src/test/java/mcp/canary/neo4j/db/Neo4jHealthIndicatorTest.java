@@ -0,0 +1,42 @@
+package mcp.canary.neo4j.db;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.neo4j.driver.exceptions.ServiceUnavailableException;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class Neo4jHealthIndicatorTest {
+
+    @Mock
+    private Neo4jConnection neo4jConnection;
+
+    @InjectMocks
+    private Neo4jHealthIndicator indicator;
+
+    @Test
+    void health_reflectsBackgroundVerification() {
+        when(neo4jConnection.getDatabaseName()).thenReturn("neo4j");
+        when(neo4jConnection.getUri()).thenReturn("bolt://localhost:7687");
+
+        assertEquals(Status.UNKNOWN, indicator.health().getStatus());
+
+        when(neo4jConnection.getLastFailure()).thenReturn(new ServiceUnavailableException("connection refused"));
+        when(neo4jConnection.getAttempts()).thenReturn(3L);
+        Health unavailable = indicator.health();
+        assertEquals(Status.OUT_OF_SERVICE, unavailable.getStatus());
+        assertEquals("connection refused", unavailable.getDetails().get("error"));
+        assertEquals(3L, unavailable.getDetails().get("attempts"));
+
+        when(neo4jConnection.isAvailable()).thenReturn(true);
+        when(neo4jConnection.getLastFailure()).thenReturn(null);
+        assertEquals(Status.UP, indicator.health().getStatus());
+    }
+}
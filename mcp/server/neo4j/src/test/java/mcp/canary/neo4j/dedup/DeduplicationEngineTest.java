@@ -0,0 +1,164 @@
+package mcp.canary.neo4j.dedup;
+
+import mcp.canary.neo4j.cache.QueryResultCache;
+import mcp.canary.neo4j.service.Neo4jService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class DeduplicationEngineTest {
+
+    @Mock
+    private Neo4jService neo4jService;
+
+    @Mock
+    private QueryResultCache queryResultCache;
+
+    @Captor
+    private ArgumentCaptor<Map<String, Object>> params;
+
+    private DeduplicationEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new DeduplicationEngine(neo4jService, queryResultCache, 2);
+        when(neo4jService.execute(startsWith("CALL db.labels()"), isNull()))
+                .thenReturn(List.of(Map.of("label", "Person")));
+    }
+
+    private static List<Map<String, Object>> names(String... names) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (String name : names) {
+            rows.add(Map.of("name", name));
+        }
+        return rows;
+    }
+
+    @Test
+    void deduplicate_dryRun_countsWindowsWithoutWriting() {
+        when(neo4jService.execute(contains("LIMIT $window"), anyMap()))
+                .thenReturn(names("A", "A"))
+                .thenReturn(names("B", "C"))
+                .thenReturn(names("C", "C"))
+                .thenReturn(names("D", "E"))
+                .thenReturn(names("E", "E"))
+                .thenReturn(List.of());
+        when(neo4jService.execute(contains("count(n) AS size"), anyMap()))
+                .thenReturn(List.of(Map.of("size", 3L)))
+                .thenReturn(List.of(Map.of("size", 2L)))
+                .thenReturn(List.of(Map.of("size", 2L)));
+        List<String> progress = new ArrayList<>();
+
+        DeduplicationReport report = engine.deduplicate(true, progress::add);
+
+        assertTrue(report.isDryRun());
+        assertEquals(1, report.getLabels());
+        assertEquals(3, report.getDuplicateGroups());
+        assertEquals(4, report.getRedundantNodes());
+        assertEquals(2, report.getBatches().size());
+        assertEquals(2, progress.size());
+
+        verify(neo4jService, times(6)).execute(contains("LIMIT $window"), params.capture());
+        assertEquals(List.of("", "A", "C", "C", "E", "E"),
+                params.getAllValues().stream().map(p -> p.get("after")).toList());
+        verify(neo4jService).execute(contains("count(n) AS size"), eq(Map.of("name", "A")));
+        verify(neo4jService).execute(contains("count(n) AS size"), eq(Map.of("name", "C")));
+        verify(neo4jService).execute(contains("count(n) AS size"), eq(Map.of("name", "E")));
+        verify(neo4jService, never()).executeWrite(contains("CREATE INDEX"), isNull());
+        verify(neo4jService, never()).executeWrite(contains("apoc.refactor.mergeNodes"), anyMap());
+        verifyNoInteractions(queryResultCache);
+    }
+
+    @Test
+    void deduplicate_readsBoundedNameWindowsAndCarriesTailToNextWindow() {
+        // 窗口只按 name 顺序读取有限个节点，不在库里聚合；读满的窗口最后一个 name 留到下一窗口一起计数
+        when(neo4jService.execute(contains("LIMIT $window"), anyMap()))
+                .thenReturn(names("A", "B"))
+                .thenReturn(names("B", "B"))
+                .thenReturn(names("C"));
+        when(neo4jService.execute(contains("count(n) AS size"), anyMap())).thenReturn(List.of(Map.of("size", 3L)));
+
+        DeduplicationReport report = engine.deduplicate(true, null);
+
+        assertEquals(1, report.getDuplicateGroups());
+        assertEquals(2, report.getRedundantNodes());
+        verify(neo4jService, times(3)).execute(contains("LIMIT $window"), params.capture());
+        assertEquals(List.of("", "B", "B"), params.getAllValues().stream().map(p -> p.get("after")).toList());
+        assertEquals(2, params.getValue().get("window"));
+        verify(neo4jService, times(2)).execute(contains("n.name >= $after"), anyMap());
+        verify(neo4jService, times(1)).execute(contains("n.name > $after"), anyMap());
+        verify(neo4jService, times(3)).execute(argThat(query -> query.contains("LIMIT $window")
+                && !query.contains("count(") && query.indexOf("ORDER BY n.name") < query.indexOf("LIMIT")), anyMap());
+    }
+
+    @Test
+    void deduplicate_mergesEachBatchSeparatelyAndEnsuresIndex() {
+        when(neo4jService.execute(contains("LIMIT $window"), anyMap()))
+                .thenReturn(names("A", "A"))
+                .thenReturn(names("B", "B"))
+                .thenReturn(List.of());
+        when(neo4jService.execute(contains("count(n) AS size"), anyMap())).thenReturn(List.of(Map.of("size", 2L)));
+        when(neo4jService.executeWrite(contains("apoc.refactor.mergeNodes"), anyMap()))
+                .thenReturn(List.of(Map.of("groups", 2L, "redundant", 2L)));
+
+        DeduplicationReport report = engine.deduplicate(false, null);
+
+        assertEquals(2, report.getDuplicateGroups());
+        assertEquals(2, report.getRedundantNodes());
+        verify(neo4jService).executeWrite(contains("IF NOT EXISTS FOR (n:`Person`) ON (n.name)"), isNull());
+        verify(neo4jService).executeWrite(contains("MATCH (n:`Person` {name: name})"),
+                eq(Map.of("names", List.of("A", "B"))));
+        verify(queryResultCache).invalidateAll();
+    }
+
+    @Test
+    void deduplicate_names_onlyGivenLabelsChunkedWithoutIndexing() {
+        when(neo4jService.executeWrite(contains("apoc.refactor.mergeNodes"), anyMap()))
+                .thenReturn(List.of(Map.of("groups", 1L, "redundant", 1L)));
+
+        DeduplicationReport report = engine.deduplicate(Map.of("Person", List.of("A", "B", "C")), null);
+
+        assertEquals(1, report.getLabels());
+        assertEquals(2, report.getBatches().size());
+        verify(neo4jService).executeWrite(contains("MATCH (n:`Person` {name: name})"), eq(Map.of("names", List.of("A", "B"))));
+        verify(neo4jService).executeWrite(contains("MATCH (n:`Person` {name: name})"), eq(Map.of("names", List.of("C"))));
+
+        engine.deduplicate(Map.of("City", Set.of("D")), null);
+        verify(neo4jService).executeWrite(contains("MATCH (n:`City` {name: name})"), eq(Map.of("names", List.of("D"))));
+        verify(neo4jService, never()).execute(startsWith("CALL db.labels()"), isNull());
+        verify(neo4jService, never()).executeWrite(contains("CREATE INDEX"), isNull());
+    }
+
+    @Test
+    void constructor_invalidBatchSize_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new DeduplicationEngine(neo4jService, queryResultCache, 0));
+    }
+}
@@ -0,0 +1,117 @@
+package mcp.canary.neo4j.dedup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class DeduplicationJobTest {
+
+    @Mock
+    private DeduplicationEngine engine;
+
+    @Captor
+    private ArgumentCaptor<Map<String, Set<String>>> captor;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DeduplicationJob job;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        job = new DeduplicationJob(engine, meterRegistry);
+    }
+
+    @Test
+    void markDirty_noChanges_ignored() {
+        job.markDirty("MERGE (n:Person {name:'A'})", null, Map.of("nodesCreated", 0, "propertiesSet", 0));
+
+        job.run();
+
+        verifyNoInteractions(engine);
+        assertEquals(0, meterRegistry.get("neo4j.dedup.lag").gauge().value());
+    }
+
+    @Test
+    void markDirty_extractsNamesFromLiteralsAndParams() {
+        job.markDirty("MERGE (a:Person {name: 'Alice'}) MERGE (b:Person {name:\"Bob\"}) SET a.name = 'Al\\'ice'",
+                Map.of("rows", List.of(Map.of("name", "Carol"))),
+                Map.of("nodesCreated", 2));
+
+        assertEquals(Map.of("Person", Set.of("Alice", "Bob", "Al'ice", "Carol")), job.pendingNames());
+        assertEquals(4, meterRegistry.get("neo4j.dedup.pending.names").gauge().value());
+        assertTrue(meterRegistry.get("neo4j.dedup.lag").gauge().value() >= 0);
+    }
+
+    @Test
+    void markIngested_registersNamesUnderIngestedLabel() {
+        job.markIngested("City", List.of(Map.of("name", "Paris"), Map.of("name", "Rome")), Map.of("nodesCreated", 2));
+
+        assertEquals(Map.of("City", Set.of("Paris", "Rome")), job.pendingNames());
+    }
+
+    @Test
+    void run_deduplicatesOnlyPendingLabelsAndNames() {
+        job.markDirty("MERGE (n:Person {name:'A'})", null, Map.of("nodesCreated", 1));
+        job.markDirty("MERGE (c:City {name:'B'})", null, Map.of("nodesCreated", 1));
+
+        job.run();
+
+        verify(engine).deduplicate(captor.capture(), isNull());
+        assertEquals(Map.of("Person", Set.of("A"), "City", Set.of("B")), captor.getValue());
+        verify(engine, never()).deduplicate(anyBoolean(), any());
+        assertTrue(job.pendingNames().isEmpty());
+
+        job.run();
+        verify(engine).deduplicate(anyMap(), any());
+    }
+
+    @Test
+    void run_unknownNamesOrLabels_fallsBackToFullScan() {
+        job.markDirty("CREATE (n:Person) SET n += $props", null, Map.of("propertiesSet", 3));
+
+        job.run();
+
+        verify(engine).deduplicate(false, null);
+
+        job.markDirty("MATCH (p:Person)-[:KNOWS]->(m) SET m.name = 'A'", null, Map.of("propertiesSet", 1));
+
+        job.run();
+
+        verify(engine, times(2)).deduplicate(false, null);
+        verify(engine, never()).deduplicate(anyMap(), any());
+    }
+
+    @Test
+    void run_failure_keepsNamesForNextRun() {
+        doThrow(new IllegalStateException("busy")).when(engine).deduplicate(anyMap(), any());
+        job.markDirty("MERGE (n:Person {name:'A'})", null, Map.of("nodesCreated", 1));
+
+        job.run();
+
+        assertEquals(Map.of("Person", Set.of("A")), job.pendingNames());
+        assertTrue(meterRegistry.get("neo4j.dedup.lag").gauge().value() >= 0);
+    }
+}
@@ -0,0 +1,120 @@
+package mcp.canary.neo4j.graph;
+
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Path;
+import org.neo4j.driver.types.Relationship;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GraphCollectorTest {
+
+    @Test
+    void accept_walksPathsListsAndMaps_dedupByElementId() {
+        Node alice = node("4:db:1", "Person", "Alice");
+        Node bob = node("4:db:2", "Person", "Bob");
+        Node acme = node("4:db:3", "Company", "Acme");
+        Relationship knows = relationship("5:db:1", "KNOWS", alice, bob, Map.of("since", 2020L));
+        GraphCollector collector = new GraphCollector(10, 10);
+
+        collector.accept(record(path(List.of(alice, bob), List.of(knows)), List.of(alice, acme)));
+        collector.accept(record(Map.of("r", knows), bob));
+
+        GraphResult result = collector.result();
+        assertEquals(List.of("Alice", "Bob", "Acme"), result.getNodes().stream().map(GraphNode::getName).toList());
+        assertEquals("Company", result.getNodes().get(2).getCategoryName());
+        assertEquals(Map.of("name", "Acme"), result.getNodes().get(2).getProperties());
+        assertEquals(1, result.getEdges().size());
+        GraphEdge edge = result.getEdges().get(0);
+        assertEquals("Alice", edge.getSource());
+        assertEquals("Bob", edge.getTarget());
+        assertEquals(List.of("type", "since"), List.copyOf(edge.getProperties().keySet()));
+        assertEquals("KNOWS", edge.getProperties().get("type"));
+        assertFalse(result.isTruncated());
+    }
+
+    @Test
+    void accept_duplicateOrMissingNames_madeUnique() {
+        Node first = node("4:db:1", "Person", "Alice");
+        Node second = node("4:db:7", "Person", "Alice");
+        Node unnamed = node("4:db:8", "City", null);
+        GraphCollector collector = new GraphCollector(10, 10);
+
+        collector.accept(record(first, second, unnamed));
+
+        assertEquals(List.of("Alice", "Alice #7", "City"),
+                collector.result().getNodes().stream().map(GraphNode::getName).toList());
+    }
+
+    @Test
+    void accept_limitsAndDanglingRelationships() {
+        Node alice = node("4:db:1", "Person", "Alice");
+        Node bob = node("4:db:2", "Person", "Bob");
+        Relationship knows = relationship("5:db:1", "KNOWS", alice, bob, Map.of());
+        GraphCollector collector = new GraphCollector(1, 10);
+
+        collector.accept(record(alice, knows, bob));
+
+        assertTrue(collector.isFull());
+        GraphResult result = collector.result();
+        assertTrue(result.isTruncated());
+        assertEquals(1, result.getNodes().size());
+        assertEquals(0, result.getEdges().size());
+        assertEquals(1, result.getDanglingEdges());
+        assertThrows(IllegalArgumentException.class, () -> new GraphCollector(0, 10));
+    }
+
+    private static Record record(Object... values) {
+        Record record = mock(Record.class);
+        List<Value> wrapped = new ArrayList<>();
+        for (Object value : values) {
+            Value v = mock(Value.class);
+            when(v.asObject()).thenReturn(value);
+            wrapped.add(v);
+        }
+        when(record.values()).thenReturn(wrapped);
+        return record;
+    }
+
+    private static Node node(String elementId, String label, String name) {
+        Node node = mock(Node.class);
+        when(node.elementId()).thenReturn(elementId);
+        when(node.labels()).thenReturn(List.of(label));
+        when(node.get("name")).thenReturn(name != null ? Values.value(name) : Values.NULL);
+        when(node.asMap()).thenReturn(name != null ? Map.of("name", name) : Map.of());
+        return node;
+    }
+
+    private static Relationship relationship(String elementId, String type, Node start, Node end,
+                                             Map<String, Object> properties) {
+        String startId = start.elementId();
+        String endId = end.elementId();
+        Relationship relationship = mock(Relationship.class);
+        when(relationship.elementId()).thenReturn(elementId);
+        when(relationship.type()).thenReturn(type);
+        when(relationship.startNodeElementId()).thenReturn(startId);
+        when(relationship.endNodeElementId()).thenReturn(endId);
+        when(relationship.asMap()).thenReturn(properties);
+        return relationship;
+    }
+
+    private static Path path(List<Node> nodes, List<Relationship> relationships) {
+        Path path = mock(Path.class);
+        doReturn(nodes).when(path).nodes();
+        doReturn(relationships).when(path).relationships();
+        return path;
+    }
+}
@@ -0,0 +1,194 @@
+package mcp.canary.neo4j.guard;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mcp.canary.neo4j.service.Neo4jService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.exceptions.ClientException;
+import org.neo4j.driver.summary.Plan;
+import org.neo4j.driver.summary.QueryType;
+import org.neo4j.driver.summary.ResultSummary;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QueryGuardTest {
+
+    @Mock
+    private Neo4jService neo4jService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private QueryGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        guard = guard("reject");
+    }
+
+    @Test
+    void checkRead_readQuery_explainedOncePerShape() {
+        ResultSummary summary = summary(QueryType.READ_ONLY);
+        when(neo4jService.explainAsync(anyString(), any())).thenReturn(CompletableFuture.completedFuture(summary));
+
+        assertDoesNotThrow(() -> guard.checkRead("MATCH (n) WHERE n.note = $__lit0 RETURN n",
+                Map.of("__lit0", "SET x")).toCompletableFuture().join());
+        assertDoesNotThrow(() -> guard.checkRead("MATCH (n)\n  WHERE n.note = $__lit0 RETURN n",
+                Map.of("__lit0", "y")).toCompletableFuture().join());
+
+        verify(neo4jService, times(1)).explainAsync(anyString(), any());
+        assertEquals(1, meterRegistry.get("neo4j.guard.plan.cache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void checkRead_writingProcedure_rejected() {
+        ResultSummary summary = summary(QueryType.READ_WRITE);
+        when(neo4jService.explainAsync(anyString(), any())).thenReturn(CompletableFuture.completedFuture(summary));
+
+        CompletionException e = assertThrows(CompletionException.class, () -> guard
+                .checkRead("CALL apoc.create.node(['A'], {}) YIELD node RETURN node", null)
+                .toCompletableFuture().join());
+
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+
+    @Test
+    void checkRead_explainFails_notCached() {
+        ResultSummary summary = summary(QueryType.READ_ONLY);
+        when(neo4jService.explainAsync(anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ClientException("unavailable")))
+                .thenReturn(CompletableFuture.completedFuture(summary));
+
+        assertThrows(CompletionException.class,
+                () -> guard.checkRead("MATCH (n) RETURN n", null).toCompletableFuture().join());
+        assertDoesNotThrow(() -> guard.checkRead("MATCH (n) RETURN n", null).toCompletableFuture().join());
+
+        verify(neo4jService, times(2)).explainAsync(anyString(), any());
+    }
+
+    @Test
+    void checkRead_concurrentFirstCalls_shareOneExplain() {
+        CompletableFuture<ResultSummary> pending = new CompletableFuture<>();
+        when(neo4jService.explainAsync(anyString(), any())).thenReturn(pending);
+
+        CompletableFuture<String> first = guard.checkRead("MATCH (n) RETURN n", null).toCompletableFuture();
+        CompletableFuture<String> second = guard.checkRead("MATCH (n) RETURN n", null).toCompletableFuture();
+        assertFalse(first.isDone());
+        pending.complete(summary(QueryType.READ_ONLY));
+
+        assertDoesNotThrow(() -> CompletableFuture.allOf(first, second).join());
+        verify(neo4jService, times(1)).explainAsync(anyString(), any());
+    }
+
+    @Test
+    void checkRead_withinBudget_admittedUnchanged() {
+        ResultSummary summary = summary(QueryType.READ_ONLY, plan("NodeByLabelScan", 500));
+        when(neo4jService.explainAsync(anyString(), any())).thenReturn(CompletableFuture.completedFuture(summary));
+
+        assertEquals("MATCH (n:A) RETURN n", guard.checkRead("MATCH (n:A) RETURN n", null).toCompletableFuture().join());
+        assertEquals(1, meterRegistry.get("neo4j.guard.admission").tag("result", "admitted").counter().count());
+    }
+
+    @Test
+    void checkRead_operatorOverBudget_rejectedWithViolations() {
+        Plan product = plan("CartesianProduct@neo4j", 2.5e7);
+        ResultSummary summary = summary(QueryType.READ_ONLY, plan("ProduceResults", 2.5e7, product));
+        when(neo4jService.explainAsync(anyString(), any())).thenReturn(CompletableFuture.completedFuture(summary));
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> guard.checkRead("MATCH (a), (b) RETURN a, b", null).toCompletableFuture().join());
+
+        AdmissionRejectedException rejected = assertInstanceOf(AdmissionRejectedException.class, e.getCause());
+        assertEquals(List.of(
+                new AdmissionRejectedException.Violation("*", 25_000_000, 1_000_000),
+                new AdmissionRejectedException.Violation("CartesianProduct", 25_000_000, 100_000)), rejected.getViolations());
+        assertTrue(rejected.getMessage().contains("CartesianProduct 估算 25000000 行 > 预算 100000"));
+        assertEquals(1, meterRegistry.get("neo4j.guard.admission").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void checkRead_limitMode_appendsLimitToOuterReturn() {
+        guard = guard("limit");
+        ResultSummary summary = summary(QueryType.READ_ONLY, plan("AllNodesScan", 5e6));
+        when(neo4jService.explainAsync(anyString(), any())).thenReturn(CompletableFuture.completedFuture(summary));
+
+        assertEquals("MATCH (n) RETURN n\nLIMIT 1000",
+                guard.checkRead("MATCH (n) RETURN n;", null).toCompletableFuture().join());
+        assertEquals(1, meterRegistry.get("neo4j.guard.admission").tag("result", "limited").counter().count());
+    }
+
+    @Test
+    void checkRead_limitModeWithUnion_stillRejected() {
+        guard = guard("limit");
+        ResultSummary summary = summary(QueryType.READ_ONLY, plan("AllNodesScan", 5e6));
+        when(neo4jService.explainAsync(anyString(), any())).thenReturn(CompletableFuture.completedFuture(summary));
+
+        CompletionException e = assertThrows(CompletionException.class, () -> guard
+                .checkRead("MATCH (n:A) RETURN n UNION MATCH (n:B) RETURN n", null).toCompletableFuture().join());
+
+        assertInstanceOf(AdmissionRejectedException.class, e.getCause());
+    }
+
+    @Test
+    void checkRead_explainOnly_skipsAdmission() {
+        ResultSummary summary = summary(QueryType.READ_ONLY, plan("AllNodesScan", 5e6));
+        when(neo4jService.explainAsync(anyString(), any())).thenReturn(CompletableFuture.completedFuture(summary));
+
+        assertEquals("EXPLAIN MATCH (n) RETURN n",
+                guard.checkRead("EXPLAIN MATCH (n) RETURN n", null).toCompletableFuture().join());
+    }
+
+    @Test
+    void constructor_invalidSettings_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> guard("truncate"));
+        assertThrows(IllegalArgumentException.class, () -> new QueryGuard(neo4jService, 10, 1_000_000,
+                "CartesianProduct", "reject", 1000, meterRegistry));
+    }
+
+    private QueryGuard guard(String overBudget) {
+        return new QueryGuard(neo4jService, 10, 1_000_000, "CartesianProduct=100000,VarLengthExpand=1000000",
+                overBudget, 1000, meterRegistry);
+    }
+
+    private static ResultSummary summary(QueryType type, Plan plan) {
+        ResultSummary summary = summary(type);
+        when(summary.hasPlan()).thenReturn(true);
+        when(summary.plan()).thenReturn(plan);
+        return summary;
+    }
+
+    private static Plan plan(String operator, double estimatedRows, Plan... children) {
+        Plan plan = mock(Plan.class);
+        when(plan.operatorType()).thenReturn(operator);
+        when(plan.arguments()).thenReturn(Map.of("EstimatedRows", Values.value(estimatedRows)));
+        doReturn(List.of(children)).when(plan).children();
+        return plan;
+    }
+
+    private static ResultSummary summary(QueryType type) {
+        ResultSummary summary = mock(ResultSummary.class);
+        when(summary.queryType()).thenReturn(type);
+        return summary;
+    }
+}
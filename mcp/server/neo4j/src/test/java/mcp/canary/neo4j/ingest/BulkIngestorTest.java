@@ -0,0 +1,144 @@
+package mcp.canary.neo4j.ingest;
+
+import mcp.canary.neo4j.cache.QueryResultCache;
+import mcp.canary.neo4j.service.Neo4jService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkIngestorTest {
+
+    @Mock
+    private Neo4jService neo4jService;
+
+    @Mock
+    private QueryResultCache queryResultCache;
+
+    @Captor
+    private ArgumentCaptor<Map<String, Object>> params;
+
+    private static List<Map<String, Object>> rows(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(Map.of("name", "n" + i, "age", i));
+        }
+        return rows;
+    }
+
+    private static Map<String, Object> stats(int nodesCreated, int propertiesSet) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("nodesCreated", nodesCreated);
+        stats.put("propertiesSet", propertiesSet);
+        return stats;
+    }
+
+    @Test
+    void ingest_splitsIntoBatchesAndSumsCounters() {
+        BulkIngestor ingestor = new BulkIngestor(neo4jService, queryResultCache, 1000);
+        when(neo4jService.executeWriteWithSummary(anyString(), anyMap(), any()))
+                .thenReturn(stats(2, 4)).thenReturn(stats(2, 4)).thenReturn(stats(1, 2));
+        List<String> progress = new ArrayList<>();
+
+        Map<String, Object> total = ingestor.ingest("Person", "name", rows(5), 2, Duration.ofSeconds(30), progress::add);
+
+        assertEquals(5, total.get("nodesCreated"));
+        assertEquals(10, total.get("propertiesSet"));
+        assertEquals(3, progress.size());
+        verify(neo4jService, times(3)).executeWriteWithSummary(contains("MERGE (n:`Person` {`name`: row[$key]})"),
+                params.capture(), eq(Duration.ofSeconds(30)));
+        assertEquals(2, ((List<?>) params.getAllValues().get(0).get("rows")).size());
+        assertEquals(1, ((List<?>) params.getAllValues().get(2).get("rows")).size());
+        assertEquals("name", params.getValue().get("key"));
+        verify(queryResultCache, times(3)).onWrite(contains("SET n += row"), anyMap());
+    }
+
+    @Test
+    void ingest_createsIndexOncePerLabelAndKey() {
+        BulkIngestor ingestor = new BulkIngestor(neo4jService, queryResultCache, 1000);
+        when(neo4jService.executeWriteWithSummary(anyString(), anyMap(), any())).thenReturn(stats(1, 1));
+
+        ingestor.ingest("Person", "name", rows(1), null, null, null);
+        ingestor.ingest("Person", "name", rows(1), null, null, null);
+
+        verify(neo4jService, times(1))
+                .executeWrite(contains("IF NOT EXISTS FOR (n:`Person`) ON (n.`name`)"), isNull());
+    }
+
+    @Test
+    void ingest_rowWithoutKey_rejectedBeforeWriting() {
+        BulkIngestor ingestor = new BulkIngestor(neo4jService, queryResultCache, 1000);
+        List<Map<String, Object>> rows = List.of(Map.of("name", "A"), Map.of("age", 3));
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> ingestor.ingest("Person", "name", rows, null, null, null));
+
+        assertTrue(error.getMessage().contains("第 1 行"));
+        verifyNoInteractions(neo4jService);
+    }
+
+    @Test
+    void ingest_interrupted_stopsBeforeNextBatch() {
+        BulkIngestor ingestor = new BulkIngestor(neo4jService, queryResultCache, 1000);
+        when(neo4jService.executeWriteWithSummary(anyString(), anyMap(), any())).thenAnswer(invocation -> {
+            Thread.currentThread().interrupt();
+            return stats(1, 1);
+        });
+
+        try {
+            assertThrows(CancellationException.class, () -> ingestor.ingest("Person", "name", rows(3), 1, null, null));
+        } finally {
+            Thread.interrupted();
+        }
+
+        verify(neo4jService, times(1)).executeWriteWithSummary(anyString(), anyMap(), any());
+        verify(queryResultCache).onWrite(anyString(), eq(stats(1, 1)));
+    }
+
+    @Test
+    void ingest_laterBatchFails_committedBatchesAlreadyInvalidated() {
+        BulkIngestor ingestor = new BulkIngestor(neo4jService, queryResultCache, 1000);
+        when(neo4jService.executeWriteWithSummary(anyString(), anyMap(), any()))
+                .thenReturn(stats(1, 1))
+                .thenThrow(new IllegalStateException("deadlock"));
+
+        assertThrows(IllegalStateException.class, () -> ingestor.ingest("Person", "name", rows(3), 1, null, null));
+
+        verify(queryResultCache, times(1)).onWrite(anyString(), eq(stats(1, 1)));
+    }
+
+    @Test
+    void ingest_invalidArguments_rejected() {
+        BulkIngestor ingestor = new BulkIngestor(neo4jService, queryResultCache, 1000);
+
+        assertThrows(IllegalArgumentException.class, () -> ingestor.ingest(" ", "name", rows(1), null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> ingestor.ingest("Person", null, rows(1), null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> ingestor.ingest("Person", "name", List.of(), null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> ingestor.ingest("Person", "name", rows(1), 0, null, null));
+        assertThrows(IllegalArgumentException.class, () -> new BulkIngestor(neo4jService, queryResultCache, 0));
+    }
+}
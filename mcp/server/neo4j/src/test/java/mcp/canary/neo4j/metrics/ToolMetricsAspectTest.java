@@ -0,0 +1,85 @@
+package mcp.canary.neo4j.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mcp.canary.neo4j.cypher.CypherText;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ToolMetricsAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private Tools tools;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        tools = proxy(new ToolMetricsAspect(meterRegistry, 2));
+    }
+
+    @Test
+    void monoTool_recordsOnCompletionTaggedByToolAndShape() {
+        Mono<String> result = tools.read("MATCH (n {name: 'A'}) RETURN n");
+
+        assertEquals(0, meterRegistry.find(ToolMetricsAspect.METRIC).timers().size());
+        assertEquals("ok", result.block());
+        tools.read("MATCH (n {name: 'B'}) RETURN n").block();
+
+        String shape = CypherText.fingerprint("MATCH (n {name: 'A'}) RETURN n");
+        assertEquals(2, meterRegistry.get(ToolMetricsAspect.METRIC)
+                .tags("tool", "read", "outcome", "success", "query", shape).timer().count());
+    }
+
+    @Test
+    void failures_recordedAsError() {
+        assertThrows(IllegalArgumentException.class, () -> tools.rejected("CREATE (n)"));
+        assertThrows(IllegalStateException.class, () -> tools.failing().block());
+
+        assertEquals(1, meterRegistry.get(ToolMetricsAspect.METRIC)
+                .tags("tool", "rejected", "outcome", "error").timer().count());
+        assertEquals(1, meterRegistry.get(ToolMetricsAspect.METRIC)
+                .tags("tool", "failing", "outcome", "error", "query", "none").timer().count());
+    }
+
+    @Test
+    void queryShapes_overLimit_taggedOther() {
+        tools.read("MATCH (a:A) RETURN a").block();
+        tools.read("MATCH (b:B) RETURN b").block();
+        tools.read("MATCH (c:C) RETURN c").block();
+        tools.read("MATCH (a:A) RETURN a").block();
+
+        assertEquals(1, meterRegistry.get(ToolMetricsAspect.METRIC).tag("query", "other").timer().count());
+        assertEquals(2, meterRegistry.get(ToolMetricsAspect.METRIC)
+                .tag("query", CypherText.fingerprint("MATCH (a:A) RETURN a")).timer().count());
+    }
+
+    private static Tools proxy(ToolMetricsAspect aspect) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Tools());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    static class Tools {
+
+        @McpTool(name = "read", description = "read")
+        public Mono<String> read(String query) {
+            return Mono.just("ok");
+        }
+
+        @McpTool(name = "rejected", description = "rejected")
+        public Mono<String> rejected(String query) {
+            throw new IllegalArgumentException("rejected");
+        }
+
+        @McpTool(name = "failing", description = "failing")
+        public Mono<String> failing() {
+            return Mono.error(new IllegalStateException("failing"));
+        }
+    }
+}
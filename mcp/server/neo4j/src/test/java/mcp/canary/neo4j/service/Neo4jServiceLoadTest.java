@@ -0,0 +1,145 @@
+package mcp.canary.neo4j.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mcp.canary.neo4j.db.Neo4jConnection;
+import mcp.canary.neo4j.slowlog.SlowQueryLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.AccessMode;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.async.AsyncSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 500 个并发客户端下同步与异步写入的吞吐对比。
+ * 数据库往返用固定延迟模拟：同步路径跑在 200 线程的池上（Tomcat 默认 maxThreads），
+ * 异步路径只有 2 个线程负责完成回调（相当于驱动的事件循环）。
+ */
+class Neo4jServiceLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(Neo4jServiceLoadTest.class);
+
+    private static final int CLIENTS = 500;
+    private static final int REQUESTS_PER_CLIENT = 4;
+    private static final long LATENCY_MILLIS = 50;
+    private static final int SERVLET_THREADS = 200;
+    private static final Map<String, Object> STATS = Map.of("nodesCreated", 1);
+
+    private ScheduledExecutorService eventLoop;
+    private Set<String> completionThreads;
+
+    @BeforeEach
+    void setUp() {
+        eventLoop = Executors.newScheduledThreadPool(2, r -> new Thread(r, "fake-event-loop"));
+        completionThreads = ConcurrentHashMap.newKeySet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLoop.shutdownNow();
+    }
+
+    @Test
+    void asyncWrites_outperformBlockingWritesAt500Clients() throws Exception {
+        double blocking = blockingThroughput();
+        double async = asyncThroughput();
+
+        logger.info("{} 个并发客户端，每次往返 {} ms：同步 {} 线程 {} req/s，异步 {} 线程 {} req/s",
+                CLIENTS, LATENCY_MILLIS, SERVLET_THREADS, Math.round(blocking),
+                completionThreads.size(), Math.round(async));
+        assertTrue(async > blocking, "async " + async + " req/s <= blocking " + blocking + " req/s");
+        assertTrue(completionThreads.size() <= 2, "completion threads: " + completionThreads);
+    }
+
+    private double blockingThroughput() throws Exception {
+        Session session = mock(Session.class, withSettings().stubOnly());
+        when(session.executeWrite(any(), any())).thenAnswer(call -> {
+            Thread.sleep(LATENCY_MILLIS);
+            return STATS;
+        });
+        Neo4jConnection connection = mock(Neo4jConnection.class, withSettings().stubOnly());
+        when(connection.createSession(AccessMode.WRITE)).thenReturn(session);
+        Neo4jService service = new Neo4jService(connection, new SimpleMeterRegistry(),
+                mock(SlowQueryLog.class, withSettings().stubOnly()),
+                new TransactionTimeouts(Duration.ofSeconds(60), "", Duration.ofMinutes(10)));
+        service.executeWriteWithSummary("CREATE (n)", null);
+
+        ExecutorService servletThreads = Executors.newFixedThreadPool(SERVLET_THREADS);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> clients = new ArrayList<>(CLIENTS);
+            for (int c = 0; c < CLIENTS; c++) {
+                clients.add(servletThreads.submit(() -> {
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        assertEquals(STATS, service.executeWriteWithSummary("CREATE (n)", null));
+                    }
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get(30, TimeUnit.SECONDS);
+            }
+            return throughput(start);
+        } finally {
+            servletThreads.shutdownNow();
+        }
+    }
+
+    private double asyncThroughput() {
+        AsyncSession session = mock(AsyncSession.class, withSettings().stubOnly());
+        when(session.executeWriteAsync(any(), any())).thenAnswer(call -> {
+            CompletableFuture<Map<String, Object>> reply = new CompletableFuture<>();
+            eventLoop.schedule(() -> {
+                completionThreads.add(Thread.currentThread().getName() + "#" + Thread.currentThread().getId());
+                reply.complete(STATS);
+            }, LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+            return reply;
+        });
+        when(session.closeAsync()).thenReturn(CompletableFuture.completedFuture(null));
+        Neo4jConnection connection = mock(Neo4jConnection.class, withSettings().stubOnly());
+        when(connection.createAsyncSession(AccessMode.WRITE, 0)).thenReturn(session);
+        Neo4jService service = new Neo4jService(connection, new SimpleMeterRegistry(),
+                mock(SlowQueryLog.class, withSettings().stubOnly()),
+                new TransactionTimeouts(Duration.ofSeconds(60), "", Duration.ofMinutes(10)));
+        service.executeWriteWithSummaryAsync("CREATE (n)", null).toCompletableFuture().join();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> clients = new ArrayList<>(CLIENTS);
+        for (int c = 0; c < CLIENTS; c++) {
+            CompletionStage<Map<String, Object>> chain = CompletableFuture.completedFuture(null);
+            for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                chain = chain.thenCompose(previous -> service.executeWriteWithSummaryAsync("CREATE (n)", null));
+            }
+            clients.add(chain.toCompletableFuture());
+        }
+        CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).orTimeout(30, TimeUnit.SECONDS).join();
+        return throughput(start);
+    }
+
+    private static double throughput(long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return CLIENTS * REQUESTS_PER_CLIENT / seconds;
+    }
+}
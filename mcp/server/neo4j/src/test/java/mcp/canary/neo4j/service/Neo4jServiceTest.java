@@ -1,36 +1,79 @@
 package mcp.canary.neo4j.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mcp.canary.neo4j.cypher.CypherText;
 import mcp.canary.neo4j.db.Neo4jConnection;
+import mcp.canary.neo4j.graph.GraphResult;
+import mcp.canary.neo4j.slowlog.SlowQueryLog;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.neo4j.driver.AccessMode;
 import org.neo4j.driver.Record;
 import org.neo4j.driver.Result;
 import org.neo4j.driver.Session;
+import org.neo4j.driver.TransactionCallback;
+import org.neo4j.driver.TransactionConfig;
+import org.neo4j.driver.TransactionContext;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.async.AsyncTransactionCallback;
+import org.neo4j.driver.async.AsyncTransactionContext;
+import org.neo4j.driver.async.ResultCursor;
+import org.neo4j.driver.exceptions.ClientException;
+import org.neo4j.driver.exceptions.ServiceUnavailableException;
+import org.neo4j.driver.exceptions.TransientException;
 import org.neo4j.driver.summary.ResultSummary;
+import org.neo4j.driver.summary.ServerInfo;
 import org.neo4j.driver.summary.SummaryCounters;
+import org.neo4j.driver.types.Node;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.isNull;
-import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.spy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
 class Neo4jServiceTest {
 
     @Mock
@@ -39,17 +82,47 @@ class Neo4jServiceTest {
     @Mock
     private Session session;
 
+    @Mock
+    private TransactionContext tx;
+
     @Mock
     private Result result;
 
-    @InjectMocks
+    @Mock
+    private AsyncSession asyncSession;
+
+    @Mock
+    private AsyncTransactionContext asyncTx;
+
+    @Mock
+    private ResultCursor cursor;
+
+    @Mock
+    private SlowQueryLog slowQueryLog;
+
+    private SimpleMeterRegistry meterRegistry;
     private Neo4jService neo4jService;
 
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        neo4jService = new Neo4jService(neo4jConnection, meterRegistry, slowQueryLog,
+                new TransactionTimeouts(Duration.ofSeconds(60), "", Duration.ofMinutes(10)));
+        when(session.executeRead(any(), any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).execute(tx));
+        when(session.executeWrite(any(), any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).execute(tx));
+        when(tx.run(anyString(), anyMap())).thenReturn(result);
+        when(asyncSession.executeReadAsync(any(), any()))
+                .thenAnswer(inv -> inv.<AsyncTransactionCallback<?>>getArgument(0).execute(asyncTx));
+        when(asyncSession.executeWriteAsync(any(), any()))
+                .thenAnswer(inv -> inv.<AsyncTransactionCallback<?>>getArgument(0).execute(asyncTx));
+        when(asyncSession.closeAsync()).thenReturn(CompletableFuture.completedFuture(null));
+        when(asyncTx.runAsync(anyString(), anyMap())).thenReturn(CompletableFuture.completedFuture(cursor));
+    }
+
     @Test
-    void execute_nullParams_usesEmptyMap() {
+    void execute_nullParams_usesEmptyMapInReadTransaction() {
         List<Map<String, Object>> expected = List.of(Map.of("k", "v"));
-        when(neo4jConnection.createSession()).thenReturn(session);
-        when(session.run(anyString(), anyMap())).thenReturn(result);
+        when(neo4jConnection.createSession(AccessMode.READ)).thenReturn(session);
         when(result.list(ArgumentMatchers.<Function<Record, Map<String, Object>>>any()))
                 .thenReturn(expected);
 
@@ -57,48 +130,113 @@ class Neo4jServiceTest {
 
         assertEquals(expected, actual);
         ArgumentCaptor<Map<String, Object>> paramsCaptor = ArgumentCaptor.forClass(Map.class);
-        verify(session).run(anyString(), paramsCaptor.capture());
+        verify(tx).run(anyString(), paramsCaptor.capture());
         assertTrue(paramsCaptor.getValue().isEmpty());
+        verify(session).executeRead(any(), any());
+        verify(session, never()).executeWrite(any(), any());
         verify(session).close();
     }
 
     @Test
     void execute_params_passthrough() {
         Map<String, Object> params = Collections.singletonMap("name", "Alice");
-        when(neo4jConnection.createSession()).thenReturn(session);
-        when(session.run(anyString(), anyMap())).thenReturn(result);
+        when(neo4jConnection.createSession(AccessMode.READ)).thenReturn(session);
         when(result.list(ArgumentMatchers.<Function<Record, Map<String, Object>>>any()))
                 .thenReturn(List.of());
 
         neo4jService.execute("MATCH (n) RETURN n", params);
 
         ArgumentCaptor<Map<String, Object>> paramsCaptor = ArgumentCaptor.forClass(Map.class);
-        verify(session).run(anyString(), paramsCaptor.capture());
+        verify(tx).run(anyString(), paramsCaptor.capture());
         assertSame(params, paramsCaptor.getValue());
         verify(session).close();
     }
 
     @Test
-    void deduplicateNodesByName_executesDedupeQuery() {
-        Neo4jService spyService = spy(new Neo4jService(neo4jConnection));
-        doReturn(List.of()).when(spyService).execute(anyString(), isNull());
+    void executeWrite_usesWriteTransaction() {
+        when(neo4jConnection.createSession(AccessMode.WRITE)).thenReturn(session);
+        when(result.list(ArgumentMatchers.<Function<Record, Map<String, Object>>>any()))
+                .thenReturn(List.of(Map.of("groups", 1)));
+
+        List<Map<String, Object>> rows = neo4jService.executeWrite("CALL apoc.refactor.mergeNodes([]) YIELD node", null);
+
+        assertEquals(List.of(Map.of("groups", 1)), rows);
+        verify(session).executeWrite(any(), any());
+        verify(session, never()).executeRead(any(), any());
+    }
+
+    @Test
+    void executePage_returnsFirstPageAndCursor() {
+        when(neo4jConnection.createSession(AccessMode.READ, 2)).thenReturn(session);
+        Record r1 = record(Map.of("i", 1));
+        Record r2 = record(Map.of("i", 2));
+        when(result.hasNext()).thenReturn(true, true, true);
+        when(result.next()).thenReturn(r1, r2);
+
+        ReadPage page = neo4jService.executePage("MATCH (n) RETURN n", null, null, 2);
+
+        assertEquals(List.of(Map.of("i", 1), Map.of("i", 2)), page.getRecords());
+        assertTrue(page.isHasMore());
+        assertNotNull(page.getNextCursor());
+        verify(result).consume();
+        verify(session).close();
+    }
+
+    @Test
+    void executePage_cursorSkipsReadRecords() {
+        String cursor = ReadCursor.encode(2, "MATCH (n) RETURN n", Collections.emptyMap());
+        when(neo4jConnection.createSession(AccessMode.READ, 2)).thenReturn(session);
+        Record skipped = record(Map.of("i", 0));
+        Record r3 = record(Map.of("i", 3));
+        when(result.hasNext()).thenReturn(true, true, true, false, false);
+        when(result.next()).thenReturn(skipped, skipped, r3);
 
-        spyService.deduplicateNodesByName();
+        ReadPage page = neo4jService.executePage("MATCH (n) RETURN n", null, cursor, 2);
 
-        ArgumentCaptor<String> queryCaptor = ArgumentCaptor.forClass(String.class);
-        verify(spyService).execute(queryCaptor.capture(), isNull());
-        assertTrue(queryCaptor.getValue().contains("apoc.refactor.mergeNodes"));
-        assertTrue(queryCaptor.getValue().contains("WHERE size(nodes) > 1"));
+        assertEquals(List.of(Map.of("i", 3)), page.getRecords());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        verify(skipped, never()).asMap();
     }
 
     @Test
-    void executeWriteWithSummary_returnsCounters() {
-        when(neo4jConnection.createSession()).thenReturn(session);
-        when(session.run(anyString(), anyMap())).thenReturn(result);
-        ResultSummary summary = org.mockito.Mockito.mock(ResultSummary.class);
-        SummaryCounters counters = org.mockito.Mockito.mock(SummaryCounters.class);
+    void executePage_cursorFromOtherQuery_rejected() {
+        String cursor = ReadCursor.encode(2, "MATCH (m) RETURN m", Collections.emptyMap());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> neo4jService.executePage("MATCH (n) RETURN n", null, cursor, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> neo4jService.executePage("MATCH (n) RETURN n", null, "%%%", 2));
+        verifyNoInteractions(neo4jConnection);
+    }
+
+    @Test
+    void readCursor_fingerprintIsSha256PrefixOfQueryAndParams() {
+        String cursor = ReadCursor.encode(2, "MATCH (n) WHERE n.x = $x RETURN n", Map.of("x", 1));
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+        assertEquals("2:" + CypherText.hash("MATCH (n) WHERE n.x = $x RETURN n", Map.of("x", 1)).substring(0, 32), raw);
+        assertEquals(2, ReadCursor.decode(cursor, "MATCH (n)  WHERE n.x = $x RETURN n", Map.of("x", 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> ReadCursor.decode(cursor, "MATCH (n) WHERE n.x = $x RETURN n", Map.of("x", 2)));
+    }
+
+    private static Record record(Map<String, Object> values) {
+        Record record = mock(Record.class);
+        when(record.asMap()).thenReturn(values);
+        return record;
+    }
+
+    @Test
+    void executeWriteWithSummary_returnsCountersAndRecordsRoute() {
+        when(neo4jConnection.createSession(AccessMode.WRITE)).thenReturn(session);
+        ResultSummary summary = mock(ResultSummary.class);
+        SummaryCounters counters = mock(SummaryCounters.class);
+        ServerInfo server = mock(ServerInfo.class);
         when(result.consume()).thenReturn(summary);
         when(summary.counters()).thenReturn(counters);
+        when(summary.server()).thenReturn(server);
+        when(server.address()).thenReturn("core-1:7687");
         when(counters.nodesCreated()).thenReturn(1);
         when(counters.nodesDeleted()).thenReturn(2);
         when(counters.relationshipsCreated()).thenReturn(3);
@@ -111,26 +249,349 @@ class Neo4jServiceTest {
         assertEquals(3, stats.get("relationshipsCreated"));
         assertEquals(4, stats.get("propertiesSet"));
         ArgumentCaptor<Map<String, Object>> paramsCaptor = ArgumentCaptor.forClass(Map.class);
-        verify(session).run(anyString(), paramsCaptor.capture());
+        verify(tx).run(anyString(), paramsCaptor.capture());
         assertTrue(paramsCaptor.getValue().isEmpty());
         verify(session).close();
+        assertEquals(1, meterRegistry.get("neo4j.tx.routed")
+                .tag("mode", "write").tag("server", "core-1:7687").counter().count());
     }
 
     @Test
     void executeWriteWithSummary_params_passthrough() {
         Map<String, Object> params = Map.of("name", "Bob");
-        when(neo4jConnection.createSession()).thenReturn(session);
-        when(session.run(anyString(), anyMap())).thenReturn(result);
-        ResultSummary summary = org.mockito.Mockito.mock(ResultSummary.class);
-        SummaryCounters counters = org.mockito.Mockito.mock(SummaryCounters.class);
+        when(neo4jConnection.createSession(AccessMode.WRITE)).thenReturn(session);
+        ResultSummary summary = mock(ResultSummary.class);
         when(result.consume()).thenReturn(summary);
-        when(summary.counters()).thenReturn(counters);
+        when(summary.counters()).thenReturn(mock(SummaryCounters.class));
 
         neo4jService.executeWriteWithSummary("MATCH (n) RETURN n", params);
 
         ArgumentCaptor<Map<String, Object>> paramsCaptor = ArgumentCaptor.forClass(Map.class);
-        verify(session).run(anyString(), paramsCaptor.capture());
+        verify(tx).run(anyString(), paramsCaptor.capture());
         assertSame(params, paramsCaptor.getValue());
         verify(session).close();
     }
+
+    @Test
+    void execute_retriedByDriver_countsRetries() {
+        when(neo4jConnection.createSession(AccessMode.READ)).thenReturn(session);
+        when(result.list(ArgumentMatchers.<Function<Record, Map<String, Object>>>any())).thenReturn(List.of());
+        // 模拟驱动：首次执行遇到瞬时错误后再次调用事务函数
+        doAnswer(inv -> {
+            TransactionCallback<?> callback = inv.getArgument(0);
+            try {
+                callback.execute(tx);
+                throw new TransientException("Neo.TransientError.Transaction.LockClientStopped", "retry");
+            } catch (TransientException e) {
+                return callback.execute(tx);
+            }
+        }).when(session).executeRead(any(), any());
+
+        neo4jService.execute("MATCH (n) RETURN n", null);
+
+        assertEquals(1, meterRegistry.get("neo4j.tx.retries").tag("mode", "read").counter().count());
+        assertEquals(1, meterRegistry.get("neo4j.tx.executions")
+                .tag("mode", "read").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void execute_failure_countsFailedExecution() {
+        when(neo4jConnection.createSession(AccessMode.READ)).thenReturn(session);
+        doThrow(new IllegalStateException("boom")).when(tx).run(anyString(), anyMap());
+
+        assertThrows(IllegalStateException.class, () -> neo4jService.execute("MATCH (n) RETURN n", null));
+
+        assertEquals(1, meterRegistry.get("neo4j.tx.executions")
+                .tag("mode", "read").tag("outcome", "failure").counter().count());
+        verify(session).close();
+    }
+
+    @Test
+    void executePageAsync_skipsOffsetAndReturnsPage() {
+        String cursorToken = ReadCursor.encode(1, "MATCH (n) RETURN n", Collections.emptyMap());
+        when(neo4jConnection.createAsyncSession(AccessMode.READ, 2)).thenReturn(asyncSession);
+        Record skipped = record(Map.of("i", 0));
+        Record r1 = record(Map.of("i", 1));
+        // 第二条记录稍后才到，模拟需要等待服务端的情况
+        CompletableFuture<Record> late = new CompletableFuture<>();
+        when(cursor.nextAsync()).thenReturn(CompletableFuture.completedFuture(skipped),
+                CompletableFuture.completedFuture(r1), late);
+        when(cursor.peekAsync()).thenReturn(CompletableFuture.completedFuture(skipped));
+        when(cursor.consumeAsync()).thenReturn(CompletableFuture.completedFuture(mock(ResultSummary.class)));
+
+        CompletableFuture<ReadPage> future = neo4jService
+                .executePageAsync("MATCH (n) RETURN n", null, cursorToken, 2).toCompletableFuture();
+        assertFalse(future.isDone());
+        late.complete(record(Map.of("i", 2)));
+        ReadPage page = future.join();
+
+        assertEquals(List.of(Map.of("i", 1), Map.of("i", 2)), page.getRecords());
+        assertTrue(page.isHasMore());
+        assertEquals(ReadCursor.encode(3, "MATCH (n) RETURN n", Collections.emptyMap()), page.getNextCursor());
+        verify(skipped, never()).asMap();
+        verify(asyncSession).closeAsync();
+    }
+
+    @Test
+    void executePageAsync_lastPage_noCursor() {
+        ResultSummary summary = mock(ResultSummary.class);
+        when(neo4jConnection.createAsyncSession(AccessMode.READ, 5)).thenReturn(asyncSession);
+        Record only = record(Map.of("i", 1));
+        when(cursor.nextAsync()).thenReturn(CompletableFuture.completedFuture(only),
+                CompletableFuture.completedFuture(null));
+        when(cursor.peekAsync()).thenReturn(CompletableFuture.completedFuture(null));
+        when(cursor.consumeAsync()).thenReturn(CompletableFuture.completedFuture(summary));
+
+        ReadPage page = neo4jService.executePageAsync("MATCH (n) RETURN n", null, null, 5).toCompletableFuture().join();
+
+        assertEquals(List.of(Map.of("i", 1)), page.getRecords());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        verify(slowQueryLog).onRead(eq("MATCH (n) RETURN n"), eq(Collections.emptyMap()), eq(0L), eq(1),
+                anyLong(), same(summary));
+    }
+
+    @Test
+    void explainAsync_replacesPlanPrefixAndRunsInReadTransaction() {
+        when(neo4jConnection.createAsyncSession(AccessMode.READ, 0)).thenReturn(asyncSession);
+        ResultSummary summary = mock(ResultSummary.class);
+        when(cursor.consumeAsync()).thenReturn(CompletableFuture.completedFuture(summary));
+
+        ResultSummary explained = neo4jService.explainAsync("PROFILE MATCH (n) RETURN n", null)
+                .toCompletableFuture().join();
+
+        assertSame(summary, explained);
+        verify(asyncTx).runAsync("EXPLAIN MATCH (n) RETURN n", Collections.emptyMap());
+        verify(asyncSession).executeReadAsync(any(), any());
+    }
+
+    @Test
+    void profileAsync_runsProfileWithGivenTimeout() {
+        when(neo4jConnection.createAsyncSession(AccessMode.READ, 0)).thenReturn(asyncSession);
+        ResultSummary summary = mock(ResultSummary.class);
+        when(cursor.consumeAsync()).thenReturn(CompletableFuture.completedFuture(summary));
+
+        ResultSummary profiled = neo4jService.profileAsync("EXPLAIN MATCH (n) RETURN n", null, Duration.ofSeconds(5))
+                .toCompletableFuture().join();
+
+        assertSame(summary, profiled);
+        verify(asyncTx).runAsync("PROFILE MATCH (n) RETURN n", Collections.emptyMap());
+        ArgumentCaptor<TransactionConfig> config = ArgumentCaptor.forClass(TransactionConfig.class);
+        verify(asyncSession).executeReadAsync(any(), config.capture());
+        assertEquals(Duration.ofSeconds(5), config.getValue().timeout());
+    }
+
+    @Test
+    void executeWriteWithSummaryAsync_returnsCounters() {
+        when(neo4jConnection.createAsyncSession(AccessMode.WRITE, 0)).thenReturn(asyncSession);
+        ResultSummary summary = mock(ResultSummary.class);
+        SummaryCounters counters = mock(SummaryCounters.class);
+        when(counters.nodesCreated()).thenReturn(3);
+        when(summary.counters()).thenReturn(counters);
+        when(cursor.consumeAsync()).thenReturn(CompletableFuture.completedFuture(summary));
+
+        Map<String, Object> stats = neo4jService.executeWriteWithSummaryAsync("CREATE (n)", null)
+                .toCompletableFuture().join();
+
+        assertEquals(3, stats.get("nodesCreated"));
+        verify(asyncSession).executeWriteAsync(any(), any());
+        assertEquals(1, meterRegistry.get("neo4j.tx.executions")
+                .tag("mode", "write").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void executeWriteWithSummaryAsync_failure_closesSessionAndPropagates() {
+        when(neo4jConnection.createAsyncSession(AccessMode.WRITE, 0)).thenReturn(asyncSession);
+        when(asyncTx.runAsync(anyString(), anyMap()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+        CompletableFuture<Map<String, Object>> future =
+                neo4jService.executeWriteWithSummaryAsync("CREATE (n)", null).toCompletableFuture();
+
+        CompletionException error = assertThrows(CompletionException.class, future::join);
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        verify(asyncSession).closeAsync();
+        assertEquals(1, meterRegistry.get("neo4j.tx.executions")
+                .tag("mode", "write").tag("outcome", "failure").counter().count());
+    }
+
+    @Test
+    void transactions_carryDefaultOrGivenTimeout() {
+        when(neo4jConnection.createSession(AccessMode.READ)).thenReturn(session);
+        when(neo4jConnection.createAsyncSession(AccessMode.WRITE, 0)).thenReturn(asyncSession);
+        ResultSummary summary = mock(ResultSummary.class);
+        when(summary.counters()).thenReturn(mock(SummaryCounters.class));
+        when(cursor.consumeAsync()).thenReturn(CompletableFuture.completedFuture(summary));
+
+        neo4jService.execute("MATCH (n) RETURN n", null);
+        neo4jService.executeWriteWithSummaryAsync("CREATE (n)", null, Duration.ofSeconds(5)).toCompletableFuture().join();
+
+        ArgumentCaptor<TransactionConfig> read = ArgumentCaptor.forClass(TransactionConfig.class);
+        verify(session).executeRead(any(), read.capture());
+        assertEquals(Duration.ofSeconds(60), read.getValue().timeout());
+        ArgumentCaptor<TransactionConfig> write = ArgumentCaptor.forClass(TransactionConfig.class);
+        verify(asyncSession).executeWriteAsync(any(), write.capture());
+        assertEquals(Duration.ofSeconds(5), write.getValue().timeout());
+    }
+
+    @Test
+    void executePageAsync_cancelled_closesSessionWhileRunning() {
+        when(neo4jConnection.createAsyncSession(AccessMode.READ, 5)).thenReturn(asyncSession);
+        when(asyncTx.runAsync(anyString(), anyMap())).thenReturn(new CompletableFuture<>());
+
+        CompletableFuture<ReadPage> page = neo4jService.executePageAsync("MATCH (n) RETURN n", null, null, 5)
+                .toCompletableFuture();
+        page.cancel(true);
+
+        verify(asyncSession).closeAsync();
+        assertEquals(1, meterRegistry.get("neo4j.tx.cancelled").tag("mode", "read").counter().count());
+        verify(slowQueryLog, never()).onRead(any(), any(), anyLong(), anyInt(), anyLong(), any());
+    }
+
+    @Test
+    void connectionNotReady_failsFastWithoutOpeningSession() {
+        doThrow(new ServiceUnavailableException("Neo4j 数据库不可用")).when(neo4jConnection).requireAvailable();
+
+        assertThrows(ServiceUnavailableException.class, () -> neo4jService.execute("MATCH (n) RETURN n", null));
+        CompletableFuture<Map<String, Object>> future =
+                neo4jService.executeWriteWithSummaryAsync("CREATE (n)", null).toCompletableFuture();
+
+        CompletionException error = assertThrows(CompletionException.class, future::join);
+        assertTrue(error.getCause() instanceof ServiceUnavailableException);
+        verify(neo4jConnection, never()).createSession(any());
+        verify(neo4jConnection, never()).createAsyncSession(any(), anyLong());
+    }
+
+    @Test
+    void executeWriteWithSummaryAsync_failure_reportedToConnection() {
+        when(neo4jConnection.createAsyncSession(AccessMode.WRITE, 0)).thenReturn(asyncSession);
+        ServiceUnavailableException unavailable = new ServiceUnavailableException("gone");
+        when(asyncTx.runAsync(anyString(), anyMap())).thenReturn(CompletableFuture.failedFuture(unavailable));
+
+        assertThrows(CompletionException.class,
+                () -> neo4jService.executeWriteWithSummaryAsync("CREATE (n)", null).toCompletableFuture().join());
+
+        verify(neo4jConnection).reportFailure(argThat(e -> e == unavailable || e.getCause() == unavailable));
+    }
+
+    @Test
+    void executeGraphAsync_stopsPullingWhenFullAndDiscardsRest() {
+        when(neo4jConnection.createAsyncSession(AccessMode.READ, 0)).thenReturn(asyncSession);
+        Node node = mock(Node.class);
+        when(node.elementId()).thenReturn("4:db:1");
+        when(node.labels()).thenReturn(List.of("Person"));
+        when(node.get("name")).thenReturn(Values.value("Alice"));
+        Node other = mock(Node.class);
+        when(other.elementId()).thenReturn("4:db:2");
+        Value nodeValue = mock(Value.class);
+        when(nodeValue.asObject()).thenReturn(node);
+        Value otherValue = mock(Value.class);
+        when(otherValue.asObject()).thenReturn(other);
+        Record first = mock(Record.class);
+        when(first.values()).thenReturn(List.of(nodeValue));
+        Record second = mock(Record.class);
+        when(second.values()).thenReturn(List.of(otherValue));
+        when(cursor.nextAsync()).thenReturn(CompletableFuture.completedFuture(first),
+                CompletableFuture.completedFuture(second), CompletableFuture.completedFuture(first));
+        when(cursor.consumeAsync()).thenReturn(CompletableFuture.completedFuture(mock(ResultSummary.class)));
+
+        GraphResult graph = neo4jService.executeGraphAsync("MATCH (n) RETURN n", null, 1, 10, Duration.ofSeconds(5))
+                .toCompletableFuture().join();
+
+        assertEquals(1, graph.getNodes().size());
+        assertTrue(graph.isTruncated());
+        verify(cursor, times(2)).nextAsync();
+        verify(cursor).consumeAsync();
+        verify(asyncSession).closeAsync();
+    }
+
+    @Test
+    void executeGraphAsync_retriedByDriver_collectsFromScratch() {
+        when(neo4jConnection.createAsyncSession(AccessMode.READ, 0)).thenReturn(asyncSession);
+        Node node = mock(Node.class);
+        when(node.elementId()).thenReturn("4:db:1");
+        when(node.labels()).thenReturn(List.of("Person"));
+        when(node.get("name")).thenReturn(Values.value("Alice"));
+        Node other = mock(Node.class);
+        when(other.elementId()).thenReturn("4:db:2");
+        Value nodeValue = mock(Value.class);
+        when(nodeValue.asObject()).thenReturn(node);
+        Value otherValue = mock(Value.class);
+        when(otherValue.asObject()).thenReturn(other);
+        Record first = mock(Record.class);
+        when(first.values()).thenReturn(List.of(nodeValue));
+        Record second = mock(Record.class);
+        when(second.values()).thenReturn(List.of(otherValue));
+        // 第一次尝试读满后遇到瞬时错误，重试时只返回一条记录
+        when(cursor.nextAsync()).thenReturn(CompletableFuture.completedFuture(first))
+                .thenReturn(CompletableFuture.completedFuture(second))
+                .thenReturn(CompletableFuture.completedFuture(first))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(cursor.consumeAsync()).thenReturn(CompletableFuture.completedFuture(mock(ResultSummary.class)));
+        doAnswer(inv -> {
+            AsyncTransactionCallback<CompletionStage<?>> callback = inv.getArgument(0);
+            callback.execute(asyncTx).toCompletableFuture().join();
+            return callback.execute(asyncTx);
+        }).when(asyncSession).executeReadAsync(any(), any());
+
+        GraphResult graph = neo4jService.executeGraphAsync("MATCH (n) RETURN n", null, 1, 10, Duration.ofSeconds(5))
+                .toCompletableFuture().join();
+
+        assertEquals(1, graph.getNodes().size());
+        assertEquals("Alice", graph.getNodes().get(0).getName());
+        assertFalse(graph.isTruncated());
+        assertEquals(1, meterRegistry.get("neo4j.tx.retries").tag("mode", "read").counter().count());
+    }
+
+    @Test
+    void executeWriteBatchAsync_runsAllStatementsInOneTransaction() {
+        when(neo4jConnection.createAsyncSession(AccessMode.WRITE, 0)).thenReturn(asyncSession);
+        ResultSummary first = mock(ResultSummary.class);
+        SummaryCounters firstCounters = mock(SummaryCounters.class);
+        when(firstCounters.nodesCreated()).thenReturn(1);
+        when(first.counters()).thenReturn(firstCounters);
+        ResultSummary second = mock(ResultSummary.class);
+        SummaryCounters secondCounters = mock(SummaryCounters.class);
+        when(secondCounters.nodesCreated()).thenReturn(2);
+        when(secondCounters.relationshipsCreated()).thenReturn(1);
+        when(second.counters()).thenReturn(secondCounters);
+        when(cursor.consumeAsync()).thenReturn(CompletableFuture.completedFuture(first),
+                CompletableFuture.completedFuture(second));
+
+        BatchWriteResult result = neo4jService.executeWriteBatchAsync(List.of(
+                new WriteStatement("MERGE (a:Person {name: $name})", Map.of("name", "Alice")),
+                new WriteStatement("MERGE (b:Person {name: 'Bob'})-[:KNOWS]->(c:Person {name: 'Carol'})", null)),
+                Duration.ofSeconds(5)).toCompletableFuture().join();
+
+        assertEquals(List.of(1, 2), result.getStatements().stream().map(stats -> stats.get("nodesCreated")).toList());
+        assertEquals(3, result.getTotal().get("nodesCreated"));
+        assertEquals(1, result.getTotal().get("relationshipsCreated"));
+        InOrder order = inOrder(asyncTx);
+        order.verify(asyncTx).runAsync("MERGE (a:Person {name: $name})", Map.of("name", "Alice"));
+        order.verify(asyncTx).runAsync("MERGE (b:Person {name: 'Bob'})-[:KNOWS]->(c:Person {name: 'Carol'})", Map.of());
+        verify(asyncSession, times(1)).executeWriteAsync(any(), any());
+        verify(asyncSession).closeAsync();
+    }
+
+    @Test
+    void executeWriteBatchAsync_failure_stopsAndReportsStatement() {
+        when(neo4jConnection.createAsyncSession(AccessMode.WRITE, 0)).thenReturn(asyncSession);
+        ResultSummary summary = mock(ResultSummary.class);
+        when(summary.counters()).thenReturn(mock(SummaryCounters.class));
+        when(cursor.consumeAsync()).thenReturn(CompletableFuture.completedFuture(summary));
+        when(asyncTx.runAsync(eq("BROKEN"), anyMap()))
+                .thenReturn(CompletableFuture.failedFuture(new ClientException("syntax")));
+
+        CompletableFuture<BatchWriteResult> future = neo4jService.executeWriteBatchAsync(List.of(
+                new WriteStatement("CREATE (n)", null),
+                new WriteStatement("BROKEN", null),
+                new WriteStatement("CREATE (m)", null)), null).toCompletableFuture();
+
+        CompletionException error = assertThrows(CompletionException.class, future::join);
+        assertTrue(error.getCause().getMessage().startsWith("第 2 条语句执行失败"));
+        assertTrue(error.getCause().getCause() instanceof ClientException);
+        verify(asyncTx, never()).runAsync(eq("CREATE (m)"), anyMap());
+        verify(asyncSession).closeAsync();
+        assertThrows(IllegalArgumentException.class, () -> neo4jService.executeWriteBatchAsync(List.of(), null));
+    }
 }
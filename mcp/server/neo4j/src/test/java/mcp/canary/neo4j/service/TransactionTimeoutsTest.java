@@ -0,0 +1,38 @@
+package mcp.canary.neo4j.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TransactionTimeoutsTest {
+
+    private final TransactionTimeouts timeouts = new TransactionTimeouts(Duration.ofSeconds(60),
+            "read-neo4j-cypher=PT30S, ingest-neo4j-nodes=PT5M", Duration.ofMinutes(10));
+
+    @Test
+    void forTool_callOverrideThenToolThenDefault() {
+        assertEquals(Duration.ofSeconds(5), timeouts.forTool("read-neo4j-cypher", 5));
+        assertEquals(Duration.ofSeconds(30), timeouts.forTool("read-neo4j-cypher", null));
+        assertEquals(Duration.ofMinutes(5), timeouts.forTool("ingest-neo4j-nodes", null));
+        assertEquals(Duration.ofSeconds(60), timeouts.forTool("write-neo4j-cypher", null));
+    }
+
+    @Test
+    void forTool_overrideCappedAtMaxAndMustBePositive() {
+        assertEquals(Duration.ofMinutes(10), timeouts.forTool("read-neo4j-cypher", 3600));
+        assertThrows(IllegalArgumentException.class, () -> timeouts.forTool("read-neo4j-cypher", 0));
+    }
+
+    @Test
+    void constructor_invalidSettings_rejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionTimeouts(Duration.ofSeconds(60), "read-neo4j-cypher=30", Duration.ofMinutes(10)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionTimeouts(Duration.ofSeconds(60), "read-neo4j-cypher", Duration.ofMinutes(10)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionTimeouts(Duration.ofSeconds(60), "", Duration.ZERO));
+    }
+}
@@ -0,0 +1,199 @@
+package mcp.canary.neo4j.slowlog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mcp.canary.neo4j.cypher.CypherText;
+import mcp.canary.neo4j.service.Neo4jService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.exceptions.ClientException;
+import org.neo4j.driver.exceptions.ServiceUnavailableException;
+import org.neo4j.driver.summary.Plan;
+import org.neo4j.driver.summary.ProfiledPlan;
+import org.neo4j.driver.summary.ResultSummary;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SlowQueryLogTest {
+
+    private static final String QUERY = "MATCH (n) WHERE n.name = $__lit0 RETURN n";
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+    private static final Duration PLAN_TIMEOUT = Duration.ofSeconds(5);
+
+    @Mock
+    private Neo4jService neo4jService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void onRead_belowThreshold_ignored() {
+        SlowQueryLog log = log("explain", 10);
+
+        log.onRead(QUERY, Map.of(), 0, 1, TimeUnit.MILLISECONDS.toNanos(10), mock(ResultSummary.class));
+
+        assertTrue(log.entries(null).isEmpty());
+        verifyNoInteractions(neo4jService);
+    }
+
+    @Test
+    void onRead_slow_capturesExplainPlanWithPlanTimeout() {
+        ResultSummary explained = explained("AllNodesScan");
+        when(neo4jService.explainAsync(anyString(), anyMap(), any())).thenReturn(CompletableFuture.completedFuture(explained));
+        ResultSummary read = mock(ResultSummary.class);
+        when(read.resultAvailableAfter(TimeUnit.MILLISECONDS)).thenReturn(1500L);
+        SlowQueryLog log = log("explain", 10);
+
+        log.onRead(QUERY, Map.of("__lit0", "A"), 200, 3, SLOW, read);
+
+        SlowQueryEntry entry = log.entries(null).get(0);
+        assertEquals(CypherText.fingerprint(QUERY), entry.getFingerprint());
+        assertEquals(3, entry.getRows());
+        assertEquals(200, entry.getSkipped());
+        assertEquals(2000, entry.getElapsedMillis());
+        assertEquals(1500, entry.getAvailableAfterMillis());
+        assertEquals("EXPLAIN", entry.getPlanType());
+        assertEquals("AllNodesScan", entry.getPlan().get("operator"));
+        assertEquals(Map.of("EstimatedRows", 100.0), entry.getPlan().get("arguments"));
+        verify(neo4jService).explainAsync(QUERY, Map.of("__lit0", "A"), PLAN_TIMEOUT);
+        assertEquals(1, meterRegistry.get("neo4j.slow.queries").counter().count());
+    }
+
+    @Test
+    void onRead_summaryAlreadyProfiled_usesItWithoutExtraQuery() {
+        ProfiledPlan profile = mock(ProfiledPlan.class);
+        when(profile.operatorType()).thenReturn("ProduceResults");
+        when(profile.arguments()).thenReturn(Map.of());
+        when(profile.dbHits()).thenReturn(42L);
+        doReturn(List.of()).when(profile).children();
+        ResultSummary read = mock(ResultSummary.class);
+        when(read.hasProfile()).thenReturn(true);
+        when(read.profile()).thenReturn(profile);
+        SlowQueryLog log = log("profile", 10);
+
+        log.onRead("PROFILE " + QUERY, Map.of(), 0, 1, SLOW, read);
+
+        SlowQueryEntry entry = log.entries(null).get(0);
+        assertEquals("PROFILE", entry.getPlanType());
+        assertEquals(42L, entry.getPlan().get("dbHits"));
+        verifyNoInteractions(neo4jService);
+    }
+
+    @Test
+    void onRead_profileMode_profilesEachFingerprintOnce() {
+        ResultSummary planned = explained("NodeByLabelScan");
+        when(neo4jService.profileAsync(anyString(), anyMap(), any())).thenReturn(CompletableFuture.completedFuture(planned));
+        when(neo4jService.explainAsync(anyString(), anyMap(), any())).thenReturn(CompletableFuture.completedFuture(planned));
+        SlowQueryLog log = log("profile", 10);
+
+        log.onRead(QUERY, Map.of("__lit0", "A"), 0, 1, SLOW, null);
+        log.onRead(QUERY, Map.of("__lit0", "B"), 0, 1, SLOW, null);
+
+        verify(neo4jService, times(1)).profileAsync(QUERY, Map.of("__lit0", "A"), PLAN_TIMEOUT);
+        verify(neo4jService, times(1)).explainAsync(QUERY, Map.of("__lit0", "B"), PLAN_TIMEOUT);
+        assertEquals(2, log.entries(null).size());
+    }
+
+    @Test
+    void onRead_unavailable_recordsErrorWithoutPlan() {
+        when(neo4jService.explainAsync(anyString(), anyMap(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ServiceUnavailableException("Neo4j 数据库不可用")));
+        SlowQueryLog log = log("explain", 10);
+
+        log.onRead(QUERY, Map.of(), 0, 0, SLOW, null);
+
+        SlowQueryEntry entry = log.entries(null).get(0);
+        assertNull(entry.getPlan());
+        assertTrue(entry.getPlanError().contains("不可用"));
+        verify(neo4jService, never()).profileAsync(anyString(), anyMap(), any());
+    }
+
+    @Test
+    void onRead_planCaptureFails_recordsError() {
+        when(neo4jService.explainAsync(anyString(), anyMap(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ClientException("syntax")));
+        SlowQueryLog log = log("explain", 10);
+
+        log.onRead(QUERY, Map.of(), 0, 0, SLOW, null);
+
+        SlowQueryEntry entry = log.entries(null).get(0);
+        assertNull(entry.getPlan());
+        assertTrue(entry.getPlanError().contains("syntax"));
+    }
+
+    @Test
+    void entries_overCapacity_dropsOldestAndReturnsNewestFirst() {
+        ResultSummary read = mock(ResultSummary.class);
+        when(read.hasPlan()).thenReturn(true);
+        Plan plan = plan("NodeByLabelScan");
+        when(read.plan()).thenReturn(plan);
+        SlowQueryLog log = log("explain", 2);
+
+        log.onRead("MATCH (a:A) RETURN a", Map.of(), 0, 1, SLOW, read);
+        log.onRead("MATCH (b:B) RETURN b", Map.of(), 0, 1, SLOW, read);
+        log.onRead("MATCH (c:C) RETURN c", Map.of(), 0, 1, SLOW, read);
+
+        List<SlowQueryEntry> entries = log.entries(null);
+        assertEquals(List.of("MATCH (c:C) RETURN c", "MATCH (b:B) RETURN b"),
+                entries.stream().map(SlowQueryEntry::getQuery).toList());
+        assertEquals(1, log.entries(1).size());
+        log.clear();
+        assertTrue(log.entries(null).isEmpty());
+    }
+
+    @Test
+    void constructor_unknownPlanMode_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> log("analyze", 10));
+    }
+
+    private SlowQueryLog log(String planMode, int capacity) {
+        return new SlowQueryLog(neo4jService, Duration.ofSeconds(1), capacity, planMode, PLAN_TIMEOUT, meterRegistry);
+    }
+
+    private static ResultSummary explained(String operator) {
+        Plan plan = plan(operator);
+        ResultSummary explained = mock(ResultSummary.class);
+        when(explained.hasPlan()).thenReturn(true);
+        when(explained.plan()).thenReturn(plan);
+        return explained;
+    }
+
+    private static Plan plan(String operator) {
+        Plan plan = mock(Plan.class);
+        when(plan.operatorType()).thenReturn(operator);
+        when(plan.identifiers()).thenReturn(List.of("n"));
+        when(plan.arguments()).thenReturn(Map.of("EstimatedRows", Values.value(100.0)));
+        doReturn(List.of()).when(plan).children();
+        return plan;
+    }
+}
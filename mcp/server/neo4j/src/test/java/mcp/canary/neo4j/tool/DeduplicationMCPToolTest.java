@@ -0,0 +1,66 @@
+package mcp.canary.neo4j.tool;
+
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import mcp.canary.neo4j.dedup.DeduplicationEngine;
+import mcp.canary.neo4j.dedup.DeduplicationReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DeduplicationMCPToolTest {
+
+    @Mock
+    private DeduplicationEngine deduplicationEngine;
+
+    @Mock
+    private McpAsyncServerExchange exchange;
+
+    @InjectMocks
+    private DeduplicationMCPTool tool;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(exchange.loggingNotification(any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void deduplicateNodes_defaultsToDryRun() {
+        DeduplicationReport expected = new DeduplicationReport(true);
+        when(deduplicationEngine.deduplicate(anyBoolean(), any())).thenReturn(expected);
+
+        DeduplicationReport report = tool.deduplicateNodes(null, exchange).block();
+
+        assertSame(expected, report);
+        verify(deduplicationEngine).deduplicate(eq(true), any());
+    }
+
+    @Test
+    void deduplicateNodes_forwardsProgressAsLogs() {
+        when(deduplicationEngine.deduplicate(anyBoolean(), any())).thenAnswer(invocation -> {
+            Consumer<String> progress = invocation.getArgument(1);
+            progress.accept("batch 1");
+            return new DeduplicationReport(false);
+        });
+
+        tool.deduplicateNodes(false, exchange).block();
+
+        verify(deduplicationEngine).deduplicate(eq(false), any());
+        verify(exchange, times(2)).loggingNotification(any());
+    }
+}
@@ -0,0 +1,85 @@
+package mcp.canary.neo4j.tool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import mcp.canary.neo4j.cypher.CypherParameterizer;
+import mcp.canary.neo4j.graph.GraphResult;
+import mcp.canary.neo4j.guard.QueryGuard;
+import mcp.canary.neo4j.service.Neo4jService;
+import mcp.canary.neo4j.service.TransactionTimeouts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GraphMCPToolTest {
+
+    @Mock
+    private Neo4jService neo4jService;
+
+    @Spy
+    private CypherParameterizer cypherParameterizer = new CypherParameterizer(true, 1000, new SimpleMeterRegistry());
+
+    @Mock
+    private QueryGuard queryGuard;
+
+    @Spy
+    private TransactionTimeouts transactionTimeouts =
+            new TransactionTimeouts(Duration.ofSeconds(60), "", Duration.ofMinutes(10));
+
+    @Mock
+    private McpAsyncServerExchange exchange;
+
+    @InjectMocks
+    private GraphMCPTool tool;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(exchange.loggingNotification(any())).thenReturn(Mono.empty());
+        lenient().when(queryGuard.checkRead(any(), any()))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(inv.getArgument(0)));
+    }
+
+    @Test
+    void readNeo4jGraph_parameterizesGuardsAndCollects() {
+        GraphResult expected = new GraphResult();
+        when(neo4jService.executeGraphAsync(any(), any(), anyInt(),
+                anyInt(), any())).thenReturn(CompletableFuture.completedFuture(expected));
+
+        GraphResult result = tool.readNeo4jGraph("MATCH p=(a {name: 'A'})--() RETURN p", null, 5, exchange).block();
+
+        assertSame(expected, result);
+        verify(queryGuard).checkRead("MATCH p=(a {name: $__lit0})--() RETURN p", Map.of("__lit0", "A"));
+        verify(neo4jService).executeGraphAsync("MATCH p=(a {name: $__lit0})--() RETURN p", Map.of("__lit0", "A"),
+                500, 2000, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void readNeo4jGraph_rejectedByGuard_doesNotExecute() {
+        when(queryGuard.checkRead(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException("READ_WRITE")));
+
+        Mono<GraphResult> result = tool.readNeo4jGraph("MATCH (n) DETACH DELETE n", null, null, null);
+
+        assertThrows(IllegalArgumentException.class, result::block);
+        verifyNoInteractions(neo4jService);
+    }
+}
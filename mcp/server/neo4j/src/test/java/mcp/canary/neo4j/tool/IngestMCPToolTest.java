@@ -0,0 +1,114 @@
+package mcp.canary.neo4j.tool;
+
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import mcp.canary.neo4j.cache.SchemaCache;
+import mcp.canary.neo4j.dedup.DeduplicationJob;
+import mcp.canary.neo4j.ingest.BulkIngestor;
+import mcp.canary.neo4j.service.TransactionTimeouts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IngestMCPToolTest {
+
+    @Mock
+    private BulkIngestor bulkIngestor;
+
+    @Mock
+    private SchemaCache schemaCache;
+
+    @Mock
+    private DeduplicationJob deduplicationJob;
+
+    @Mock
+    private TransactionTimeouts transactionTimeouts;
+
+    @Mock
+    private McpAsyncServerExchange exchange;
+
+    @InjectMocks
+    private IngestMCPTool tool;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(exchange.loggingNotification(any())).thenReturn(Mono.empty());
+        lenient().when(transactionTimeouts.forTool(any(), any())).thenReturn(Duration.ofSeconds(120));
+    }
+
+    @Test
+    void ingestNodes_forwardsProgressAndNotifiesCaches() {
+        List<Map<String, Object>> rows = List.of(Map.of("name", "A"));
+        Map<String, Object> expected = Map.of("nodesCreated", 1);
+        when(bulkIngestor.ingest(eq("Person"), eq("name"), eq(rows), eq(500), eq(Duration.ofSeconds(120)), any()))
+                .thenAnswer(invocation -> {
+            Consumer<String> progress = invocation.getArgument(5);
+            progress.accept("Person 第 1 批");
+            return expected;
+        });
+
+        Map<String, Object> result = tool.ingestNodes("Person", "name", rows, 500, null, exchange).block();
+
+        assertEquals(expected, result);
+        verify(exchange, times(2)).loggingNotification(any());
+        verify(schemaCache).onWrite(expected);
+        verify(deduplicationJob).markIngested("Person", rows, expected);
+        verify(transactionTimeouts).forTool("ingest-neo4j-nodes", null);
+    }
+
+    @Test
+    void ingestNodes_cancelled_interruptsIngestThread() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(bulkIngestor.ingest(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return Map.of();
+        });
+
+        Disposable subscription = tool.ingestNodes("Person", "name", List.of(Map.of("name", "A")), null, null, null)
+                .subscribe();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        subscription.dispose();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void ingestNodes_invalidRows_errorWithoutCacheUpdates() {
+        when(bulkIngestor.ingest(any(), any(), any(), any(), any(), any()))
+                .thenThrow(new IllegalArgumentException("rows 不能为空"));
+
+        Mono<Map<String, Object>> result = tool.ingestNodes("Person", "name", List.of(), null, null, null);
+
+        assertThrows(IllegalArgumentException.class, result::block);
+        verifyNoInteractions(schemaCache, deduplicationJob);
+    }
+}
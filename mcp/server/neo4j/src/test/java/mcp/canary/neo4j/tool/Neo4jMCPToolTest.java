@@ -1,24 +1,47 @@
 package mcp.canary.neo4j.tool;
 
-import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import mcp.canary.neo4j.cache.IdempotencyCache;
+import mcp.canary.neo4j.cache.QueryResultCache;
+import mcp.canary.neo4j.cache.SchemaCache;
+import mcp.canary.neo4j.coalesce.WriteCoalescer;
+import mcp.canary.neo4j.cypher.CypherParameterizer;
+import mcp.canary.neo4j.dedup.DeduplicationJob;
+import mcp.canary.neo4j.guard.QueryGuard;
+import mcp.canary.neo4j.service.BatchWriteResult;
 import mcp.canary.neo4j.service.Neo4jService;
+import mcp.canary.neo4j.service.ReadPage;
+import mcp.canary.neo4j.service.TransactionTimeouts;
+import mcp.canary.neo4j.service.WriteStatement;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,92 +51,240 @@ class Neo4jMCPToolTest {
     private Neo4jService neo4jService;
 
     @Mock
-    private McpSyncServerExchange exchange;
+    private DeduplicationJob deduplicationJob;
+
+    @Spy
+    private QueryResultCache queryResultCache =
+            new QueryResultCache(0, DataSize.ofMegabytes(1), Duration.ZERO, new SimpleMeterRegistry());
+
+    @Mock
+    private SchemaCache schemaCache;
+
+    @Spy
+    private CypherParameterizer cypherParameterizer = new CypherParameterizer(true, 1000, new SimpleMeterRegistry());
+
+    @Mock
+    private QueryGuard queryGuard;
+
+    @Spy
+    private TransactionTimeouts transactionTimeouts =
+            new TransactionTimeouts(Duration.ofSeconds(60), "read-neo4j-cypher=PT30S", Duration.ofMinutes(10));
+
+    @Mock
+    private WriteCoalescer writeCoalescer;
+
+    @Spy
+    private IdempotencyCache idempotencyCache = new IdempotencyCache(100, Duration.ofMinutes(10), new SimpleMeterRegistry());
+
+    @Mock
+    private McpAsyncServerExchange exchange;
 
     @InjectMocks
     private Neo4jMCPTool tool;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(exchange.loggingNotification(any())).thenReturn(Mono.empty());
+        lenient().when(queryGuard.checkRead(any(), any()))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(inv.getArgument(0)));
+    }
+
     @Test
-    void getNeo4jSchema_logsAndExecutes() {
+    void getNeo4jSchema_logsAndReturnsCachedSchema() {
         List<Map<String, Object>> expected = List.of(Map.of("label", "Person"));
-        when(neo4jService.execute(any(), isNull())).thenReturn(expected);
+        when(schemaCache.get()).thenReturn(expected);
 
-        List<Map<String, Object>> result = tool.getNeo4jSchema(exchange);
+        List<Map<String, Object>> result = tool.getNeo4jSchema(exchange).block();
 
         assertEquals(expected, result);
         verify(exchange).loggingNotification(any());
-        verify(neo4jService).execute(
-                "CALL apoc.meta.data() YIELD label, property, type, elementType " +
-                        "WHERE elementType = 'node' RETURN label, collect(property) as properties",
-                null);
+        verifyNoInteractions(neo4jService);
     }
 
     @Test
-    void getNeo4jSchema_exchangeNull_executesWithoutLogging() {
+    void getNeo4jSchema_exchangeNull_returnsWithoutLogging() {
         List<Map<String, Object>> expected = List.of(Map.of("label", "Company"));
-        when(neo4jService.execute(any(), isNull())).thenReturn(expected);
+        when(schemaCache.get()).thenReturn(expected);
 
-        List<Map<String, Object>> result = tool.getNeo4jSchema(null);
+        List<Map<String, Object>> result = tool.getNeo4jSchema(null).block();
 
         assertEquals(expected, result);
-        verify(neo4jService).execute(any(), isNull());
+        verify(schemaCache).get();
     }
 
     @Test
-    void readNeo4jCypher_writeKeyword_throwsException() {
-        assertThrows(IllegalArgumentException.class,
-                () -> tool.readNeo4jCypher("match (n) create (m)", exchange));
+    void readNeo4jCypher_rejectedByGuard_doesNotExecute() {
+        when(queryGuard.checkRead(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalArgumentException("READ_WRITE")));
 
+        Mono<ReadPage> result = tool.readNeo4jCypher("match (n) create (m)", null, null, null, exchange);
+
+        assertThrows(IllegalArgumentException.class, result::block);
+        verify(queryGuard).checkRead("match (n) create (m)", null);
         verifyNoInteractions(neo4jService);
     }
 
     @Test
-    void readNeo4jCypher_validRead_executesAndDeduplicatesAndLogs() {
-        List<Map<String, Object>> expected = List.of(Map.of("name", "Alice"));
-        when(neo4jService.execute(any(), isNull())).thenReturn(expected);
+    void readNeo4jCypher_validRead_executesAndLogsWithoutDeduplicating() {
+        ReadPage expected = new ReadPage(List.of(Map.of("name", "Alice")), null, false);
+        when(neo4jService.executePageAsync(any(), isNull(), isNull(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(expected));
 
-        List<Map<String, Object>> result = tool.readNeo4jCypher("MATCH (n) RETURN n", exchange);
+        ReadPage result = tool.readNeo4jCypher("MATCH (n) RETURN n", null, null, null, exchange).block();
 
         assertEquals(expected, result);
         verify(exchange).loggingNotification(any());
-        InOrder order = inOrder(neo4jService);
-        order.verify(neo4jService).execute("MATCH (n) RETURN n", null);
-        order.verify(neo4jService).deduplicateNodesByName();
+        verify(neo4jService).executePageAsync("MATCH (n) RETURN n", null, null, 200, Duration.ofSeconds(30));
+        verifyNoMoreInteractions(neo4jService);
+        verifyNoInteractions(deduplicationJob);
     }
 
     @Test
     void readNeo4jCypher_validRead_exchangeNull_executesWithoutLogging() {
-        List<Map<String, Object>> expected = List.of(Map.of("name", "Bob"));
-        when(neo4jService.execute(any(), isNull())).thenReturn(expected);
+        ReadPage expected = new ReadPage(List.of(Map.of("name", "Bob")), null, false);
+        when(neo4jService.executePageAsync(any(), any(), isNull(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(expected));
 
-        List<Map<String, Object>> result = tool.readNeo4jCypher("MATCH (n) RETURN n LIMIT 1", null);
+        ReadPage result = tool.readNeo4jCypher("MATCH (n) RETURN n LIMIT 1", null, null, null, null).block();
 
         assertEquals(expected, result);
-        InOrder order = inOrder(neo4jService);
-        order.verify(neo4jService).execute("MATCH (n) RETURN n LIMIT 1", null);
-        order.verify(neo4jService).deduplicateNodesByName();
+        verify(neo4jService).executePageAsync("MATCH (n) RETURN n LIMIT $__lit0", Map.of("__lit0", 1L), null, 200,
+                Duration.ofSeconds(30));
+        verifyNoMoreInteractions(neo4jService);
+    }
+
+    @Test
+    void readNeo4jCypher_cursor_passedThrough() {
+        ReadPage expected = new ReadPage(List.of(), null, false);
+        when(neo4jService.executePageAsync(any(), isNull(), any(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(expected));
+
+        tool.readNeo4jCypher("MATCH (n) RETURN n", null, "abc", null, null).block();
+
+        verify(neo4jService).executePageAsync("MATCH (n) RETURN n", null, "abc", 200, Duration.ofSeconds(30));
+    }
+
+    @Test
+    void readNeo4jCypher_timeoutSeconds_overridesToolTimeout() {
+        ReadPage expected = new ReadPage(List.of(), null, false);
+        when(neo4jService.executePageAsync(any(), any(), any(), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(expected));
+
+        tool.readNeo4jCypher("MATCH (n) RETURN n", null, null, 5, null).block();
+
+        verify(neo4jService).executePageAsync("MATCH (n) RETURN n", null, null, 200, Duration.ofSeconds(5));
+    }
+
+    @Test
+    void readNeo4jCypher_cancelled_cancelsRunningTransaction() {
+        CompletableFuture<ReadPage> running = new CompletableFuture<>();
+        when(neo4jService.executePageAsync(any(), any(), any(), anyInt(), any())).thenReturn(running);
+
+        tool.readNeo4jCypher("MATCH (n) RETURN n", null, null, null, null).subscribe().dispose();
+
+        assertTrue(running.isCancelled());
     }
 
     @Test
     void writeNeo4jCypher_logsAndExecutes() {
         Map<String, Object> expected = Map.of("nodesCreated", 1);
-        when(neo4jService.executeWriteWithSummary(any(), isNull())).thenReturn(expected);
+        when(neo4jService.executeWriteWithSummaryAsync(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(expected));
 
-        Map<String, Object> result = tool.writeNeo4jCypher("MERGE (n:Person {name:'A'})", exchange);
+        Map<String, Object> result = tool.writeNeo4jCypher("MERGE (n:Person {name:'A'})", null, null, null, exchange).block();
 
         assertEquals(expected, result);
         verify(exchange).loggingNotification(any());
-        verify(neo4jService).executeWriteWithSummary("MERGE (n:Person {name:'A'})", null);
+        InOrder order = inOrder(neo4jService, queryResultCache, schemaCache, deduplicationJob);
+        order.verify(neo4jService).executeWriteWithSummaryAsync("MERGE (n:Person {name:$__lit0})", Map.of("__lit0", "A"),
+                Duration.ofSeconds(60));
+        order.verify(queryResultCache).onWrite("MERGE (n:Person {name:'A'})", expected);
+        order.verify(schemaCache).onWrite(expected);
+        order.verify(deduplicationJob).markDirty("MERGE (n:Person {name:'A'})", null, expected);
     }
 
     @Test
     void writeNeo4jCypher_exchangeNull_executesWithoutLogging() {
         Map<String, Object> expected = Map.of("nodesCreated", 2);
-        when(neo4jService.executeWriteWithSummary(any(), isNull())).thenReturn(expected);
+        when(neo4jService.executeWriteWithSummaryAsync(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(expected));
+
+        Map<String, Object> result = tool.writeNeo4jCypher("CREATE (n:Person {name:'B'})", null, null, null, null).block();
+
+        assertEquals(expected, result);
+        verify(neo4jService).executeWriteWithSummaryAsync("CREATE (n:Person {name:$__lit0})", Map.of("__lit0", "B"),
+                Duration.ofSeconds(60));
+    }
+
+    @Test
+    void writeNeo4jCypher_params_mergedWithExtractedLiterals() {
+        Map<String, Object> expected = Map.of("propertiesSet", 1);
+        Map<String, Object> params = Map.of("name", "C");
+        when(neo4jService.executeWriteWithSummaryAsync(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(expected));
+
+        tool.writeNeo4jCypher("MATCH (n:Person {name: $name}) SET n.age = 30", params, null, null, null).block();
+
+        verify(neo4jService).executeWriteWithSummaryAsync("MATCH (n:Person {name: $name}) SET n.age = $__lit0",
+                Map.of("name", "C", "__lit0", 30L), Duration.ofSeconds(60));
+        verify(deduplicationJob).markDirty("MATCH (n:Person {name: $name}) SET n.age = 30", params, expected);
+    }
+
+    @Test
+    void writeNeo4jCypher_retriedWithSameKey_replaysWithoutWriting() {
+        Map<String, Object> expected = Map.of("nodesCreated", 1);
+        when(neo4jService.executeWriteWithSummaryAsync(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(expected));
+
+        tool.writeNeo4jCypher("CREATE (n:Person {name:'A'})", null, null, "req-1", null).block();
+        Map<String, Object> replayed = tool.writeNeo4jCypher("CREATE (n:Person {name:'A'})", null, null, "req-1", null).block();
+        tool.writeNeo4jCypher("CREATE (n:Person {name:'A'})", null, null, "req-2", null).block();
+
+        assertEquals(expected, replayed);
+        verify(neo4jService, times(2)).executeWriteWithSummaryAsync(any(), any(), any());
+        verify(deduplicationJob, times(2)).markDirty("CREATE (n:Person {name:'A'})", null, expected);
+    }
+
+    @Test
+    void writeNeo4jCypher_coalescedMerge_submittedToCoalescer() {
+        Map<String, Object> expected = Map.of("nodesCreated", 1);
+        when(writeCoalescer.accepts("MERGE (n:Person {name:$__lit0})")).thenReturn(true);
+        when(writeCoalescer.submit(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(expected));
 
-        Map<String, Object> result = tool.writeNeo4jCypher("CREATE (n:Person {name:'B'})", null);
+        Map<String, Object> result = tool.writeNeo4jCypher("MERGE (n:Person {name:'A'})", null, null, null, null).block();
 
         assertEquals(expected, result);
-        verify(neo4jService).executeWriteWithSummary("CREATE (n:Person {name:'B'})", null);
+        verify(writeCoalescer).submit("MERGE (n:Person {name:$__lit0})", Map.of("__lit0", "A"), Duration.ofSeconds(60));
+        verify(queryResultCache).onWrite("MERGE (n:Person {name:'A'})", expected);
+        verifyNoInteractions(neo4jService);
+    }
+
+    @Test
+    void writeNeo4jCypherBatch_parameterizesEachStatementAndInvalidatesPerStatement() {
+        Map<String, Object> first = Map.of("nodesCreated", 1);
+        Map<String, Object> second = Map.of("relationshipsCreated", 1);
+        Map<String, Object> total = Map.of("nodesCreated", 1, "relationshipsCreated", 1);
+        when(neo4jService.executeWriteBatchAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(new BatchWriteResult(List.of(first, second), total)));
+        List<WriteStatement> statements = List.of(
+                new WriteStatement("MERGE (n:Person {name:'A'})", null),
+                new WriteStatement("MATCH (a {name: $a}) MERGE (a)-[:KNOWS]->(b:Person {name:'B'})", Map.of("a", "A")));
+
+        BatchWriteResult result = tool.writeNeo4jCypherBatch(statements, 90, exchange).block();
+
+        assertEquals(total, result.getTotal());
+        verify(neo4jService).executeWriteBatchAsync(List.of(
+                new WriteStatement("MERGE (n:Person {name:$__lit0})", Map.of("__lit0", "A")),
+                new WriteStatement("MATCH (a {name: $a}) MERGE (a)-[:KNOWS]->(b:Person {name:$__lit0})",
+                        Map.of("a", "A", "__lit0", "B"))), Duration.ofSeconds(90));
+        verify(queryResultCache).onWrite("MERGE (n:Person {name:'A'})", first);
+        verify(queryResultCache).onWrite("MATCH (a {name: $a}) MERGE (a)-[:KNOWS]->(b:Person {name:'B'})", second);
+        verify(deduplicationJob).markDirty("MERGE (n:Person {name:'A'})", null, first);
+        verify(schemaCache).onWrite(total);
+    }
+
+    @Test
+    void writeNeo4jCypherBatch_failure_leavesCachesUntouched() {
+        when(neo4jService.executeWriteBatchAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("第 1 条语句执行失败")));
+
+        Mono<BatchWriteResult> result = tool.writeNeo4jCypherBatch(
+                List.of(new WriteStatement("CREATE (n)", null)), null, null);
+
+        assertThrows(IllegalStateException.class, result::block);
+        verifyNoInteractions(queryResultCache, schemaCache, deduplicationJob);
     }
 }
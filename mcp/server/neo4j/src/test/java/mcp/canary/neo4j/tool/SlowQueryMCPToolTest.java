@@ -0,0 +1,47 @@
+package mcp.canary.neo4j.tool;
+
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
+import mcp.canary.neo4j.slowlog.SlowQueryEntry;
+import mcp.canary.neo4j.slowlog.SlowQueryLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SlowQueryMCPToolTest {
+
+    @Mock
+    private SlowQueryLog slowQueryLog;
+
+    @Mock
+    private McpAsyncServerExchange exchange;
+
+    @InjectMocks
+    private SlowQueryMCPTool tool;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(exchange.loggingNotification(any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void getSlowQueries_returnsLogEntries() {
+        List<SlowQueryEntry> entries = List.of(new SlowQueryEntry());
+        when(slowQueryLog.entries(5)).thenReturn(entries);
+
+        assertEquals(entries, tool.getSlowQueries(5, exchange).block());
+        verify(exchange).loggingNotification(any());
+    }
+}